@@ -22,6 +22,7 @@ import org.springframework.data.redis.core.StringRedisTemplate;
 import com.intellidesk.cognitia.analytics.utils.IdempotencyCallAdvisor;
 import com.intellidesk.cognitia.analytics.utils.QuotaEnforcementAdvisor;
 import com.intellidesk.cognitia.analytics.utils.TokenAnalyticsAdvisorV2;
+import com.intellidesk.cognitia.chat.service.ThreadLockService;
 import com.intellidesk.cognitia.chat.service.memory.SummarizingChatMemoryAdvisor;
 
 import lombok.RequiredArgsConstructor;
@@ -71,13 +72,17 @@ public class ChatConfiguration {
             ChatMemory chatMemory,
             @Qualifier("lightClient") ChatClient lightClient,
             StringRedisTemplate stringRedisTemplate,
+            ThreadLockService threadLockService,
             @Value("${cognitia.chat.memory.recent-window-size:8}") int recentWindowSize,
-            @Value("${cognitia.chat.memory.summarization-threshold:10}") int summarizationThreshold) {
+            @Value("${cognitia.chat.memory.summarization-threshold:10}") int summarizationThreshold,
+            @Value("${cognitia.chat.memory.summary-max-stale-messages:6}") int maxStaleMessages) {
         return SummarizingChatMemoryAdvisor.builder(chatMemory)
                 .summaryClient(lightClient)
                 .redisTemplate(stringRedisTemplate)
                 .recentWindowSize(recentWindowSize)
                 .summarizationThreshold(summarizationThreshold)
+                .threadLockService(threadLockService)
+                .maxStaleMessages(maxStaleMessages)
                 .build();
     }
 
@@ -1,27 +1,31 @@
 package com.intellidesk.cognitia.chat.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.intellidesk.cognitia.chat.models.entities.StoredMessage;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 @Configuration
 public class RedisMessageConfig {
 
     @Bean(name = "chatMemoryRedisTemplate")
-    public RedisTemplate<String, StoredMessage> redisTemplate(RedisConnectionFactory factory, ObjectMapper objectMapper) {
+    public RedisTemplate<String, StoredMessage> redisTemplate(RedisConnectionFactory factory, ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${cognitia.chat.memory.codec:json}") StoredMessageRedisSerializer.Codec codec,
+            @Value("${cognitia.chat.memory.compression-threshold-bytes:1024}") int compressionThreshold) {
         RedisTemplate<String, StoredMessage> template = new RedisTemplate<>();
         template.setConnectionFactory(factory);
 
-        // Jackson serializer for StoredMessage
-        Jackson2JsonRedisSerializer<StoredMessage> valueSerializer =
-                new Jackson2JsonRedisSerializer<>(StoredMessage.class);
-        valueSerializer.setObjectMapper(objectMapper);
+        // Writes the configured codec, reads both JSON and binary entries
+        StoredMessageRedisSerializer valueSerializer =
+                new StoredMessageRedisSerializer(objectMapper, meterRegistry, codec, compressionThreshold);
 
         template.setKeySerializer(new StringRedisSerializer());
         template.setValueSerializer(valueSerializer);
@@ -0,0 +1,257 @@
+package com.intellidesk.cognitia.chat.config;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.intellidesk.cognitia.chat.models.entities.StoredMessage;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Redis codec for chat memory entries. Writes either the original Jackson JSON or a compact binary
+ * layout; reads both, so switching codecs never strands entries already in Redis.
+ *
+ * Binary layout: magic 0xC7 (never the first byte of a JSON document), version, flags, then the body,
+ * deflated when it is larger than the compression threshold (flag bit 0, followed by the inflated length).
+ * Body: message type, timestamp (presence byte, zigzag varint epoch seconds, varint nanos), text and
+ * metadata JSON, strings as varint length + 1 (0 = null) and UTF-8 bytes.
+ */
+public class StoredMessageRedisSerializer implements RedisSerializer<StoredMessage> {
+
+    public enum Codec { JSON, BINARY }
+
+    static final byte MAGIC = (byte) 0xC7;
+    private static final byte VERSION = 1;
+    private static final int FLAG_DEFLATED = 1;
+    private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {};
+
+    private final Jackson2JsonRedisSerializer<StoredMessage> json;
+    private final ObjectMapper objectMapper;
+    private final Codec codec;
+    private final int compressionThreshold;
+    private final DistributionSummary encodedBytes;
+    private final Timer encodeTimer;
+    private final Timer decodeTimer;
+
+    public StoredMessageRedisSerializer(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                        Codec codec, int compressionThreshold) {
+        this.json = new Jackson2JsonRedisSerializer<>(objectMapper, StoredMessage.class);
+        this.objectMapper = objectMapper;
+        this.codec = codec;
+        this.compressionThreshold = compressionThreshold;
+        String tag = codec.name().toLowerCase();
+        this.encodedBytes = DistributionSummary.builder("cognitia.chat.memory.codec.bytes")
+                .description("Encoded size of one chat memory entry")
+                .baseUnit("bytes")
+                .tag("codec", tag)
+                .register(meterRegistry);
+        this.encodeTimer = Timer.builder("cognitia.chat.memory.codec.time")
+                .description("Time to encode or decode one chat memory entry")
+                .tags("codec", tag, "op", "encode")
+                .register(meterRegistry);
+        this.decodeTimer = Timer.builder("cognitia.chat.memory.codec.time")
+                .description("Time to encode or decode one chat memory entry")
+                .tags("codec", tag, "op", "decode")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public byte[] serialize(StoredMessage message) throws SerializationException {
+        if (message == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        byte[] bytes = codec == Codec.BINARY ? encode(message) : json.serialize(message);
+        encodeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        encodedBytes.record(bytes.length);
+        return bytes;
+    }
+
+    @Override
+    public StoredMessage deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        long start = System.nanoTime();
+        StoredMessage message = bytes[0] == MAGIC ? decode(bytes) : json.deserialize(bytes);
+        decodeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return message;
+    }
+
+    private byte[] encode(StoredMessage message) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+        writeString(body, message.getMessageType() != null ? message.getMessageType().name() : null);
+        Instant timestamp = message.getTimestamp();
+        if (timestamp == null) {
+            body.write(0);
+        } else {
+            body.write(1);
+            writeVarLong(body, (timestamp.getEpochSecond() << 1) ^ (timestamp.getEpochSecond() >> 63));
+            writeVarLong(body, timestamp.getNano());
+        }
+        writeString(body, message.getText());
+        writeBytes(body, metadataJson(message.getMetadata()));
+
+        byte[] raw = body.toByteArray();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length + 8);
+        out.write(MAGIC);
+        out.write(VERSION);
+        byte[] deflated = raw.length > compressionThreshold ? deflate(raw) : null;
+        if (deflated != null && deflated.length < raw.length) {
+            out.write(FLAG_DEFLATED);
+            writeVarLong(out, raw.length);
+            out.writeBytes(deflated);
+        } else {
+            out.write(0);
+            out.writeBytes(raw);
+        }
+        return out.toByteArray();
+    }
+
+    private StoredMessage decode(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        in.get(); // magic
+        byte version = in.get();
+        if (version != VERSION) {
+            throw new SerializationException("Unsupported chat memory encoding version " + version);
+        }
+        int flags = in.get();
+        if ((flags & FLAG_DEFLATED) != 0) {
+            int length = (int) readVarLong(in);
+            in = ByteBuffer.wrap(inflate(bytes, in.position(), length));
+        }
+
+        StoredMessage message = new StoredMessage();
+        String type = readString(in);
+        message.setMessageType(type != null ? MessageType.valueOf(type) : null);
+        if (in.get() == 1) {
+            long zigzag = readVarLong(in);
+            long seconds = (zigzag >>> 1) ^ -(zigzag & 1);
+            message.setTimestamp(Instant.ofEpochSecond(seconds, readVarLong(in)));
+        }
+        message.setText(readString(in));
+        byte[] metadata = readBytes(in);
+        try {
+            message.setMetadata(metadata != null ? objectMapper.readValue(metadata, METADATA_TYPE) : new HashMap<>());
+        } catch (Exception e) {
+            throw new SerializationException("Unreadable chat memory metadata", e);
+        }
+        return message;
+    }
+
+    private byte[] metadataJson(Map<String, Object> metadata) {
+        if (metadata == null || metadata.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsBytes(metadata);
+        } catch (Exception e) {
+            throw new SerializationException("Chat memory metadata is not serializable", e);
+        }
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] bytes, int offset, int length) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, offset, bytes.length - offset);
+            byte[] raw = new byte[length];
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                int n = inflater.inflate(raw, read, length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != length) {
+                throw new SerializationException("Truncated chat memory entry");
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new SerializationException("Corrupt chat memory entry", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        writeBytes(out, value != null ? value.getBytes(StandardCharsets.UTF_8) : null);
+    }
+
+    private static void writeBytes(ByteArrayOutputStream out, byte[] value) {
+        if (value == null) {
+            out.write(0);
+            return;
+        }
+        writeVarLong(out, value.length + 1L);
+        out.writeBytes(value);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = readBytes(in);
+        return bytes != null ? new String(bytes, StandardCharsets.UTF_8) : null;
+    }
+
+    private static byte[] readBytes(ByteBuffer in) {
+        long length = readVarLong(in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[(int) (length - 1)];
+        in.get(bytes);
+        return bytes;
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Malformed varint in chat memory entry");
+    }
+}
@@ -3,6 +3,7 @@ package com.intellidesk.cognitia.chat.controller;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -14,6 +15,7 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -23,11 +25,13 @@ import com.intellidesk.cognitia.chat.models.dtos.ToolDescriptor;
 import com.intellidesk.cognitia.chat.models.dtos.UserMessageDTO;
 import com.intellidesk.cognitia.chat.models.entities.ChatThread;
 import com.intellidesk.cognitia.chat.service.ChatService;
+import com.intellidesk.cognitia.chat.service.ChatStreamJournal;
 import com.intellidesk.cognitia.chat.service.ThreadLockService.ThreadLockStatus;
 import com.intellidesk.cognitia.chat.service.tools.ToolRegistryService;
 import com.intellidesk.cognitia.ingestion.models.dtos.ApiResponse;
 import com.intellidesk.cognitia.utils.exceptionHandling.DuplicateRequestAlreadyProcessedException;
 import com.intellidesk.cognitia.utils.exceptionHandling.DuplicateRequestInProgressException;
+import com.intellidesk.cognitia.utils.exceptionHandling.StaleThreadLockException;
 import com.intellidesk.cognitia.utils.exceptionHandling.ThreadBusyException;
 
 import org.springframework.data.redis.RedisConnectionFailureException;
@@ -49,6 +53,7 @@ public class ChatController {
 
     private final ChatService chatService;
     private final ToolRegistryService toolRegistryService;
+    private final ChatStreamJournal chatStreamJournal;
 
     @Operation(summary = "Get available tools for the chat")
     @GetMapping("/tools")
@@ -137,18 +142,45 @@ public class ChatController {
         ));
     }
 
-    @Operation(summary = "Stream a chat response")
+    @Operation(summary = "Stream a chat response", description = "Events carry sequential ids. Resubmitting the same requestId (optionally with Last-Event-ID) re-attaches to the running or finished turn instead of generating again.")
     @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public Flux<org.springframework.http.codec.ServerSentEvent<String>> streamResponse(
-        @RequestBody UserMessageDTO userMessageDTO
+        @RequestBody UserMessageDTO userMessageDTO,
+        @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId
     ){
-        return Flux.defer(() -> {
+        return withErrorEvents(Flux.defer(() -> {
             // if (userMessageDTO.getThreadId() == null) {
             //     ChatThread chatThread = chatService.createNewThread();
             //     userMessageDTO.setThreadId(chatThread.getId().toString());
             // }
-            return chatService.streamUserMessage(userMessageDTO);
-        })
+            String requestId = userMessageDTO.getRequestId();
+            if (requestId == null || requestId.isBlank()) {
+                return chatService.streamUserMessage(userMessageDTO);
+            }
+            UUID userId = chatService.getCurrentUserId();
+            if (chatStreamJournal.open(requestId, userId)) {
+                return chatStreamJournal.record(requestId,
+                        withErrorEvents(Flux.defer(() -> chatService.streamUserMessage(userMessageDTO))));
+            }
+            return chatStreamJournal.replay(requestId, userId, parseLastEventId(lastEventId));
+        }));
+    }
+
+    @Operation(summary = "Resume a chat response stream", description = "Replays the events of a streamed turn after Last-Event-ID, then follows it until the turn ends.")
+    @GetMapping(value = "/stream/{requestId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> resumeStream(
+        @PathVariable String requestId,
+        @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId
+    ){
+        return withErrorEvents(Flux.defer(() ->
+                chatStreamJournal.replay(requestId, chatService.getCurrentUserId(), parseLastEventId(lastEventId))));
+    }
+
+    /**
+     * Maps stream failures to a terminal SSE error event followed by [DONE]
+     */
+    private Flux<ServerSentEvent<String>> withErrorEvents(Flux<ServerSentEvent<String>> events) {
+        return events
         .onErrorResume(ThreadBusyException.class, e -> {
             log.warn("[ChatController] Thread busy: {} - queue position: {}", e.getThreadId(), e.getQueuePosition());
             String errorJson = String.format(
@@ -162,6 +194,15 @@ public class ChatController {
                 ServerSentEvent.<String>builder("[DONE]").build()
             );
         })
+        .onErrorResume(StaleThreadLockException.class, e -> {
+            log.warn("[ChatController] Stale thread lock: {} - fence: {}", e.getThreadId(), e.getFencingToken());
+            return Flux.just(
+                ServerSentEvent.<String>builder(
+                    "{\"type\":\"error\",\"code\":\"THREAD_LOCK_LOST\",\"message\":\"" + escapeJson(e.getMessage()) + "\",\"retryable\":true}"
+                ).event("error").build(),
+                ServerSentEvent.<String>builder("[DONE]").build()
+            );
+        })
         .onErrorResume(IllegalArgumentException.class, e -> {
             log.error("[ChatController] Invalid argument error: {}", e.getMessage());
             return Flux.just(
@@ -209,6 +250,18 @@ public class ChatController {
         });
     }
 
+    private long parseLastEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(lastEventId.trim()));
+        } catch (NumberFormatException e) {
+            log.warn("[ChatController] Ignoring malformed Last-Event-ID: {}", lastEventId);
+            return 0;
+        }
+    }
+
     /**
      * Escapes special characters for JSON string values
      */
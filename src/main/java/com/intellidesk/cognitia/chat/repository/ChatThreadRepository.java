@@ -23,6 +23,16 @@ public interface ChatThreadRepository extends JpaRepository<ChatThread, UUID> {
 
     boolean existsByIdAndUserId(UUID id, UUID userId);
 
+    @Query(value = "SELECT lock_fence FROM chat_threads WHERE id = :id", nativeQuery = true)
+    Optional<Long> findLockFence(@Param("id") UUID id);
+
+    /**
+     * Records a write under the given fencing token; returns 0 if a newer lock holder already wrote.
+     */
+    @Modifying
+    @Query(value = "UPDATE chat_threads SET lock_fence = :fence WHERE id = :id AND lock_fence <= :fence", nativeQuery = true)
+    int advanceLockFence(@Param("id") UUID id, @Param("fence") long fence);
+
     @Modifying(clearAutomatically = true)
     @Query("UPDATE ChatThread t SET t.title = :title WHERE t.id = :id AND t.user.id = :userId")
     int updateTitleByIdAndUserId(@Param("id") UUID id, @Param("title") String title, @Param("userId") UUID userId);
@@ -1,47 +1,288 @@
 package com.intellidesk.cognitia.chat.repository;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Repository;
 
 import com.intellidesk.cognitia.chat.models.entities.StoredMessage;
+import com.intellidesk.cognitia.userandauth.multiteancy.TenantContext;
+import com.intellidesk.cognitia.utils.exceptionHandling.StaleThreadLockException;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.ai.chat.messages.*;
 import org.springframework.ai.chat.memory.ChatMemoryRepository;
 
+/**
+ * Chat memory in one Redis list per conversation. {@link #saveAll} receives the whole window from
+ * MessageWindowChatMemory, but only the delta is written: the longest suffix of the stored list that
+ * the new window starts with is kept, the remaining messages are appended and the list is trimmed to
+ * the window size in one script. Stored messages are never rewritten, so they keep their timestamps.
+ * If the window cannot be expressed that way, or the list changed since it was read, the list is
+ * replaced atomically instead.
+ *
+ * Every write renews the list's TTL (cognitia.chat.memory.ttl-minutes); an idle conversation expires
+ * and is hydrated from the database on its next turn.
+ *
+ * Conversations are enumerated through sorted sets scored by last activity (one for all conversations
+ * and one per tenant, updated by the same scripts), never with KEYS. Each write also drops entries
+ * older than the TTL from those sets, so they only list conversations whose memory can still exist.
+ * The tenant of a write comes from {@link #writeScoped} (the chat advisors pass the request's tenant,
+ * which survives thread hops) or else from TenantContext; it is also kept next to the list so
+ * {@link #deleteByConversationId} can remove the conversation from its tenant's set from any thread.
+ * {@link #scanConversationIds} walks the memory keys with a SCAN cursor for conversations written
+ * before the index existed.
+ *
+ * A write made inside {@link #writeScoped} with a fence is rejected with {@link StaleThreadLockException}
+ * when the thread's fence counter has moved past the writer's fence. The check runs in the same script as
+ * the write, so a lease taken over between check and write cannot slip through.
+ */
 @Repository
 @Slf4j
 public class RedisChatMemoryRepository implements ChatMemoryRepository {
 
+    /**
+     * Shared prologue. Common arguments: ARGV[1] fence (empty when unfenced), ARGV[2] TTL in ms, ARGV[3]
+     * conversation id, ARGV[4] now in epoch ms, ARGV[5] tenant id (empty when unknown). With a fence,
+     * KEYS[2] is the fence counter and the write is refused (-2) if the counter is above the fence.
+     * Sets nextKey to the key after the list and fence counter.
+     */
+    private static final String FENCE_CHECK = """
+        local nextKey = 2
+        if ARGV[1] ~= '' then
+            if tonumber(redis.call('get', KEYS[2]) or '0') > tonumber(ARGV[1]) then
+                return -2
+            end
+            nextKey = 3
+        end
+        """;
+
+    /**
+     * Shared epilogue: renews the list's TTL, tags it with its tenant (KEYS[nextKey] when a tenant is
+     * given), scores the conversation with now in the remaining index sets and prunes entries past the TTL.
+     */
+    private static final String INDEX_UPDATE = """
+        redis.call('pexpire', KEYS[1], ARGV[2])
+        local firstIndex = nextKey
+        if ARGV[5] ~= '' then
+            redis.call('set', KEYS[nextKey], ARGV[5], 'PX', ARGV[2])
+            firstIndex = nextKey + 1
+        end
+        local horizon = tonumber(ARGV[4]) - tonumber(ARGV[2])
+        for i = firstIndex, #KEYS do
+            redis.call('zadd', KEYS[i], ARGV[4], ARGV[3])
+            redis.call('zremrangebyscore', KEYS[i], '-inf', '(' .. string.format('%d', horizon))
+        end
+        return redis.call('llen', KEYS[1])
+        """;
+
+    /**
+     * Appends ARGV[8..] and trims to the last ARGV[7] entries, only if the list still has ARGV[6] entries.
+     * Returns the new length, -1 if the list changed since it was read, or -2 if the fence is stale.
+     */
+    private static final RedisScript<Long> APPEND_SCRIPT = RedisScript.of(FENCE_CHECK +
+        """
+        if redis.call('llen', KEYS[1]) ~= tonumber(ARGV[6]) then
+            return -1
+        end
+        for i = 8, #ARGV do
+            redis.call('rpush', KEYS[1], ARGV[i])
+        end
+        redis.call('ltrim', KEYS[1], -tonumber(ARGV[7]), -1)
+        """ + INDEX_UPDATE
+        , Long.class);
+
+    /**
+     * Replaces the list with ARGV[6..]. Returns the new length, or -2 if the fence is stale.
+     */
+    private static final RedisScript<Long> REPLACE_SCRIPT = RedisScript.of(FENCE_CHECK +
+        """
+        redis.call('del', KEYS[1])
+        for i = 6, #ARGV do
+            redis.call('rpush', KEYS[1], ARGV[i])
+        end
+        """ + INDEX_UPDATE
+        , Long.class);
+
+    private static final ThreadLocal<WriteScope> CURRENT_SCOPE = new ThreadLocal<>();
+
+    private static final RedisSerializer<Long> RESULT_SERIALIZER = new GenericToStringSerializer<>(Long.class);
 
     private final RedisTemplate<String, StoredMessage> chatMemoryRedisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisSerializer<StoredMessage> messageSerializer;
+    private final DistributionSummary appendBytes;
+    private final DistributionSummary replaceBytes;
 
     @Value("${chat.memory.prefix:cognitia:chat:memory:}")
     private String keyPrefix; // e.g. "cognitia:chat:memory:"
 
-    public RedisChatMemoryRepository(@Qualifier("chatMemoryRedisTemplate") RedisTemplate<String, StoredMessage> redisTemplate) {
+    @Value("${chat.memory.index-prefix:cognitia:chat:memory-index:}")
+    private String indexPrefix;
+
+    @Value("${cognitia.chat.memory.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @SuppressWarnings("unchecked")
+    public RedisChatMemoryRepository(@Qualifier("chatMemoryRedisTemplate") RedisTemplate<String, StoredMessage> redisTemplate,
+                                     StringRedisTemplate stringRedisTemplate,
+                                     MeterRegistry meterRegistry) {
         this.chatMemoryRedisTemplate = redisTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.messageSerializer = (RedisSerializer<StoredMessage>) redisTemplate.getValueSerializer();
+        this.appendBytes = bytesWritten(meterRegistry, "append");
+        this.replaceBytes = bytesWritten(meterRegistry, "replace");
     }
 
     private String key(String conversationId) {
         return keyPrefix + conversationId;
     }
 
+    private String globalIndexKey() {
+        return indexPrefix + "all";
+    }
+
+    private String tenantIndexKey(UUID tenantId) {
+        return indexPrefix + tenantId;
+    }
+
+    private String tenantTagKey(String conversationId) {
+        return indexPrefix + "tenant-of:" + conversationId;
+    }
+
+    /**
+     * Runs a chat memory write (e.g. ChatMemory.add) on this thread for the given tenant, optionally
+     * under a thread-lock fence. Use it wherever TenantContext may not be set, e.g. on Reactor threads.
+     * @param tenantId the conversation's tenant, or null to fall back to TenantContext
+     * @param fenceKey the thread's fence counter (see ThreadLockService#fenceKey), or null when unfenced
+     * @throws StaleThreadLockException if a newer lock holder has taken over the thread
+     */
+    public static void writeScoped(UUID tenantId, String fenceKey, Long fence, Runnable write) {
+        CURRENT_SCOPE.set(new WriteScope(tenantId, fenceKey != null && fence != null ? fenceKey : null, fence));
+        try {
+            write.run();
+        } finally {
+            CURRENT_SCOPE.remove();
+        }
+    }
+
+    /**
+     * The scope of the write running on this thread: tenant from {@link #writeScoped} or TenantContext.
+     */
+    private static WriteScope currentScope() {
+        WriteScope scope = CURRENT_SCOPE.get();
+        if (scope == null) {
+            return new WriteScope(TenantContext.getTenantId(), null, null);
+        }
+        return scope.tenantId() != null ? scope : new WriteScope(TenantContext.getTenantId(), scope.fenceKey(), scope.fence());
+    }
+
+    /**
+     * Keys of a write to this conversation: the list, the fence counter when fenced, the tenant tag when
+     * the tenant is known, then the index sets (the global one, plus the tenant's when known).
+     */
+    private List<String> writeKeys(String conversationId, WriteScope scope) {
+        List<String> keys = new ArrayList<>(5);
+        keys.add(key(conversationId));
+        if (scope.fenced()) {
+            keys.add(scope.fenceKey());
+        }
+        if (scope.tenantId() != null) {
+            keys.add(tenantTagKey(conversationId));
+        }
+        keys.add(globalIndexKey());
+        if (scope.tenantId() != null) {
+            keys.add(tenantIndexKey(scope.tenantId()));
+        }
+        return keys;
+    }
+
+    /**
+     * ARGV[1..5] shared by both write scripts, see FENCE_CHECK.
+     */
+    private List<byte[]> commonArgs(String conversationId, WriteScope scope, Instant now, int capacity) {
+        List<byte[]> args = new ArrayList<>(capacity + 5);
+        args.add(scope.fenced() ? number(scope.fence()) : new byte[0]);
+        args.add(number(ttlMinutes * 60_000));
+        args.add(conversationId.getBytes(StandardCharsets.UTF_8));
+        args.add(number(now.toEpochMilli()));
+        args.add(scope.tenantId() != null ? scope.tenantId().toString().getBytes(StandardCharsets.UTF_8) : new byte[0]);
+        return args;
+    }
+
+    private static void assertNotStale(Long result, String conversationId, WriteScope scope) {
+        if (result != null && result == -2) {
+            log.warn("[RedisChatMemoryRepository] [saveAll] conversationId={} fence={} memoryWrite=rejected",
+                    conversationId, scope.fence());
+            throw new StaleThreadLockException(conversationId, scope.fence());
+        }
+    }
+
+    /**
+     * Conversations of the current tenant (all indexed conversations outside a tenant context),
+     * most recently active first.
+     */
     @Override
     public List<String> findConversationIds() {
-        log.info("[RedisChatMemoryRepository] [findConversationIds] Retrieving all conversation IDs from Redis with prefix '{}'", keyPrefix);
-        Set<String> keys = chatMemoryRedisTemplate.keys(keyPrefix + "*");
-        if (keys == null || keys.isEmpty()) return Collections.emptyList();
-        return keys.stream()
-                   .map(k -> k.substring(keyPrefix.length()))
-                   .collect(Collectors.toList());
+        UUID tenantId = TenantContext.getTenantId();
+        log.info("[RedisChatMemoryRepository] [findConversationIds] Retrieving indexed conversation IDs for tenantId={}", tenantId);
+        Set<String> ids = stringRedisTemplate.opsForZSet()
+                .reverseRange(tenantId != null ? tenantIndexKey(tenantId) : globalIndexKey(), 0, -1);
+        return ids == null ? Collections.emptyList() : new ArrayList<>(ids);
+    }
+
+    /**
+     * One page of a tenant's conversations, most recently active first.
+     */
+    public List<String> findConversationIds(UUID tenantId, long offset, int limit) {
+        Set<String> ids = stringRedisTemplate.opsForZSet()
+                .reverseRange(tenantIndexKey(tenantId), offset, offset + limit - 1);
+        return ids == null ? Collections.emptyList() : new ArrayList<>(ids);
+    }
+
+    /**
+     * Up to limit conversations, across tenants, with no activity since the cutoff; oldest first.
+     * Meant for eviction and export jobs.
+     */
+    public List<String> findConversationIdsIdleSince(Instant cutoff, int limit) {
+        Set<String> ids = stringRedisTemplate.opsForZSet()
+                .rangeByScore(globalIndexKey(), Double.NEGATIVE_INFINITY, cutoff.toEpochMilli(), 0, limit);
+        return ids == null ? Collections.emptyList() : new ArrayList<>(ids);
+    }
+
+    /**
+     * Walks every conversation key with SCAN, handing ids to the consumer in batches of up to batchSize.
+     * Does not block Redis; keys created or deleted during the walk may or may not be seen.
+     */
+    public void scanConversationIds(int batchSize, Consumer<List<String>> consumer) {
+        ScanOptions options = ScanOptions.scanOptions().match(keyPrefix + "*").count(batchSize).build();
+        List<String> batch = new ArrayList<>(batchSize);
+        try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next().substring(keyPrefix.length()));
+                if (batch.size() >= batchSize) {
+                    consumer.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            consumer.accept(batch);
+        }
     }
 
     @Override
@@ -71,30 +312,123 @@ public class RedisChatMemoryRepository implements ChatMemoryRepository {
 
     @Override
     public void saveAll(String conversationId, List<Message> messages) {
-    
-      
-            log.info("[RedisChatMemoryRepository] [saveAll] Saving {} messages to conversationId {}", 
-                         messages == null ? 0 : messages.size(), conversationId);
-        
         String k = key(conversationId);
-        // Replace: delete old and push new (the interface semantics say "replaces all existing messages")
-        chatMemoryRedisTemplate.delete(k);
         if (messages == null || messages.isEmpty()) {
+            chatMemoryRedisTemplate.delete(k);
             return;
         }
-        List<StoredMessage> toStore = messages.stream().map(m -> {
-            String type = m.getMessageType().name();
-            String text = m.getText();
-            Map<String, Object> metadata = m.getMetadata() != null ? m.getMetadata() : Map.of();
-            Instant ts = Instant.now();
-            return new StoredMessage(MessageType.valueOf(type), text, metadata, ts);
-        }).collect(Collectors.toList());
+        List<StoredMessage> stored = chatMemoryRedisTemplate.opsForList().range(k, 0, -1);
+        if (stored == null) stored = List.of();
+        WriteScope scope = currentScope();
+
+        int overlap = overlap(stored, messages);
+        if (overlap > 0 || stored.isEmpty()) {
+            List<Message> appended = messages.subList(overlap, messages.size());
+            Instant now = Instant.now();
+            List<byte[]> args = commonArgs(conversationId, scope, now, appended.size() + 2);
+            args.add(number(stored.size()));
+            args.add(number(messages.size()));
+            appended.forEach(m -> args.add(serialize(m, now)));
 
-        chatMemoryRedisTemplate.opsForList().rightPushAll(k, toStore);
+            Long length = chatMemoryRedisTemplate.execute(APPEND_SCRIPT, RedisSerializer.byteArray(), RESULT_SERIALIZER,
+                    writeKeys(conversationId, scope), args.toArray());
+            assertNotStale(length, conversationId, scope);
+            if (length != null && length >= 0) {
+                appendBytes.record(payloadBytes(args));
+                log.info("[RedisChatMemoryRepository] [saveAll] conversationId={} appended={} kept={}",
+                        conversationId, appended.size(), overlap);
+                return;
+            }
+            log.warn("[RedisChatMemoryRepository] [saveAll] conversationId={} changed concurrently, replacing", conversationId);
+        }
+        replace(conversationId, stored, messages, scope);
     }
 
+    /**
+     * Writes the whole window. Messages that were already stored keep their original timestamps.
+     */
+    private void replace(String conversationId, List<StoredMessage> stored, List<Message> messages, WriteScope scope) {
+        Map<String, Deque<Instant>> timestamps = new HashMap<>();
+        for (StoredMessage s : stored) {
+            timestamps.computeIfAbsent(identity(s.getMessageType(), s.getText()), x -> new ArrayDeque<>())
+                    .add(s.getTimestamp() != null ? s.getTimestamp() : Instant.now());
+        }
+        Instant now = Instant.now();
+        List<byte[]> args = commonArgs(conversationId, scope, now, messages.size());
+        for (Message m : messages) {
+            Deque<Instant> known = timestamps.get(identity(m.getMessageType(), m.getText()));
+            args.add(serialize(m, known != null && !known.isEmpty() ? known.poll() : now));
+        }
+        Long length = chatMemoryRedisTemplate.execute(REPLACE_SCRIPT, RedisSerializer.byteArray(), RESULT_SERIALIZER,
+                writeKeys(conversationId, scope), args.toArray());
+        assertNotStale(length, conversationId, scope);
+        replaceBytes.record(payloadBytes(args));
+        log.info("[RedisChatMemoryRepository] [saveAll] conversationId={} replaced={}", conversationId, messages.size());
+    }
+
+    /**
+     * Largest n such that the last n stored messages equal the first n messages of the new window.
+     */
+    private static int overlap(List<StoredMessage> stored, List<Message> messages) {
+        for (int n = Math.min(stored.size(), messages.size()); n > 0; n--) {
+            int offset = stored.size() - n;
+            boolean matches = true;
+            for (int i = 0; i < n && matches; i++) {
+                StoredMessage s = stored.get(offset + i);
+                Message m = messages.get(i);
+                matches = s.getMessageType() == m.getMessageType() && Objects.equals(s.getText(), m.getText());
+            }
+            if (matches) return n;
+        }
+        return 0;
+    }
+
+    private byte[] serialize(Message m, Instant timestamp) {
+        Map<String, Object> metadata = m.getMetadata() != null ? m.getMetadata() : Map.of();
+        return messageSerializer.serialize(new StoredMessage(m.getMessageType(), m.getText(), metadata, timestamp));
+    }
+
+    private static String identity(MessageType type, String text) {
+        return type + ":" + text;
+    }
+
+    private static byte[] number(long value) {
+        return Long.toString(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long payloadBytes(List<byte[]> args) {
+        return args.stream().mapToLong(a -> a.length).sum();
+    }
+
+    private static DistributionSummary bytesWritten(MeterRegistry meterRegistry, String mode) {
+        return DistributionSummary.builder("cognitia.chat.memory.bytes-written")
+                .description("Bytes sent to Redis per chat memory save")
+                .baseUnit("bytes")
+                .tag("mode", mode)
+                .register(meterRegistry);
+    }
+
+    private record WriteScope(UUID tenantId, String fenceKey, Long fence) {
+
+        boolean fenced() {
+            return fenceKey != null;
+        }
+    }
+
+    /**
+     * Deletes the conversation's memory and removes it from the index sets. The tenant set is found
+     * through the tag written with the list, falling back to TenantContext for untagged conversations.
+     */
     @Override
     public void deleteByConversationId(String conversationId) {
+        String tagKey = tenantTagKey(conversationId);
+        String taggedTenant = stringRedisTemplate.opsForValue().get(tagKey);
         chatMemoryRedisTemplate.delete(key(conversationId));
+        stringRedisTemplate.delete(tagKey);
+        stringRedisTemplate.opsForZSet().remove(globalIndexKey(), conversationId);
+        UUID tenantId = taggedTenant != null ? UUID.fromString(taggedTenant) : TenantContext.getTenantId();
+        if (tenantId != null) {
+            stringRedisTemplate.opsForZSet().remove(tenantIndexKey(tenantId), conversationId);
+        }
     }
 }
@@ -1,68 +1,133 @@
 package com.intellidesk.cognitia.chat.service;
 
-import java.util.HashSet;
-import java.util.Optional;
-import java.util.Set;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import com.intellidesk.cognitia.chat.models.dtos.AccessPolicy;
-import com.intellidesk.cognitia.userandauth.models.entities.ClassificationLevel;
-import com.intellidesk.cognitia.userandauth.models.entities.Department;
-import com.intellidesk.cognitia.userandauth.models.entities.Role;
-import com.intellidesk.cognitia.userandauth.models.entities.User;
-import com.intellidesk.cognitia.userandauth.models.entities.enums.RoleEnum;
-import com.intellidesk.cognitia.userandauth.repository.ClassificationLevelRepository;
-import com.intellidesk.cognitia.userandauth.repository.UserRepository;
+import com.intellidesk.cognitia.userandauth.multiteancy.TenantContext;
+import com.intellidesk.cognitia.userandauth.services.AccessPolicyVersionService;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Resolves a user's AccessPolicy through a two-level cache: an in-process near cache backed by Redis.
+ * Every entry is stamped with the tenant's policy version from {@link AccessPolicyVersionService}.
+ * Each resolve reads the current version (one MGET together with the Redis entry), so a permissions
+ * change is never served stale beyond the request already in flight.
+ */
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class AccessPolicyResolver {
 
-    private final ClassificationLevelRepository classificationLevelRepository;
-    private final UserRepository userRepository;
+    private static final String POLICY_KEY_FMT = "cognitia:access-policy:%s:%s";
 
-    @Transactional(readOnly = true)
-    public AccessPolicy resolve(UUID userId) {
-        User user = userRepository.findByIdWithAccessData(userId)
-                .orElseThrow(() -> new RuntimeException("User not found: " + userId));
+    private final AccessPolicyLoader loader;
+    private final AccessPolicyVersionService versionService;
+    private final StringRedisTemplate redisTemplate;
+    private final Duration redisTtl;
+    private final long nearTtlMillis;
+    private final int nearMaxEntries;
+    private final Map<UUID, NearEntry> nearCache = new ConcurrentHashMap<>();
+    private final Counter nearHits;
+    private final Counter redisHits;
+    private final Counter misses;
 
-        Role role = user.getRole();
+    public AccessPolicyResolver(AccessPolicyLoader loader,
+                                AccessPolicyVersionService versionService,
+                                StringRedisTemplate redisTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${cognitia.access-policy.cache.redis-ttl-minutes:30}") long redisTtlMinutes,
+                                @Value("${cognitia.access-policy.cache.near-ttl-seconds:300}") long nearTtlSeconds,
+                                @Value("${cognitia.access-policy.cache.near-max-entries:10000}") int nearMaxEntries) {
+        this.loader = loader;
+        this.versionService = versionService;
+        this.redisTemplate = redisTemplate;
+        this.redisTtl = Duration.ofMinutes(redisTtlMinutes);
+        this.nearTtlMillis = Duration.ofSeconds(nearTtlSeconds).toMillis();
+        this.nearMaxEntries = nearMaxEntries;
+        this.nearHits = cacheCounter(meterRegistry, "near");
+        this.redisHits = cacheCounter(meterRegistry, "redis");
+        this.misses = cacheCounter(meterRegistry, "miss");
+    }
 
-        boolean isSuperAdmin = role != null
-                && RoleEnum.SUPER_ADMIN.name().equals(role.getRoleName());
+    public AccessPolicy resolve(UUID userId) {
+        UUID tenantId = TenantContext.getTenantId();
+        if (tenantId == null) {
+            return loader.load(userId);
+        }
+
+        String policyKey = String.format(POLICY_KEY_FMT, tenantId, userId);
+        List<String> cached;
+        try {
+            cached = redisTemplate.opsForValue().multiGet(List.of(versionService.versionKey(tenantId), policyKey));
+        } catch (Exception e) {
+            log.warn("[AccessPolicyResolver] Cache unavailable, loading from DB for user {}: {}", userId, e.getMessage());
+            misses.increment();
+            return loader.load(userId);
+        }
+        long version;
+        try {
+            version = cached != null && cached.get(0) != null
+                    ? Long.parseLong(cached.get(0)) : versionService.currentVersion(tenantId);
+        } catch (Exception e) {
+            log.warn("[AccessPolicyResolver] Version unavailable, loading from DB for user {}: {}", userId, e.getMessage());
+            misses.increment();
+            return loader.load(userId);
+        }
 
-        int clearanceRank = (role != null && role.getClearanceLevel() != null
-                && role.getClearanceLevel().getRank() != null)
-                ? role.getClearanceLevel().getRank()
-                : 0;
+        NearEntry near = nearCache.get(userId);
+        if (near != null && near.tenantId().equals(tenantId) && near.version() == version
+                && System.currentTimeMillis() - near.cachedAtMillis() < nearTtlMillis) {
+            nearHits.increment();
+            return near.policy();
+        }
 
-        Optional<ClassificationLevel> maxLevel =
-                classificationLevelRepository.findFirstByTenantIdOrderByRankDesc(user.getTenantId());
-        boolean hasMaxClearance = maxLevel.isPresent() && clearanceRank >= maxLevel.get().getRank();
+        String remote = cached != null ? cached.get(1) : null;
+        if (remote != null) {
+            int sep = remote.indexOf('|');
+            if (sep > 0 && Long.parseLong(remote.substring(0, sep)) == version) {
+                AccessPolicy policy = AccessPolicy.deserialize(remote.substring(sep + 1));
+                putNear(userId, tenantId, version, policy);
+                redisHits.increment();
+                return policy;
+            }
+        }
 
-        boolean unrestricted = isSuperAdmin || hasMaxClearance;
+        misses.increment();
+        AccessPolicy policy = loader.load(userId);
+        try {
+            redisTemplate.opsForValue().set(policyKey, version + "|" + policy.serialize(), redisTtl);
+        } catch (Exception e) {
+            log.warn("[AccessPolicyResolver] Failed to cache policy for user {}: {}", userId, e.getMessage());
+        }
+        putNear(userId, tenantId, version, policy);
+        log.debug("[AccessPolicyResolver] Loaded policy userId={} tenantId={} version={}", userId, tenantId, version);
+        return policy;
+    }
 
-        Set<String> departmentNames = new HashSet<>();
-        departmentNames.add("General");
-        if (user.getDepartments() != null) {
-            departmentNames.addAll(
-                user.getDepartments().stream()
-                    .map(Department::getName)
-                    .collect(Collectors.toSet())
-            );
+    private void putNear(UUID userId, UUID tenantId, long version, AccessPolicy policy) {
+        if (nearCache.size() >= nearMaxEntries) {
+            nearCache.clear();
         }
+        nearCache.put(userId, new NearEntry(tenantId, version, policy, System.currentTimeMillis()));
+    }
+
+    private static Counter cacheCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("cognitia.access-policy.cache")
+                .description("AccessPolicy resolutions by cache level")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
 
-        return new AccessPolicy(
-            user.getTenantId(),
-            departmentNames,
-            clearanceRank,
-            unrestricted
-        );
+    private record NearEntry(UUID tenantId, long version, AccessPolicy policy, long cachedAtMillis) {
     }
 }
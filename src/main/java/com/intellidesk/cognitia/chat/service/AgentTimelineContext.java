@@ -23,7 +23,10 @@ public class AgentTimelineContext {
         this.objectMapper.registerModule(new JavaTimeModule());
     }
 
-    public void emitStep(AgentStep step) {
+    /**
+     * Synchronized: tool calls of one turn may run concurrently and the sink needs serialized emissions.
+     */
+    public synchronized void emitStep(AgentStep step) {
         try {
             String json = objectMapper.writeValueAsString(step);
             Sinks.EmitResult result = sink.tryEmitNext(
@@ -50,7 +53,7 @@ public class AgentTimelineContext {
         return sink.currentSubscriberCount() == 0;
     }
 
-    public void complete() {
+    public synchronized void complete() {
         sink.tryEmitComplete();
     }
 }
@@ -1,13 +1,18 @@
 package com.intellidesk.cognitia.chat.service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,27 +20,62 @@ import com.intellidesk.cognitia.chat.models.entities.ChatMessage;
 import com.intellidesk.cognitia.chat.models.entities.StoredMessage;
 import com.intellidesk.cognitia.chat.repository.ChatMessageRepository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Hydrates Redis-backed ChatMemory with last N messages from DB if needed.
+ *
+ * The warm path is a single LLEN. A cold conversation is loaded from the DB and written by one script
+ * that re-checks the length, replaces the list and sets its TTL, so concurrent hydrations of the same
+ * conversation cannot interleave or duplicate history: whichever runs second sees the list and skips.
  */
 @Service
 @Slf4j
 public class ChatMemoryHydrator {
 
+    /**
+     * Replaces the list with ARGV[3..] and sets a TTL of ARGV[2] ms, unless it already holds at least
+     * ARGV[1] entries. Returns the number of entries written, or 0 if skipped.
+     */
+    private static final RedisScript<Long> HYDRATE_SCRIPT = RedisScript.of(
+        """
+        if redis.call('llen', KEYS[1]) >= tonumber(ARGV[1]) then
+            return 0
+        end
+        redis.call('del', KEYS[1])
+        for i = 3, #ARGV do
+            redis.call('rpush', KEYS[1], ARGV[i])
+        end
+        redis.call('pexpire', KEYS[1], ARGV[2])
+        return #ARGV - 2
+        """
+        , Long.class);
+
+    private static final RedisSerializer<Long> RESULT_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
     private final RedisTemplate<String, StoredMessage> redisTemplate;
+    private final RedisSerializer<StoredMessage> messageSerializer;
     private final ChatMessageRepository messageRepo;
+    private final MeterRegistry meterRegistry;
     private final int maxTurns;
+    private final Duration ttl;
     private final String memoryKeyPrefix; // must match ChatMemoryStore prefix
 
+    @SuppressWarnings("unchecked")
     public ChatMemoryHydrator(RedisTemplate<String, StoredMessage> redisTemplate,
                               ChatMessageRepository messageRepo,
+                              MeterRegistry meterRegistry,
                               @Value("${cognitia.chat.memory.maxTurns:50}") int maxTurns,
+                              @Value("${cognitia.chat.memory.ttl-minutes:60}") long ttlMinutes,
                               @Value("${cognitia.chat.memory.prefix:cognitia:chat:memory:}") String memoryKeyPrefix) {
         this.redisTemplate = redisTemplate;
+        this.messageSerializer = (RedisSerializer<StoredMessage>) redisTemplate.getValueSerializer();
         this.messageRepo = messageRepo;
+        this.meterRegistry = meterRegistry;
         this.maxTurns = maxTurns;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
         this.memoryKeyPrefix = memoryKeyPrefix;
     }
 
@@ -44,36 +84,52 @@ public class ChatMemoryHydrator {
      */
     @Transactional(readOnly = true)
     public void hydrateIfEmpty(String conversationId) {
+        long start = System.nanoTime();
+        String result = "error";
         try {
             String key = memoryKeyPrefix + conversationId;
+            int minEntries = Math.min(maxTurns, 3);
 
-        Boolean exists = redisTemplate.hasKey(key);
-        if (Boolean.TRUE.equals(exists)) {
             Long size = redisTemplate.opsForList().size(key);
-            if (size != null && size >= Math.min(maxTurns, 3)) {
+            if (size != null && size >= minEntries) {
+                result = "warm";
                 return;
             }
-        }
 
-        List<ChatMessage> last = messageRepo.findTopNByThreadIdOrderByCreatedAtDesc(UUID.fromString(conversationId), maxTurns)
-                .stream()
-                .sorted(Comparator.comparing(ChatMessage::getCreatedAt))
-                .collect(Collectors.toList());
+            List<ChatMessage> last = messageRepo.findTopNByThreadIdOrderByCreatedAtDesc(UUID.fromString(conversationId), maxTurns)
+                    .stream()
+                    .sorted(Comparator.comparing(ChatMessage::getCreatedAt))
+                    .toList();
 
-        if (last.isEmpty()) return;
-
-        for (ChatMessage m : last) {
-            StoredMessage storedMessage = new StoredMessage();
-            storedMessage.setMessageType(m.getSender());
-            storedMessage.setText(m.getContent());
-            storedMessage.setTimestamp(m.getCreatedAt().toInstant());
+            if (last.isEmpty()) {
+                result = "empty";
+                return;
+            }
 
-            redisTemplate.opsForList().rightPush(key, storedMessage);
-        }
+            List<byte[]> args = new ArrayList<>(last.size() + 2);
+            // A conversation shorter than minEntries is complete once it holds all of its DB rows
+            args.add(Long.toString(Math.min(minEntries, last.size())).getBytes(StandardCharsets.UTF_8));
+            args.add(Long.toString(ttl.toMillis()).getBytes(StandardCharsets.UTF_8));
+            for (ChatMessage m : last) {
+                StoredMessage storedMessage = new StoredMessage();
+                storedMessage.setMessageType(m.getSender());
+                storedMessage.setText(m.getContent());
+                storedMessage.setTimestamp(m.getCreatedAt().toInstant());
+                args.add(messageSerializer.serialize(storedMessage));
+            }
 
-            redisTemplate.expire(key, Duration.ofHours(1));
+            Long written = redisTemplate.execute(HYDRATE_SCRIPT, RedisSerializer.byteArray(), RESULT_SERIALIZER,
+                    List.of(key), args.toArray());
+            result = written != null && written > 0 ? "hydrated" : "raced";
+            log.info("[ChatMemoryHydrator] conversationId={} result={} messages={}", conversationId, result, last.size());
         } catch (Exception e) {
             log.error("[ChatMemoryHydrator] Failed to hydrate memory for {}: {}", conversationId, e.getMessage(), e);
+        } finally {
+            Timer.builder("cognitia.chat.memory.hydration")
+                    .description("Chat memory hydration latency; result=hydrated means the window was rebuilt from the DB")
+                    .tag("result", result)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
     }
 }
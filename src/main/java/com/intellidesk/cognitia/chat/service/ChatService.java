@@ -3,7 +3,9 @@ package com.intellidesk.cognitia.chat.service;
 import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -13,7 +15,6 @@ import java.util.stream.Collectors;
 
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.memory.ChatMemory;
-import org.springframework.ai.chat.messages.MessageType;
 import org.springframework.ai.tool.ToolCallback;
 import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -26,10 +27,9 @@ import com.intellidesk.cognitia.chat.models.dtos.ChatMessageDTO;
 import com.intellidesk.cognitia.chat.models.dtos.ChatThreadDTO;
 import com.intellidesk.cognitia.chat.models.dtos.CustomChatResponse;
 import com.intellidesk.cognitia.chat.models.dtos.UserMessageDTO;
-import com.intellidesk.cognitia.chat.models.entities.ChatMessage;
 import com.intellidesk.cognitia.chat.models.entities.ChatThread;
-import com.intellidesk.cognitia.chat.repository.ChatMessageRepository;
 import com.intellidesk.cognitia.chat.repository.ChatThreadRepository;
+import com.intellidesk.cognitia.chat.service.ThreadLockService.QueuedAcquire;
 import com.intellidesk.cognitia.chat.service.ThreadLockService.ThreadLockStatus;
 import com.intellidesk.cognitia.chat.service.tools.TimelineToolCallbackProvider;
 import com.intellidesk.cognitia.chat.service.tools.ToolRegistryService;
@@ -41,17 +41,23 @@ import com.intellidesk.cognitia.utils.exceptionHandling.LlmResponseParseExceptio
 import com.intellidesk.cognitia.utils.exceptionHandling.LlmUnavailableException;
 import com.intellidesk.cognitia.utils.exceptionHandling.ThreadBusyException;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
 
 @Service
 @Slf4j
 public class ChatService {
 
+    private static final String SETUP_STEP_METRIC = "cognitia.chat.setup.step";
+
     private final ChatClient chatClient;
     private final ChatThreadRepository threadRepository;
-    private final ChatMessageRepository messageRepository;
+    private final ChatTurnPersistenceService turnPersistence;
     private final ChatMemoryHydrator chatMemoryHydrator;
     private final ThreadLockService threadLockService;
     private final ThreadTitleGenerationService titleGenerationService;
@@ -59,11 +65,15 @@ public class ChatService {
     private final ToolRegistryService toolRegistryService;
     private final AccessPolicyResolver accessPolicyResolver;
     private final SystemPromptBuilder systemPromptBuilder;
+    private final MeterRegistry meterRegistry;
     private final long streamTimeoutSeconds;
+    private final boolean threadQueueEnabled;
+    private final Duration threadQueuePollInterval;
+    private final Duration threadQueueMaxWait;
 
     public ChatService(ChatClient chatClient,
                        ChatThreadRepository threadRepository,
-                       ChatMessageRepository messageRepository,
+                       ChatTurnPersistenceService turnPersistence,
                        ChatMemoryHydrator chatMemoryHydrator,
                        ThreadLockService threadLockService,
                        ThreadTitleGenerationService titleGenerationService,
@@ -71,10 +81,14 @@ public class ChatService {
                        ToolRegistryService toolRegistryService,
                        AccessPolicyResolver accessPolicyResolver,
                        SystemPromptBuilder systemPromptBuilder,
-                       @org.springframework.beans.factory.annotation.Value("${cognitia.chat.stream.timeout-seconds:180}") long streamTimeoutSeconds) {
+                       MeterRegistry meterRegistry,
+                       @org.springframework.beans.factory.annotation.Value("${cognitia.chat.stream.timeout-seconds:180}") long streamTimeoutSeconds,
+                       @org.springframework.beans.factory.annotation.Value("${cognitia.chat.thread-queue.enabled:true}") boolean threadQueueEnabled,
+                       @org.springframework.beans.factory.annotation.Value("${cognitia.chat.thread-queue.poll-interval-ms:250}") long threadQueuePollIntervalMs,
+                       @org.springframework.beans.factory.annotation.Value("${cognitia.chat.thread-queue.max-wait-seconds:300}") long threadQueueMaxWaitSeconds) {
         this.chatClient = chatClient;
         this.threadRepository = threadRepository;
-        this.messageRepository = messageRepository;
+        this.turnPersistence = turnPersistence;
         this.chatMemoryHydrator = chatMemoryHydrator;
         this.threadLockService = threadLockService;
         this.titleGenerationService = titleGenerationService;
@@ -82,7 +96,11 @@ public class ChatService {
         this.toolRegistryService = toolRegistryService;
         this.accessPolicyResolver = accessPolicyResolver;
         this.systemPromptBuilder = systemPromptBuilder;
+        this.meterRegistry = meterRegistry;
         this.streamTimeoutSeconds = streamTimeoutSeconds;
+        this.threadQueueEnabled = threadQueueEnabled;
+        this.threadQueuePollInterval = Duration.ofMillis(threadQueuePollIntervalMs);
+        this.threadQueueMaxWait = Duration.ofSeconds(threadQueueMaxWaitSeconds);
     }
 
     @Transactional
@@ -147,7 +165,11 @@ public class ChatService {
         return threadLockService.getStatus(UUID.fromString(threadId));
     }
 
-    @Transactional
+    /**
+     * Runs a blocking chat turn. Deliberately not {@code @Transactional}: the DB writes before and
+     * after the model call commit in their own short transactions so no connection is held while
+     * the LLM and its tools run.
+     */
     public CustomChatResponse processUserMessage(UserMessageDTO message) {
 
         final UUID threadId = UUID.fromString(message.getThreadId());
@@ -158,33 +180,21 @@ public class ChatService {
             throw new ThreadBusyException(message.getThreadId(), status.queuePosition());
         }
 
+        AtomicLong dbHoldNanos = new AtomicLong();
+        String requestId = message.getRequestId();
+        long fence = ThreadLockService.fencingToken(lockToken);
+        threadLockService.keepAlive(threadId, lockToken);
         try {
-            String requestId = message.getRequestId();
             UUID currentUserId = getCurrentUserId();
             final String resolvedUserId = currentUserId.toString();
-            ChatThread thread = threadRepository.findByIdAndUserId(threadId, currentUserId)
-                    .orElseThrow(() -> new RuntimeException("Thread not found"));
-
             String userMessage = message.getMessage();
-
-            ChatMessage userMsg = ChatMessage.builder()
-                    .thread(thread)
-                    .sender(MessageType.USER)
-                    .content(userMessage)
-                    .build();
-            messageRepository.save(userMsg);
-
-            thread.addMessage(userMsg);
-
-            chatMemoryHydrator.hydrateIfEmpty(thread.getId().toString());
-
             List<String> selectedTools = message.getTools();
 
-            ToolCallback[] requestTools = (selectedTools != null && !selectedTools.isEmpty())
-                ? timelineToolCallbackProvider.createAugmentedToolCallbacks(null, selectedTools)
-                : timelineToolCallbackProvider.createAugmentedToolCallbacks(null);
-
-            AccessPolicy accessPolicy = resolveCurrentAccessPolicy();
+            TurnSetup setup = prepareTurn("call", threadId, currentUserId, TenantContext.getTenantId(), userMessage,
+                    fence, null, selectedTools, dbHoldNanos).block();
+            String tenantIdStr = setup.tenantId().toString();
+            ToolCallback[] requestTools = setup.tools();
+            AccessPolicy accessPolicy = setup.accessPolicy();
 
             String systemPrompt = systemPromptBuilder.build(accessPolicy, false);
 
@@ -204,15 +214,16 @@ public class ChatService {
                     a.param(ChatMemory.CONVERSATION_ID, threadId.toString());
                     a.param(Constants.PARAM_REQUEST_ID, requestId != null ? requestId : UUID.randomUUID().toString());
                     a.param(Constants.PARAM_USER_ID, resolvedUserId != null ? resolvedUserId : "");
-                    a.param(Constants.PARAM_TENANT_ID, TenantContext.getTenantId().toString());
+                    a.param(Constants.PARAM_TENANT_ID, tenantIdStr);
+                    a.param(Constants.PARAM_LOCK_FENCE, fence);
                 })
                 .system(systemPrompt)
                 .user(userMessage)
                 .toolCallbacks(requestTools)
                 .toolContext(Map.of(
-                        "tenantId", TenantContext.getTenantId().toString(),
+                        "tenantId", tenantIdStr,
                         "conversationId", threadId.toString(),
-                        "accessPolicy", accessPolicy.serialize()))
+                        "accessPolicy", accessPolicy))
                 .call()
                 .entity(CustomChatResponse.class);
         } catch (org.springframework.web.client.HttpClientErrorException
@@ -225,19 +236,12 @@ public class ChatService {
         }
 
             String answer = customChatResponse != null ? customChatResponse.getAnswer() : "";
-            ChatMessage aiMsg = ChatMessage.builder()
-                    .thread(thread)
-                    .sender(MessageType.ASSISTANT)
-                    .content(answer != null ? answer : "")
-                    .build();
-            messageRepository.save(aiMsg);
-
-            thread.addMessage(aiMsg);
-            threadRepository.save(thread);
+            turnPersistence.timed(dbHoldNanos, () -> turnPersistence.recordAssistantMessage(threadId, answer, fence));
 
             return customChatResponse;
         } finally {
             threadLockService.release(threadId, lockToken);
+            turnPersistence.reportConnectionHold("call", threadId, requestId, dbHoldNanos);
         }
     }
 
@@ -251,7 +255,7 @@ public class ChatService {
         return chatThread;
     }
 
-    UUID getCurrentUserId() {
+    public UUID getCurrentUserId() {
         return getCurrentUser().getId();
     }
 
@@ -268,73 +272,187 @@ public class ChatService {
         throw new RuntimeException("User not authenticated");
     }
 
-    private AccessPolicy resolveCurrentAccessPolicy() {
-        return accessPolicyResolver.resolve(getCurrentUserId());
-    }
-
     /**
-     * Context holder for streaming chat data
+     * Context holder for streaming chat data. Everything downstream of the setup join reads the
+     * tenant from here: those stages run on scheduler threads without a TenantContext.
      */
     private record StreamContext(
+            UUID tenantId,
             ChatThread thread,
             String userMessage,
             String requestId,
             String userId,
             UUID threadId,
             String lockToken,
-            List<String> selectedTools) {
+            List<String> selectedTools,
+            AccessPolicy accessPolicy,
+            ToolCallback[] requestTools) {
     }
 
-    @Transactional
+    /**
+     * Result of the pre-LLM setup stage, carrying the tenant it ran for
+     */
+    private record TurnSetup(UUID tenantId, ChatThread thread, AccessPolicy accessPolicy, ToolCallback[] tools) {
+    }
+
+    /**
+     * Runs the pre-LLM setup steps concurrently on boundedElastic and joins them:
+     * the user message write followed by memory hydration (kept in order so hydration sees the
+     * stored message, as before), the access policy lookup, and tool callback construction.
+     * Each step is timed under cognitia.chat.setup.step; the join is tagged step=total.
+     * The tenant is bound only inside each step; callers continue from {@link TurnSetup#tenantId()}.
+     */
+    private Mono<TurnSetup> prepareTurn(String mode, UUID threadId, UUID userId, UUID tenantId, String userMessage,
+                                        long fence, AgentTimelineContext timeline, List<String> selectedTools,
+                                        AtomicLong dbHoldNanos) {
+        Mono<ChatThread> persisted = setupStep(mode, "persist", threadId, tenantId,
+                () -> turnPersistence.timed(dbHoldNanos,
+                        () -> turnPersistence.recordUserMessage(threadId, userId, userMessage, fence)))
+                .flatMap(thread -> setupStep(mode, "hydrate", threadId, tenantId, () -> {
+                    chatMemoryHydrator.hydrateIfEmpty(threadId.toString());
+                    return thread;
+                }));
+
+        Mono<AccessPolicy> accessPolicy = setupStep(mode, "access-policy", threadId, tenantId,
+                () -> accessPolicyResolver.resolve(userId));
+
+        Mono<ToolCallback[]> tools = setupStep(mode, "tools", threadId, tenantId,
+                () -> (selectedTools != null && !selectedTools.isEmpty())
+                        ? timelineToolCallbackProvider.createAugmentedToolCallbacks(timeline, selectedTools)
+                        : timelineToolCallbackProvider.createAugmentedToolCallbacks(timeline));
+
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return Mono.zip(persisted, accessPolicy, tools)
+                    .map(t -> new TurnSetup(tenantId, t.getT1(), t.getT2(), t.getT3()))
+                    .doOnSuccess(setup -> recordSetupStep(mode, "total", threadId, System.nanoTime() - start));
+        });
+    }
+
+    /**
+     * One setup step on boundedElastic, with the caller's tenant bound for its duration.
+     */
+    private <T> Mono<T> setupStep(String mode, String step, UUID threadId, UUID tenantId, Callable<T> work) {
+        return Mono.fromCallable(() -> {
+            long start = System.nanoTime();
+            TenantContext.setTenantId(tenantId);
+            try {
+                return work.call();
+            } finally {
+                TenantContext.clear();
+                recordSetupStep(mode, step, threadId, System.nanoTime() - start);
+            }
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private void recordSetupStep(String mode, String step, UUID threadId, long nanos) {
+        Timer.builder(SETUP_STEP_METRIC)
+                .description("Duration of a pre-LLM chat setup step")
+                .tag("mode", mode)
+                .tag("step", step)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        log.info("[ChatService] setup threadId={} mode={} step={} ms={}",
+                threadId, mode, step, TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    /**
+     * Streams a chat turn. Like {@link #processUserMessage}, DB work happens in short transactions
+     * before the first token and after the last one; nothing is held open across the Flux.
+     */
     public Flux<ServerSentEvent<String>> streamUserMessage(UserMessageDTO message) {
         final UUID threadId = UUID.fromString(message.getThreadId());
+        // Captured up front: a queued request resumes on a scheduler thread without these ThreadLocals
+        final UUID currentUserId = getCurrentUserId();
+        final UUID tenantId = TenantContext.getTenantId();
+
+        return awaitThreadTurn(threadId, message.getThreadId())
+                .concatMap(turn -> turn.acquired()
+                        ? streamWithLock(message, threadId, turn.lockToken(), currentUserId, tenantId)
+                        : Flux.just(queuePositionEvent(message.getThreadId(), turn.position())));
+    }
+
+    /**
+     * Emits the lock once this request may run. If the thread is busy and queueing is enabled, the
+     * request joins the thread's Redis FIFO and emits its position whenever it changes until it
+     * reaches the head. Any node holding a waiting request can take its turn, so ordering holds
+     * across instances. With queueing disabled a busy thread fails fast with ThreadBusyException.
+     */
+    private Flux<QueuedAcquire> awaitThreadTurn(UUID threadId, String threadIdStr) {
+        return Mono.fromCallable(() -> Optional.ofNullable(threadLockService.tryAcquire(threadId)))
+                .flatMapMany(token -> {
+                    if (token.isPresent()) {
+                        log.info("[ChatService] Lock acquired for thread {}, starting stream", threadId);
+                        return Flux.just(new QueuedAcquire(token.get(), 0));
+                    }
+                    if (!threadQueueEnabled) {
+                        ThreadLockStatus status = threadLockService.getStatus(threadId);
+                        return Flux.error(new ThreadBusyException(threadIdStr, status.queuePosition()));
+                    }
+                    return waitInThreadQueue(threadId, threadIdStr);
+                });
+    }
+
+    private Flux<QueuedAcquire> waitInThreadQueue(UUID threadId, String threadIdStr) {
+        String ticket = UUID.randomUUID().toString();
+        long initialPosition = threadLockService.enqueue(threadId, ticket);
+        AtomicLong lastPosition = new AtomicLong(initialPosition);
+        long deadline = System.nanoTime() + threadQueueMaxWait.toNanos();
+
+        return Flux.interval(threadQueuePollInterval, Schedulers.boundedElastic())
+                .onBackpressureDrop()
+                .map(tick -> {
+                    if (System.nanoTime() > deadline) {
+                        throw new ThreadBusyException(threadIdStr, lastPosition.get());
+                    }
+                    return threadLockService.tryAcquireQueued(threadId, ticket);
+                })
+                .filter(turn -> turn.acquired() || lastPosition.getAndSet(turn.position()) != turn.position())
+                .takeUntil(QueuedAcquire::acquired)
+                .startWith(new QueuedAcquire(null, initialPosition))
+                .doFinally(signal -> {
+                    // On completion the ticket was already popped by the acquire script
+                    if (signal != SignalType.ON_COMPLETE) {
+                        threadLockService.leaveQueue(threadId, ticket);
+                        log.info("[ChatService] Ticket {} left queue for thread {} ({})", ticket, threadId, signal);
+                    }
+                });
+    }
+
+    private ServerSentEvent<String> queuePositionEvent(String threadId, long position) {
+        String json = String.format("{\"type\":\"queued\",\"threadId\":\"%s\",\"queuePosition\":%d}",
+                threadId, position);
+        return ServerSentEvent.<String>builder(json).event("queue-position").build();
+    }
+
+    private Flux<ServerSentEvent<String>> streamWithLock(UserMessageDTO message, UUID threadId, String acquiredToken,
+                                                         UUID currentUserId, UUID tenantId) {
+        final AtomicLong dbHoldNanos = new AtomicLong();
+        final long fence = ThreadLockService.fencingToken(acquiredToken);
 
         return Flux.usingWhen(
             Mono.fromCallable(() -> {
-                String token = threadLockService.tryAcquire(threadId);
-                if (token == null) {
-                    ThreadLockStatus status = threadLockService.getStatus(threadId);
-                    throw new ThreadBusyException(message.getThreadId(), status.queuePosition());
-                }
-                log.info("[ChatService] Lock acquired for thread {}, starting stream", threadId);
-                return token;
+                // Renew the short lease for as long as the stream is alive
+                threadLockService.keepAlive(threadId, acquiredToken);
+                return acquiredToken;
             }),
-            lockToken -> Mono.fromCallable(() -> {
+            lockToken -> {
             String requestId = message.getRequestId();
-            UUID currentUserId = getCurrentUserId();
             String userId = currentUserId.toString();
-
-            ChatThread thread = threadRepository.findByIdAndUserId(threadId, currentUserId)
-                    .orElseThrow(() -> new RuntimeException("Thread not found"));
-
             String userMessage = message.getMessage();
-
-            ChatMessage userMsg = ChatMessage.builder()
-                    .thread(thread)
-                    .sender(MessageType.USER)
-                    .content(userMessage)
-                    .build();
-            messageRepository.save(userMsg);
-
-            thread.addMessage(userMsg);
-
-            chatMemoryHydrator.hydrateIfEmpty(thread.getId().toString());
-
             List<String> selectedTools = message.getTools();
-            return new StreamContext(thread, userMessage, requestId, userId, threadId, lockToken, selectedTools);
-        })
-                .flatMapMany(ctx -> {
-                    AgentTimelineContext timeline = new AgentTimelineContext();
+            AgentTimelineContext timeline = new AgentTimelineContext();
 
+            return prepareTurn("stream", threadId, currentUserId, tenantId, userMessage, fence,
+                    timeline, selectedTools, dbHoldNanos)
+                .map(setup -> new StreamContext(setup.tenantId(), setup.thread(), userMessage, requestId, userId,
+                        threadId, lockToken, selectedTools, setup.accessPolicy(), setup.tools()))
+                .flatMapMany(ctx -> {
                     timeline.emitStep(AgentStep.thinking("Analyzing your question..."));
                     // timeline.emitStep(AgentStep.retrieving("Searching knowledge base..."));
 
-                    AccessPolicy streamAccessPolicy = resolveCurrentAccessPolicy();
-
-                    List<String> selectedTools = ctx.selectedTools();
-                    ToolCallback[] requestTools = (selectedTools != null && !selectedTools.isEmpty())
-                        ? timelineToolCallbackProvider.createAugmentedToolCallbacks(timeline, selectedTools)
-                        : timelineToolCallbackProvider.createAugmentedToolCallbacks(timeline);
+                    AccessPolicy streamAccessPolicy = ctx.accessPolicy();
+                    ToolCallback[] requestTools = ctx.requestTools();
 
                     String systemPrompt = systemPromptBuilder.build(streamAccessPolicy, true);
 
@@ -361,14 +479,15 @@ public class ChatService {
                         }
                     });
 
-                    String tenantIdStr = TenantContext.getTenantId().toString();
+                    String tenantIdStr = ctx.tenantId().toString();
                     Flux<ServerSentEvent<String>> contentStream = chatClient.prompt()
                             .advisors(a -> {
                                 a.param(ChatMemory.CONVERSATION_ID, ctx.threadId().toString());
-                                a.param("requestId",
+                                a.param(Constants.PARAM_REQUEST_ID,
                                         ctx.requestId() != null ? ctx.requestId() : UUID.randomUUID().toString());
-                                a.param("userId", ctx.userId() != null ? ctx.userId() : "");
-                                a.param("tenantId", tenantIdStr);
+                                a.param(Constants.PARAM_USER_ID, ctx.userId() != null ? ctx.userId() : "");
+                                a.param(Constants.PARAM_TENANT_ID, tenantIdStr);
+                                a.param(Constants.PARAM_LOCK_FENCE, fence);
                             })
                             .system(finalSystemPrompt)
                             .user(ctx.userMessage())
@@ -376,7 +495,7 @@ public class ChatService {
                             .toolContext(Map.of(
                                     "tenantId", tenantIdStr,
                                     "conversationId", ctx.threadId().toString(),
-                                    "accessPolicy", streamAccessPolicy.serialize()))
+                                    "accessPolicy", streamAccessPolicy))
                             .stream().content()
                             .timeout(Duration.ofSeconds(streamTimeoutSeconds))
                             .doOnNext(chunk -> {
@@ -385,19 +504,12 @@ public class ChatService {
                                     timeline.emitStep(AgentStep.generating("Writing response..."));
                                 }
                             })
-                            .transform(flux -> bufferByLineWithTimeout(flux, Duration.ofMillis(500), 500))
+                            .transform(flux -> TokenCoalescer.coalesce(flux, Duration.ofMillis(500), 500))
                             .doOnNext(batch -> log.debug("[ChatService] Streaming batch: {}", batch))
                             .map(batch -> ServerSentEvent.<String>builder(batch).build())
                             .doOnComplete(() -> {
-                                ChatMessage aiMsg = ChatMessage.builder()
-                                        .thread(ctx.thread())
-                                        .sender(MessageType.ASSISTANT)
-                                        .content(buffer.get().toString())
-                                        .build();
-
-                                messageRepository.save(aiMsg);
-                                ctx.thread().addMessage(aiMsg);
-                                threadRepository.save(ctx.thread());
+                                turnPersistence.timed(dbHoldNanos, () -> turnPersistence.recordAssistantMessage(
+                                        ctx.threadId(), buffer.get().toString(), fence));
                                 log.info("[ChatService] Stream completed for thread {}", ctx.threadId());
 
                                 timeline.complete();
@@ -428,49 +540,13 @@ public class ChatService {
                             .concatWith(
                                     Mono.just(
                                             ServerSentEvent.<String>builder("[DONE]").build()));
-                }),
+                });
+            },
             lockToken -> Mono.fromRunnable(() -> {
                 threadLockService.release(threadId, lockToken);
                 log.info("[ChatService] Lock released for thread {} (cleanup)", threadId);
+                turnPersistence.reportConnectionHold("stream", threadId, message.getRequestId(), dbHoldNanos);
             })
         );
     }
-
-    /**
-     * Buffers streaming tokens and emits when:
-     * 1. A newline is detected (preserves markdown line structure)
-     * 2. Timeout is reached (prevents long waits on paragraphs)
-     * 3. Buffer size exceeds maxChars (memory safety)
-     */
-    private Flux<String> bufferByLineWithTimeout(Flux<String> source, Duration timeout, int maxChars) {
-        return Flux.create(sink -> {
-            StringBuilder lineBuffer = new StringBuilder();
-            AtomicLong lastEmit = new AtomicLong(System.currentTimeMillis());
-
-            source.subscribe(
-                    chunk -> {
-                        lineBuffer.append(chunk);
-                        long now = System.currentTimeMillis();
-                        boolean hasNewline = chunk.contains("\n");
-                        boolean timeoutReached = (now - lastEmit.get()) > timeout.toMillis();
-                        boolean sizeExceeded = lineBuffer.length() > maxChars;
-
-                        if (hasNewline || timeoutReached || sizeExceeded) {
-                            if (lineBuffer.length() > 0) {
-                                sink.next(lineBuffer.toString());
-                                lineBuffer.setLength(0);
-                                lastEmit.set(now);
-                            }
-                        }
-                    },
-                    sink::error,
-                    () -> {
-                        // Emit remaining buffer on complete
-                        if (lineBuffer.length() > 0) {
-                            sink.next(lineBuffer.toString());
-                        }
-                        sink.complete();
-                    });
-        });
-    }
 }
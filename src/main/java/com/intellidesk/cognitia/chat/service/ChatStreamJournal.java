@@ -0,0 +1,198 @@
+package com.intellidesk.cognitia.chat.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Journals the SSE events of a streamed chat turn in a bounded Redis Stream keyed by requestId,
+ * so a client that drops mid-answer can reconnect and pick up where it left off instead of
+ * resubmitting and paying for the generation again.
+ *
+ * Events get sequential ids (1, 2, 3...) stored as stream entry ids "0-n", which are also sent as
+ * the SSE id. A reconnect carrying Last-Event-ID replays everything after that id and then tails
+ * the stream until the end marker written when the turn finishes.
+ */
+@Service
+@Slf4j
+public class ChatStreamJournal {
+
+    private static final String STREAM_KEY_FMT = "cognitia:chat:sse:%s";
+    private static final String OWNER_KEY_FMT = "cognitia:chat:sse:%s:owner";
+    private static final String FIELD_EVENT = "event";
+    private static final String FIELD_DATA = "data";
+    private static final String FIELD_END = "end";
+
+    /**
+     * Appends one entry with an explicit id and refreshes the TTL of the stream and its owner key,
+     * so a journal only expires once its turn has been idle for a full TTL.
+     */
+    private static final RedisScript<Long> APPEND_SCRIPT = RedisScript.of(
+        """
+        redis.call('xadd', KEYS[1], 'MAXLEN', '~', ARGV[1], '0-' .. ARGV[2], ARGV[3], ARGV[4], ARGV[5], ARGV[6])
+        redis.call('pexpire', KEYS[1], ARGV[7])
+        redis.call('pexpire', KEYS[2], ARGV[7])
+        return 1
+        """
+        , Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+    private final long maxEvents;
+    private final Duration pollInterval;
+    private final Counter resumedCounter;
+
+    public ChatStreamJournal(StringRedisTemplate redisTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${cognitia.chat.stream.journal.ttl-seconds:600}") long ttlSeconds,
+                             @Value("${cognitia.chat.stream.journal.max-events:2000}") long maxEvents,
+                             @Value("${cognitia.chat.stream.journal.poll-interval-ms:200}") long pollIntervalMs) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.maxEvents = maxEvents;
+        this.pollInterval = Duration.ofMillis(pollIntervalMs);
+        this.resumedCounter = Counter.builder("cognitia.chat.stream.resumed")
+                .description("Streamed chat turns re-attached by a reconnecting client")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Claims the journal for a request. Only the first caller for a requestId gets true and should
+     * start the generation; later callers re-attach through {@link #replay}.
+     */
+    public boolean open(String requestId, UUID userId) {
+        Boolean claimed = redisTemplate.opsForValue()
+                .setIfAbsent(ownerKey(requestId), userId.toString(), ttl);
+        return Boolean.TRUE.equals(claimed);
+    }
+
+    /**
+     * Journals every event of the source and returns a hot view of it. The source is subscribed
+     * once and runs to completion even if the client cancels, so the answer is still generated,
+     * persisted and journaled for a later reconnect.
+     */
+    public Flux<ServerSentEvent<String>> record(String requestId, Flux<ServerSentEvent<String>> source) {
+        AtomicLong sequence = new AtomicLong();
+        return source
+                .map(event -> append(requestId, sequence.incrementAndGet(), event))
+                .doFinally(signal -> end(requestId, sequence.incrementAndGet(), signal))
+                .replay()
+                .autoConnect();
+    }
+
+    /**
+     * Replays the journal after lastEventId, then tails it until the turn's end marker.
+     * Ends early if the journal expired (e.g. the generating node died without writing the marker).
+     */
+    public Flux<ServerSentEvent<String>> replay(String requestId, UUID userId, long lastEventId) {
+        String owner = redisTemplate.opsForValue().get(ownerKey(requestId));
+        if (owner == null || !owner.equals(userId.toString())) {
+            return Flux.error(new IllegalArgumentException("No resumable stream for request " + requestId));
+        }
+        resumedCounter.increment();
+        log.info("[ChatStreamJournal] Resuming requestId={} lastEventId={}", requestId, lastEventId);
+
+        AtomicLong cursor = new AtomicLong(lastEventId);
+        return Flux.interval(Duration.ZERO, pollInterval, Schedulers.boundedElastic())
+                .onBackpressureDrop()
+                .concatMapIterable(tick -> readAfter(requestId, cursor))
+                .takeUntil(JournalEntry::end)
+                .filter(entry -> !entry.end())
+                .map(JournalEntry::event);
+    }
+
+    private ServerSentEvent<String> append(String requestId, long id, ServerSentEvent<String> event) {
+        ServerSentEvent<String> withId = ServerSentEvent.<String>builder(event.data())
+                .id(String.valueOf(id))
+                .event(event.event())
+                .build();
+        try {
+            redisTemplate.execute(APPEND_SCRIPT,
+                    List.of(streamKey(requestId), ownerKey(requestId)),
+                    String.valueOf(maxEvents), String.valueOf(id),
+                    FIELD_EVENT, Objects.toString(event.event(), ""),
+                    FIELD_DATA, Objects.toString(event.data(), ""),
+                    String.valueOf(ttl.toMillis()));
+        } catch (Exception e) {
+            // The live client still gets the event; only a later reconnect would miss it
+            log.warn("[ChatStreamJournal] Failed to journal event requestId={} id={}: {}", requestId, id, e.getMessage());
+        }
+        return withId;
+    }
+
+    private void end(String requestId, long id, SignalType signal) {
+        try {
+            redisTemplate.execute(APPEND_SCRIPT,
+                    List.of(streamKey(requestId), ownerKey(requestId)),
+                    String.valueOf(maxEvents), String.valueOf(id),
+                    FIELD_END, signal.name(),
+                    FIELD_DATA, "",
+                    String.valueOf(ttl.toMillis()));
+            log.info("[ChatStreamJournal] Journal closed requestId={} events={} signal={}", requestId, id - 1, signal);
+        } catch (Exception e) {
+            log.warn("[ChatStreamJournal] Failed to close journal requestId={}: {}", requestId, e.getMessage());
+        }
+    }
+
+    private List<JournalEntry> readAfter(String requestId, AtomicLong cursor) {
+        List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream().range(
+                streamKey(requestId),
+                Range.rightUnbounded(Range.Bound.inclusive("0-" + (cursor.get() + 1))));
+
+        if (records == null || records.isEmpty()) {
+            if (!Boolean.TRUE.equals(redisTemplate.hasKey(ownerKey(requestId)))) {
+                log.info("[ChatStreamJournal] Journal expired while tailing requestId={}", requestId);
+                return List.of(JournalEntry.END);
+            }
+            return List.of();
+        }
+
+        List<JournalEntry> entries = new ArrayList<>(records.size());
+        for (MapRecord<String, Object, Object> record : records) {
+            long id = record.getId().getSequence();
+            cursor.set(id);
+            Map<Object, Object> fields = record.getValue();
+            if (fields.containsKey(FIELD_END)) {
+                entries.add(JournalEntry.END);
+                break;
+            }
+            String eventName = Objects.toString(fields.get(FIELD_EVENT), "");
+            entries.add(new JournalEntry(ServerSentEvent.<String>builder(Objects.toString(fields.get(FIELD_DATA), ""))
+                    .id(String.valueOf(id))
+                    .event(eventName.isEmpty() ? null : eventName)
+                    .build(), false));
+        }
+        return entries;
+    }
+
+    private String streamKey(String requestId) {
+        return String.format(STREAM_KEY_FMT, requestId);
+    }
+
+    private String ownerKey(String requestId) {
+        return String.format(OWNER_KEY_FMT, requestId);
+    }
+
+    private record JournalEntry(ServerSentEvent<String> event, boolean end) {
+        static final JournalEntry END = new JournalEntry(null, true);
+    }
+}
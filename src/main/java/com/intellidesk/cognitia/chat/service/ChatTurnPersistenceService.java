@@ -0,0 +1,121 @@
+package com.intellidesk.cognitia.chat.service;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.intellidesk.cognitia.chat.models.entities.ChatMessage;
+import com.intellidesk.cognitia.chat.models.entities.ChatThread;
+import com.intellidesk.cognitia.chat.repository.ChatMessageRepository;
+import com.intellidesk.cognitia.chat.repository.ChatThreadRepository;
+import com.intellidesk.cognitia.utils.exceptionHandling.StaleThreadLockException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Short transactions around a single chat turn.
+ * The pre-LLM write (thread lookup + user message) and the post-LLM write (assistant message)
+ * each commit on their own, so no pooled connection is held while the model or its tools run.
+ */
+@Service
+@Slf4j
+public class ChatTurnPersistenceService {
+
+    private static final String CONNECTION_HOLD_METRIC = "cognitia.chat.db.connection.hold";
+
+    private final ChatThreadRepository threadRepository;
+    private final ChatMessageRepository messageRepository;
+    private final MeterRegistry meterRegistry;
+
+    public ChatTurnPersistenceService(ChatThreadRepository threadRepository,
+                                      ChatMessageRepository messageRepository,
+                                      MeterRegistry meterRegistry) {
+        this.threadRepository = threadRepository;
+        this.messageRepository = messageRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Looks up the caller's thread and stores the user message.
+     * @param fence fencing token of the thread lock held by the caller
+     * @return the thread, detached once this transaction commits
+     */
+    @Transactional
+    public ChatThread recordUserMessage(UUID threadId, UUID userId, String content, long fence) {
+        ChatThread thread = threadRepository.findByIdAndUserId(threadId, userId)
+                .orElseThrow(() -> new RuntimeException("Thread not found"));
+        assertFence(threadId, fence);
+
+        ChatMessage userMsg = ChatMessage.builder()
+                .thread(thread)
+                .sender(MessageType.USER)
+                .content(content)
+                .build();
+        messageRepository.save(userMsg);
+        return thread;
+    }
+
+    /**
+     * Stores the assistant answer against the thread without reloading its message collection.
+     * @param fence fencing token of the thread lock held by the caller
+     */
+    @Transactional
+    public void recordAssistantMessage(UUID threadId, String content, long fence) {
+        assertFence(threadId, fence);
+        ChatMessage aiMsg = ChatMessage.builder()
+                .thread(threadRepository.getReferenceById(threadId))
+                .sender(MessageType.ASSISTANT)
+                .content(content != null ? content : "")
+                .build();
+        messageRepository.save(aiMsg);
+    }
+
+    private void assertFence(UUID threadId, long fence) {
+        if (threadRepository.advanceLockFence(threadId, fence) == 0) {
+            log.warn("[ChatTurnPersistence] Rejected write on thread {} from stale lock holder (fence {})", threadId, fence);
+            throw new StaleThreadLockException(threadId.toString(), fence);
+        }
+    }
+
+    /**
+     * Runs one of this service's transactional methods and adds its wall time (begin to commit) to the
+     * request's hold counter. Only wrap calls that open a transaction here; Redis or cache work would
+     * inflate the figure without holding a connection.
+     */
+    public <T> T timed(AtomicLong heldNanos, Supplier<T> transactionalCall) {
+        long start = System.nanoTime();
+        try {
+            return transactionalCall.get();
+        } finally {
+            heldNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    public void timed(AtomicLong heldNanos, Runnable transactionalCall) {
+        timed(heldNanos, () -> {
+            transactionalCall.run();
+            return null;
+        });
+    }
+
+    /**
+     * Publishes the total time this request spent inside database transactions.
+     */
+    public void reportConnectionHold(String mode, UUID threadId, String requestId, AtomicLong heldNanos) {
+        long nanos = heldNanos.get();
+        Timer.builder(CONNECTION_HOLD_METRIC)
+                .description("Time a chat request spent inside its turn-persistence transactions")
+                .tag("mode", mode)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        log.info("[ChatTurnPersistence] threadId={} requestId={} mode={} dbHoldMs={}",
+                threadId, requestId, mode, TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+}
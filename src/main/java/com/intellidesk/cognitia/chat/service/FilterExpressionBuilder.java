@@ -1,6 +1,7 @@
 package com.intellidesk.cognitia.chat.service;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -27,6 +28,33 @@ public final class FilterExpressionBuilder {
         return String.join(" && ", clauses);
     }
 
+    /**
+     * SQL form of {@link #build} over the typed access columns of vector_store, for queries that read
+     * the table directly (e.g. the full-text leg of hybrid retrieval). Bind values are appended to
+     * params in placeholder order.
+     */
+    public static String buildSql(AccessPolicy policy, String sourceFormat, List<Object> params) {
+        List<String> clauses = new ArrayList<>();
+
+        clauses.add("tenant_id = ?");
+        params.add(policy.tenantId());
+
+        if (!policy.unrestricted()) {
+            List<String> departments = List.copyOf(policy.departmentNames());
+            clauses.add("department IN (" + String.join(", ", Collections.nCopies(departments.size(), "?")) + ")");
+            params.addAll(departments);
+            clauses.add("classification_rank <= ?");
+            params.add(policy.clearanceRank());
+        }
+
+        if (sourceFormat != null && !sourceFormat.isBlank()) {
+            clauses.add("source_format = ?");
+            params.add(sourceFormat.strip());
+        }
+
+        return String.join(" AND ", clauses);
+    }
+
     private static String buildDepartmentClause(Set<String> departmentNames) {
         if (departmentNames.size() == 1) {
             return "department == '" + departmentNames.iterator().next() + "'";
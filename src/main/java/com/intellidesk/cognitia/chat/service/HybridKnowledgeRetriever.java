@@ -0,0 +1,211 @@
+package com.intellidesk.cognitia.chat.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.intellidesk.cognitia.chat.models.dtos.AccessPolicy;
+import com.intellidesk.cognitia.ingestion.service.vectorstore.VectorStorePartitions;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Knowledge base retrieval combining the pgvector ANN search with a Postgres full-text query
+ * over vector_store.content_tsv. The vector leg finds paraphrases; the lexical leg finds exact
+ * identifiers (invoice numbers, SKUs, error codes) that embeddings tend to miss.
+ *
+ * Both legs apply the same access filter (see {@link FilterExpressionBuilder}) and run in parallel.
+ * Their rankings are merged with reciprocal rank fusion: score(d) = sum over legs of 1 / (k + rank).
+ * If one leg fails the other one's results are returned on their own. The lexical query runs on
+ * its own JdbcTemplate with the leg's timeout as query timeout, so Postgres cancels it rather than
+ * letting it hold a connection after the leg was given up on.
+ */
+@Service
+@Slf4j
+public class HybridKnowledgeRetriever {
+
+    private static final String RETRIEVAL_METRIC = "cognitia.knowledge.retrieval";
+
+    private static final String LEXICAL_SQL = """
+            SELECT id::text AS id, content, metadata::text AS metadata, ts_rank_cd(content_tsv, q) AS rank
+            FROM %s, websearch_to_tsquery('simple', ?) q
+            WHERE content_tsv @@ q AND %s
+            ORDER BY rank DESC
+            LIMIT ?
+            """;
+
+    private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {};
+
+    private final VectorStore vectorStore;
+    private final JdbcTemplate lexicalJdbcTemplate;
+    private final VectorStorePartitions partitions;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int rrfK;
+    private final int candidateMultiplier;
+    private final long lexicalTimeoutMs;
+    private final Executor lexicalExecutor;
+
+    public HybridKnowledgeRetriever(VectorStore vectorStore,
+                                    JdbcTemplate jdbcTemplate,
+                                    VectorStorePartitions partitions,
+                                    ObjectMapper objectMapper,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${cognitia.knowledge.hybrid.enabled:true}") boolean enabled,
+                                    @Value("${cognitia.knowledge.hybrid.rrf-k:60}") int rrfK,
+                                    @Value("${cognitia.knowledge.hybrid.candidate-multiplier:2}") int candidateMultiplier,
+                                    @Value("${cognitia.knowledge.hybrid.lexical-timeout-ms:2000}") long lexicalTimeoutMs) {
+        this.vectorStore = vectorStore;
+        // Timeout in whole seconds; the driver cancels the statement server-side when it is exceeded
+        this.lexicalJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.lexicalJdbcTemplate.setQueryTimeout((int) Math.max(1, (lexicalTimeoutMs + 999) / 1000));
+        this.partitions = partitions;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.rrfK = Math.max(1, rrfK);
+        this.candidateMultiplier = Math.max(1, candidateMultiplier);
+        this.lexicalTimeoutMs = lexicalTimeoutMs;
+        ThreadFactory threadFactory = Thread.ofVirtual().name("knowledge-lexical-", 0).factory();
+        this.lexicalExecutor = task -> threadFactory.newThread(task).start();
+    }
+
+    /**
+     * @return up to topK chunks visible under the policy, best first
+     */
+    public List<Document> search(String query, int topK, double similarityThreshold,
+                                 AccessPolicy policy, String sourceFormat) {
+        SearchRequest vectorRequest = SearchRequest.builder()
+                .query(query)
+                .topK(enabled ? topK * candidateMultiplier : topK)
+                .similarityThreshold(similarityThreshold)
+                .filterExpression(FilterExpressionBuilder.build(policy, sourceFormat))
+                .build();
+
+        if (!enabled) {
+            return timed("vector", () -> vectorStore.similaritySearch(vectorRequest));
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<List<Document>> lexicalLeg = CompletableFuture.supplyAsync(
+                () -> timed("lexical", () -> lexicalSearch(query, topK * candidateMultiplier, policy, sourceFormat)),
+                lexicalExecutor);
+
+        List<Document> vectorHits;
+        try {
+            vectorHits = timed("vector", () -> vectorStore.similaritySearch(vectorRequest));
+        } catch (Exception e) {
+            log.warn("[HybridKnowledgeRetriever] Vector leg failed, using lexical results only: {}", e.getMessage());
+            vectorHits = List.of();
+        }
+
+        List<Document> lexicalHits;
+        try {
+            lexicalHits = lexicalLeg.get(lexicalTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            lexicalLeg.cancel(true);
+            lexicalHits = List.of();
+        } catch (Exception e) {
+            log.warn("[HybridKnowledgeRetriever] Lexical leg failed, using vector results only: {}", e.getMessage());
+            lexicalLeg.cancel(true);
+            lexicalHits = List.of();
+        }
+
+        List<Document> fused = fuse(vectorHits, lexicalHits, topK);
+        Timer.builder(RETRIEVAL_METRIC)
+                .description("Knowledge base retrieval latency per leg")
+                .tag("leg", "fused")
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        log.info("[HybridKnowledgeRetriever] vectorHits={} lexicalHits={} fused={} tenantId={}",
+                vectorHits.size(), lexicalHits.size(), fused.size(), policy.tenantId());
+        return fused;
+    }
+
+    private List<Document> lexicalSearch(String query, int limit, AccessPolicy policy, String sourceFormat) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        List<Object> params = new ArrayList<>();
+        params.add(query);
+        String filter = FilterExpressionBuilder.buildSql(policy, sourceFormat, params);
+        params.add(limit);
+
+        return lexicalJdbcTemplate.query(LEXICAL_SQL.formatted(partitions.tableFor(policy.tenantId()), filter), (rs, rowNum) -> Document.builder()
+                .id(rs.getString("id"))
+                .text(rs.getString("content"))
+                .metadata(parseMetadata(rs.getString("metadata")))
+                .score(rs.getDouble("rank"))
+                .build(), params.toArray());
+    }
+
+    /**
+     * Reciprocal rank fusion keyed by chunk id. A chunk found by both legs keeps the vector
+     * leg's Document and its distance metadata; the score of every fused Document is its RRF score.
+     */
+    private List<Document> fuse(List<Document> vectorHits, List<Document> lexicalHits, int topK) {
+        Map<String, Document> documents = new LinkedHashMap<>();
+        Map<String, Double> scores = new LinkedHashMap<>();
+        addRanks(vectorHits, documents, scores);
+        addRanks(lexicalHits, documents, scores);
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()))
+                .limit(topK)
+                .map(entry -> documents.get(entry.getKey()).mutate().score(entry.getValue()).build())
+                .toList();
+    }
+
+    private void addRanks(List<Document> hits, Map<String, Document> documents, Map<String, Double> scores) {
+        for (int i = 0; i < hits.size(); i++) {
+            Document doc = hits.get(i);
+            documents.putIfAbsent(doc.getId(), doc);
+            scores.merge(doc.getId(), 1.0 / (rrfK + i + 1), Double::sum);
+        }
+    }
+
+    private Map<String, Object> parseMetadata(String json) {
+        if (json == null || json.isBlank()) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(json, METADATA_TYPE);
+        } catch (Exception e) {
+            log.warn("[HybridKnowledgeRetriever] Unreadable chunk metadata: {}", e.getMessage());
+            return Map.of();
+        }
+    }
+
+    private <T> T timed(String leg, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            Timer.builder(RETRIEVAL_METRIC)
+                    .description("Knowledge base retrieval latency per leg")
+                    .tag("leg", leg)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.intellidesk.cognitia.chat.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.intellidesk.cognitia.chat.models.dtos.AccessPolicy;
+import com.intellidesk.cognitia.ingestion.service.KnowledgeVersionService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Redis cache of knowledge search results. Entries are keyed by tenant plus a digest of the access
+ * policy fingerprint, topK, source format and the normalized query as searched (after any rewrite),
+ * and are stamped with the tenant's knowledge version from
+ * {@link KnowledgeVersionService}. The version and the entry are read in one MGET; an entry stamped
+ * with an older version is a miss, so ingestion and deletion never need to find and delete entries.
+ *
+ * The version is read before the search runs and the result is stored under that version, so results
+ * computed while an ingestion commits are never served after its bump.
+ *
+ * Contextual query rewrites are memoized separately per tenant, query and conversation context; they do
+ * not depend on the knowledge base, so they are not version-stamped.
+ */
+@Service
+@Slf4j
+public class KnowledgeRetrievalCache {
+
+    private static final String ENTRY_KEY_FMT = "cognitia:knowledge:retrieval:%s:%s";
+    private static final String REWRITE_KEY_FMT = "cognitia:knowledge:rewrite:%s:%s";
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final KnowledgeVersionService versionService;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Duration ttl;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter rewriteHits;
+    private final Counter rewriteMisses;
+
+    public KnowledgeRetrievalCache(KnowledgeVersionService versionService,
+                                   StringRedisTemplate redisTemplate,
+                                   ObjectMapper objectMapper,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${cognitia.knowledge.retrieval-cache.enabled:true}") boolean enabled,
+                                   @Value("${cognitia.knowledge.retrieval-cache.ttl-minutes:30}") long ttlMinutes) {
+        this.versionService = versionService;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        this.hits = cacheCounter(meterRegistry, "hit");
+        this.misses = cacheCounter(meterRegistry, "miss");
+        this.rewriteHits = rewriteCounter(meterRegistry, "hit");
+        this.rewriteMisses = rewriteCounter(meterRegistry, "miss");
+    }
+
+    /**
+     * Returns the cached results for this search or runs the loader and caches what it returns.
+     * Exceptions from the loader propagate and nothing is cached.
+     *
+     * @param query the query as it is searched, i.e. after any contextual rewrite
+     */
+    public <T> T getOrLoad(AccessPolicy policy, String query, int topK, String sourceFormat,
+                           TypeReference<T> type, Supplier<T> loader) {
+        UUID tenantId = policy.tenantId();
+        if (!enabled || tenantId == null) {
+            return loader.get();
+        }
+
+        String entryKey = ENTRY_KEY_FMT.formatted(tenantId, digest(policy, query, topK, sourceFormat));
+        List<String> values;
+        try {
+            values = redisTemplate.opsForValue().multiGet(List.of(versionService.versionKey(tenantId), entryKey));
+        } catch (Exception e) {
+            log.warn("[KnowledgeRetrievalCache] Cache unavailable, searching directly: {}", e.getMessage());
+            misses.increment();
+            return loader.get();
+        }
+        long version;
+        try {
+            version = values != null && values.get(0) != null
+                    ? Long.parseLong(values.get(0)) : versionService.currentVersion(tenantId);
+        } catch (Exception e) {
+            log.warn("[KnowledgeRetrievalCache] Version unavailable, searching directly: {}", e.getMessage());
+            misses.increment();
+            return loader.get();
+        }
+        String cached = values != null ? values.get(1) : null;
+
+        if (cached != null) {
+            int sep = cached.indexOf('|');
+            if (sep > 0 && Long.parseLong(cached.substring(0, sep)) == version) {
+                try {
+                    T value = objectMapper.readValue(cached.substring(sep + 1), type);
+                    hits.increment();
+                    return value;
+                } catch (Exception e) {
+                    log.warn("[KnowledgeRetrievalCache] Unreadable entry {}: {}", entryKey, e.getMessage());
+                }
+            }
+        }
+
+        misses.increment();
+        T value = loader.get();
+        try {
+            redisTemplate.opsForValue().set(entryKey, version + "|" + objectMapper.writeValueAsString(value), ttl);
+        } catch (Exception e) {
+            log.warn("[KnowledgeRetrievalCache] Failed to cache results for tenant {}: {}", tenantId, e.getMessage());
+        }
+        log.debug("[KnowledgeRetrievalCache] Cached tenantId={} version={} key={}", tenantId, version, entryKey);
+        return value;
+    }
+
+    /**
+     * Returns the memoized rewrite of this query against this conversation context, or runs the rewriter
+     * and stores what it returns. A null from the rewriter (rewrite failed) is not stored and yields null.
+     */
+    public String rewriteOrLoad(UUID tenantId, String query, String context, Supplier<String> rewriter) {
+        if (!enabled || tenantId == null) {
+            return rewriter.get();
+        }
+
+        String key = REWRITE_KEY_FMT.formatted(tenantId, sha256(normalize(query) + "\u0000" + context));
+        try {
+            String cached = redisTemplate.opsForValue().get(key);
+            if (cached != null) {
+                rewriteHits.increment();
+                return cached;
+            }
+        } catch (Exception e) {
+            log.warn("[KnowledgeRetrievalCache] Rewrite cache unavailable, rewriting directly: {}", e.getMessage());
+            rewriteMisses.increment();
+            return rewriter.get();
+        }
+
+        rewriteMisses.increment();
+        String rewritten = rewriter.get();
+        if (rewritten != null) {
+            try {
+                redisTemplate.opsForValue().set(key, rewritten, ttl);
+            } catch (Exception e) {
+                log.warn("[KnowledgeRetrievalCache] Failed to cache rewrite for tenant {}: {}", tenantId, e.getMessage());
+            }
+        }
+        return rewritten;
+    }
+
+    private static String digest(AccessPolicy policy, String query, int topK, String sourceFormat) {
+        // Department order must not matter; the tenant is already part of the key
+        String fingerprint = String.join("\u0000",
+                String.valueOf(policy.unrestricted()),
+                String.valueOf(policy.clearanceRank()),
+                String.join(",", new TreeSet<>(policy.departmentNames() != null ? policy.departmentNames() : Set.of())),
+                String.valueOf(topK),
+                sourceFormat != null ? sourceFormat.strip() : "",
+                normalize(query));
+        return sha256(fingerprint);
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String normalize(String query) {
+        return query == null ? "" : WHITESPACE.matcher(query).replaceAll(" ").strip().toLowerCase(Locale.ROOT);
+    }
+
+    private static Counter cacheCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("cognitia.knowledge.retrieval-cache")
+                .description("Knowledge searches served from the retrieval cache")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static Counter rewriteCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("cognitia.knowledge.rewrite-cache")
+                .description("Contextual query rewrites served from the rewrite cache")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
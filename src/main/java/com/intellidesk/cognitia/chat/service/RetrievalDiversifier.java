@@ -0,0 +1,243 @@
+package com.intellidesk.cognitia.chat.service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.intellidesk.cognitia.ingestion.service.vectorstore.VectorStorePartitions;
+import com.pgvector.PGvector;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Optional post-retrieval stage for knowledge search. Over-fetched candidates are first collapsed by
+ * SimHash over their embeddings (64 random hyperplanes; chunks within a few bits of a more relevant
+ * chunk are dropped), then ranked by maximal marginal relevance:
+ * lambda * relevance - (1 - lambda) * max cosine similarity to the chunks already picked.
+ *
+ * Relevance is the retriever's score scaled to the best candidate, so fused (RRF) and plain vector
+ * scores both work. Embeddings are read by primary key from the tenant's partition in one query.
+ */
+@Service
+@Slf4j
+public class RetrievalDiversifier {
+
+    private static final String EMBEDDINGS_SQL =
+            "SELECT id::text AS id, embedding::text AS embedding FROM %s WHERE tenant_id = ? AND id = ANY(?)";
+
+    private static final int SIMHASH_BITS = 64;
+    private static final long SIMHASH_SEED = 0x5eed_c0de_1234L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final VectorStorePartitions partitions;
+    private final boolean enabled;
+    private final int overfetch;
+    private final double lambda;
+    private final int maxHammingDistance;
+    private final DistributionSummary tokensSaved;
+    private final Counter duplicatesCollapsed;
+    private volatile float[][] hyperplanes;
+
+    public RetrievalDiversifier(JdbcTemplate jdbcTemplate,
+                                VectorStorePartitions partitions,
+                                MeterRegistry meterRegistry,
+                                @Value("${cognitia.knowledge.diversity.enabled:false}") boolean enabled,
+                                @Value("${cognitia.knowledge.diversity.overfetch:3}") int overfetch,
+                                @Value("${cognitia.knowledge.diversity.lambda:0.7}") double lambda,
+                                @Value("${cognitia.knowledge.diversity.simhash-max-hamming:3}") int maxHammingDistance) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.partitions = partitions;
+        this.enabled = enabled;
+        this.overfetch = Math.max(1, overfetch);
+        this.lambda = Math.min(1.0, Math.max(0.0, lambda));
+        this.maxHammingDistance = maxHammingDistance;
+        this.tokensSaved = DistributionSummary.builder("cognitia.knowledge.diversity.tokens-saved")
+                .description("Estimated prompt tokens of near-duplicate chunks kept out of a knowledge search result")
+                .baseUnit("tokens")
+                .register(meterRegistry);
+        this.duplicatesCollapsed = Counter.builder("cognitia.knowledge.diversity.duplicates")
+                .description("Candidate chunks dropped as near-duplicates of a more relevant chunk")
+                .register(meterRegistry);
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * How many candidates to retrieve for a result of topK chunks.
+     */
+    public int candidatesFor(int topK) {
+        return enabled ? topK * overfetch : topK;
+    }
+
+    /**
+     * @param candidates retrieved chunks, best first
+     * @return up to topK chunks, near-duplicates collapsed and the rest in MMR order
+     */
+    public List<Document> diversify(UUID tenantId, List<Document> candidates, int topK) {
+        if (!enabled || candidates.size() <= 1) {
+            return candidates.size() > topK ? candidates.subList(0, topK) : candidates;
+        }
+        Map<String, float[]> embeddings = loadEmbeddings(tenantId, candidates);
+
+        // Near-duplicate collapsing, most relevant first so the kept chunk is the best-ranked one
+        List<Document> distinct = new ArrayList<>();
+        List<Long> keptHashes = new ArrayList<>();
+        Set<String> collapsed = new HashSet<>();
+        for (Document candidate : candidates) {
+            float[] embedding = embeddings.get(candidate.getId());
+            if (embedding != null) {
+                long hash = simHash(embedding);
+                if (keptHashes.stream().anyMatch(kept -> Long.bitCount(kept ^ hash) <= maxHammingDistance)) {
+                    collapsed.add(candidate.getId());
+                    continue;
+                }
+                keptHashes.add(hash);
+            }
+            distinct.add(candidate);
+        }
+
+        List<Document> selected = mmr(distinct, embeddings, topK);
+
+        long saved = candidates.stream().limit(topK)
+                .filter(doc -> collapsed.contains(doc.getId()))
+                .mapToLong(doc -> estimateTokens(doc.getText()))
+                .sum();
+        tokensSaved.record(saved);
+        duplicatesCollapsed.increment(collapsed.size());
+        log.info("[RetrievalDiversifier] tenantId={} candidates={} duplicates={} selected={} tokensSaved={}",
+                tenantId, candidates.size(), collapsed.size(), selected.size(), saved);
+        return selected;
+    }
+
+    private List<Document> mmr(List<Document> candidates, Map<String, float[]> embeddings, int topK) {
+        double maxScore = candidates.stream()
+                .mapToDouble(doc -> doc.getScore() != null ? doc.getScore() : 0.0)
+                .max().orElse(0.0);
+        List<Document> remaining = new ArrayList<>(candidates);
+        List<Document> selected = new ArrayList<>();
+        while (selected.size() < topK && !remaining.isEmpty()) {
+            Document best = null;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < remaining.size(); i++) {
+                Document candidate = remaining.get(i);
+                // Without scores the retriever's order stands in for relevance
+                double relevance = maxScore > 0 && candidate.getScore() != null
+                        ? candidate.getScore() / maxScore
+                        : 1.0 - (double) candidates.indexOf(candidate) / candidates.size();
+                double redundancy = 0.0;
+                float[] embedding = embeddings.get(candidate.getId());
+                if (embedding != null) {
+                    for (Document picked : selected) {
+                        float[] other = embeddings.get(picked.getId());
+                        if (other != null) {
+                            redundancy = Math.max(redundancy, cosine(embedding, other));
+                        }
+                    }
+                }
+                double value = lambda * relevance - (1 - lambda) * redundancy;
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = candidate;
+                }
+            }
+            selected.add(best);
+            remaining.remove(best);
+        }
+        return selected;
+    }
+
+    private Map<String, float[]> loadEmbeddings(UUID tenantId, List<Document> candidates) {
+        Map<String, float[]> embeddings = new HashMap<>();
+        if (tenantId == null) {
+            return embeddings;
+        }
+        Object[] ids = candidates.stream().map(doc -> UUID.fromString(doc.getId())).toArray();
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(EMBEDDINGS_SQL.formatted(partitions.tableFor(tenantId)));
+                ps.setObject(1, tenantId);
+                ps.setArray(2, connection.createArrayOf("uuid", ids));
+                return ps;
+            }, rs -> {
+                try {
+                    embeddings.put(rs.getString("id"), new PGvector(rs.getString("embedding")).toArray());
+                } catch (SQLException e) {
+                    log.warn("[RetrievalDiversifier] Skipping unreadable embedding: {}", e.getMessage());
+                }
+            });
+        } catch (Exception e) {
+            // Without embeddings MMR degrades to the retriever's order
+            log.warn("[RetrievalDiversifier] Failed to load candidate embeddings for tenant {}: {}", tenantId, e.getMessage());
+        }
+        return embeddings;
+    }
+
+    /**
+     * Charikar SimHash: one bit per random hyperplane, set when the embedding lies on its positive side.
+     */
+    private long simHash(float[] embedding) {
+        float[][] planes = hyperplanes(embedding.length);
+        long hash = 0L;
+        for (int bit = 0; bit < SIMHASH_BITS; bit++) {
+            float[] plane = planes[bit];
+            double dot = 0.0;
+            for (int i = 0; i < embedding.length; i++) {
+                dot += embedding[i] * plane[i];
+            }
+            if (dot > 0) {
+                hash |= 1L << bit;
+            }
+        }
+        return hash;
+    }
+
+    private float[][] hyperplanes(int dimensions) {
+        float[][] planes = hyperplanes;
+        if (planes == null || planes[0].length != dimensions) {
+            // Fixed seed: hashes stay comparable across calls and instances
+            Random random = new Random(SIMHASH_SEED);
+            planes = new float[SIMHASH_BITS][dimensions];
+            for (float[] plane : planes) {
+                for (int i = 0; i < dimensions; i++) {
+                    plane[i] = (float) random.nextGaussian();
+                }
+            }
+            hyperplanes = planes;
+        }
+        return planes;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0.0;
+        double normA = 0.0;
+        double normB = 0.0;
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return normA == 0 || normB == 0 ? 0.0 : dot / (Math.sqrt(normA) * Math.sqrt(normB));
+    }
+
+    private static long estimateTokens(String text) {
+        // Same chars / 4 heuristic as the quota advisor
+        return text == null ? 0 : text.length() / 4L;
+    }
+}
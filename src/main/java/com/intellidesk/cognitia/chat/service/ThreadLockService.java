@@ -1,29 +1,155 @@
 package com.intellidesk.cognitia.chat.service;
 
 import java.time.Duration;
+import java.util.Map;
 import java.util.UUID;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
+import com.intellidesk.cognitia.chat.repository.ChatThreadRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
 /**
  * Service for managing distributed locks on chat threads.
  * Prevents concurrent message processing on the same thread to ensure
  * message ordering and correct conversation context.
+ *
+ * Locks are short leases kept alive by {@link #keepAlive} while a request runs, so a crashed
+ * node frees its threads within one TTL. Every acquisition takes the next value of a per-thread
+ * counter as its fencing token; the token is embedded in the lock token ("fence:uuid") and is
+ * checked by the message and chat-memory writes so a holder whose lease lapsed cannot write.
+ * The counter is seeded from chat_threads.lock_fence (the highest fence that wrote to the DB), so
+ * an evicted, expired or failed-over counter never restarts below a fence the DB has accepted.
  */
 @Service
 @Slf4j
 public class ThreadLockService {
 
     private final StringRedisTemplate redisTemplate;
-    
+    private final ChatThreadRepository threadRepository;
+    private final Duration lockTtl;
+    private final Duration renewInterval;
+    private final Timer holdTimer;
+    private final Counter contentionCounter;
+    private final Counter leaseLostCounter;
+    private final Map<String, Long> acquiredAtNanos = new ConcurrentHashMap<>();
+    private final Map<String, Disposable> leaseRenewals = new ConcurrentHashMap<>();
+
     private static final String LOCK_KEY_FMT = "thread:lock:%s";
+    private static final String FENCE_KEY_FMT = "thread:fence:%s";
     private static final String QUEUE_KEY_FMT = "thread:queue:%s";
-    private static final Duration LOCK_TTL = Duration.ofMinutes(5); // Max streaming duration
+    private static final String QUEUE_HEARTBEAT_KEY_FMT = "thread:queue:%s:heartbeat";
+    private static final Duration QUEUE_TTL = Duration.ofHours(1);
+    // Idle threads drop their counter; the next acquisition re-seeds it from the DB
+    private static final Duration FENCE_TTL = Duration.ofDays(7);
+    // A waiter that has not polled for this long is treated as gone and skipped at the head
+    private static final Duration TICKET_STALE_AFTER = Duration.ofSeconds(10);
+
+    /**
+     * Acquire only if the lock is free AND nobody is queued, so a new request cannot
+     * overtake messages already waiting for this thread. Waiters that stopped heartbeating are
+     * dropped from the head first, so a crashed waiter does not block non-queueing callers.
+     * The fence is max(counter, ARGV[5]) + 1, ARGV[5] being the thread's fence in the DB.
+     * Returns the new fencing token, or 0 if not acquired.
+     */
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = RedisScript.of(
+        """
+        local staleBefore = tonumber(ARGV[3]) - tonumber(ARGV[4])
+        while true do
+            local head = redis.call('lindex', KEYS[2], 0)
+            if not head then
+                break
+            end
+            local seen = redis.call('zscore', KEYS[4], head)
+            if seen and tonumber(seen) >= staleBefore then
+                break
+            end
+            redis.call('lpop', KEYS[2])
+            redis.call('zrem', KEYS[4], head)
+        end
+        if redis.call('llen', KEYS[2]) > 0 or redis.call('exists', KEYS[1]) == 1 then
+            return 0
+        end
+        local fence = math.max(tonumber(redis.call('get', KEYS[3]) or '0'), tonumber(ARGV[5])) + 1
+        redis.call('set', KEYS[3], string.format('%d', fence), 'PX', ARGV[6])
+        redis.call('set', KEYS[1], string.format('%d', fence) .. ':' .. ARGV[1], 'PX', ARGV[2])
+        return fence
+        """
+        , Long.class);
+
+    /**
+     * Heartbeats the ticket, drops dead waiters from the head, then takes the lock if this
+     * ticket is first in line and the lock is free. Returns the new fencing token (> 0) when
+     * acquired, otherwise the negated 1-based queue position. The DB fence (ARGV[7]) is only read
+     * once a ticket can acquire: without it the script returns 0 and the caller retries with it.
+     * The fence is then seeded like in ACQUIRE_SCRIPT.
+     */
+    private static final RedisScript<Long> ACQUIRE_QUEUED_SCRIPT = RedisScript.of(
+        """
+        local now = tonumber(ARGV[4])
+        local staleBefore = now - tonumber(ARGV[5])
+        redis.call('zadd', KEYS[3], now, ARGV[1])
+        while true do
+            local head = redis.call('lindex', KEYS[2], 0)
+            if not head or head == ARGV[1] then
+                break
+            end
+            local seen = redis.call('zscore', KEYS[3], head)
+            if seen and tonumber(seen) >= staleBefore then
+                break
+            end
+            redis.call('lpop', KEYS[2])
+            redis.call('zrem', KEYS[3], head)
+        end
+        local pos = redis.call('lpos', KEYS[2], ARGV[1])
+        if not pos then
+            redis.call('rpush', KEYS[2], ARGV[1])
+            pos = redis.call('llen', KEYS[2]) - 1
+        end
+        if pos == 0 and redis.call('exists', KEYS[1]) == 0 then
+            if ARGV[7] == '' then
+                return 0
+            end
+            local fence = math.max(tonumber(redis.call('get', KEYS[4]) or '0'), tonumber(ARGV[7])) + 1
+            redis.call('set', KEYS[4], string.format('%d', fence), 'PX', ARGV[8])
+            redis.call('set', KEYS[1], string.format('%d', fence) .. ':' .. ARGV[2], 'PX', ARGV[3])
+            redis.call('lpop', KEYS[2])
+            redis.call('zrem', KEYS[3], ARGV[1])
+            return fence
+        end
+        redis.call('pexpire', KEYS[2], ARGV[6])
+        redis.call('pexpire', KEYS[3], ARGV[6])
+        return -(pos + 1)
+        """
+        , Long.class);
+
+    /**
+     * Appends the ticket and writes its first heartbeat together, so a ticket is never in the
+     * queue without a heartbeat. Returns the 1-based position.
+     */
+    private static final RedisScript<Long> ENQUEUE_SCRIPT = RedisScript.of(
+        """
+        redis.call('zadd', KEYS[2], ARGV[2], ARGV[1])
+        local pos = redis.call('rpush', KEYS[1], ARGV[1])
+        redis.call('pexpire', KEYS[1], ARGV[3])
+        redis.call('pexpire', KEYS[2], ARGV[3])
+        return pos
+        """
+        , Long.class);
+
     private static final RedisScript<Long> RELEASE_SCRIPT = RedisScript.of(
         """
         if redis.call('get', KEYS[1]) == ARGV[1] then
@@ -34,8 +160,33 @@ public class ThreadLockService {
         """
         , Long.class);
 
-    public ThreadLockService(StringRedisTemplate redisTemplate) {
+    private static final RedisScript<Long> RENEW_SCRIPT = RedisScript.of(
+        """
+        if redis.call('get', KEYS[1]) == ARGV[1] then
+            return redis.call('pexpire', KEYS[1], ARGV[2])
+        else
+            return 0
+        end
+        """
+        , Long.class);
+
+    public ThreadLockService(StringRedisTemplate redisTemplate,
+                             ChatThreadRepository threadRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${cognitia.chat.thread-lock.ttl-seconds:15}") long lockTtlSeconds) {
         this.redisTemplate = redisTemplate;
+        this.threadRepository = threadRepository;
+        this.lockTtl = Duration.ofSeconds(lockTtlSeconds);
+        this.renewInterval = lockTtl.dividedBy(3);
+        this.holdTimer = Timer.builder("cognitia.thread.lock.hold")
+                .description("Time a chat thread lock was held")
+                .register(meterRegistry);
+        this.contentionCounter = Counter.builder("cognitia.thread.lock.contention")
+                .description("Lock attempts that found the thread locked or queued")
+                .register(meterRegistry);
+        this.leaseLostCounter = Counter.builder("cognitia.thread.lock.lease.lost")
+                .description("Leases that expired or were taken over before release")
+                .register(meterRegistry);
     }
 
     /**
@@ -45,18 +196,105 @@ public class ThreadLockService {
      * @throws org.springframework.data.redis.RedisConnectionFailureException if Redis is unreachable
      */
     public String tryAcquire(UUID threadId) {
-        String key = lockKey(threadId);
-        String lockToken = UUID.randomUUID().toString();
-        
-        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(key, lockToken, LOCK_TTL);
-        if (acquired != null && acquired) {
-            log.info("[ThreadLock] Lock acquired for thread {}", threadId);
-            return lockToken;
+        String nonce = UUID.randomUUID().toString();
+
+        Long fence = redisTemplate.execute(ACQUIRE_SCRIPT,
+                List.of(lockKey(threadId), queueKey(threadId), fenceKey(threadId), heartbeatKey(threadId)),
+                nonce,
+                String.valueOf(lockTtl.toMillis()),
+                String.valueOf(System.currentTimeMillis()),
+                String.valueOf(TICKET_STALE_AFTER.toMillis()),
+                String.valueOf(persistedFence(threadId)),
+                String.valueOf(FENCE_TTL.toMillis()));
+        if (fence != null && fence > 0) {
+            log.info("[ThreadLock] Lock acquired for thread {} (fence {})", threadId, fence);
+            return onAcquired(fence, nonce);
         }
-        log.info("[ThreadLock] Lock contention on thread {} - already locked by another request", threadId);
+        contentionCounter.increment();
+        log.info("[ThreadLock] Lock contention on thread {} - locked or messages already queued", threadId);
         return null;
     }
 
+    /**
+     * Take the lock on behalf of a queued ticket once it reaches the head of the queue.
+     * Must be polled while waiting: each call also refreshes the ticket's heartbeat.
+     * @param threadId The thread ID
+     * @param ticket The ticket passed to {@link #enqueue}
+     * @return a QueuedAcquire holding either the lock token or the current 1-based position
+     */
+    public QueuedAcquire tryAcquireQueued(UUID threadId, String ticket) {
+        String nonce = UUID.randomUUID().toString();
+
+        Long result = acquireQueued(threadId, ticket, nonce, "");
+        if (result != null && result == 0) {
+            // At the head with the lock free: only now is the DB fence worth reading
+            result = acquireQueued(threadId, ticket, nonce, String.valueOf(persistedFence(threadId)));
+        }
+        if (result != null && result > 0) {
+            log.info("[ThreadLock] Queued ticket {} acquired lock for thread {} (fence {})", ticket, threadId, result);
+            return new QueuedAcquire(onAcquired(result, nonce), 0);
+        }
+        return new QueuedAcquire(null, result != null ? -result : 0);
+    }
+
+    private Long acquireQueued(UUID threadId, String ticket, String nonce, String persistedFence) {
+        return redisTemplate.execute(ACQUIRE_QUEUED_SCRIPT,
+                List.of(lockKey(threadId), queueKey(threadId), heartbeatKey(threadId), fenceKey(threadId)),
+                ticket,
+                nonce,
+                String.valueOf(lockTtl.toMillis()),
+                String.valueOf(System.currentTimeMillis()),
+                String.valueOf(TICKET_STALE_AFTER.toMillis()),
+                String.valueOf(QUEUE_TTL.toMillis()),
+                persistedFence,
+                String.valueOf(FENCE_TTL.toMillis()));
+    }
+
+    /**
+     * Highest fence that has written to this thread in the DB; 0 for a new or unknown thread.
+     */
+    private long persistedFence(UUID threadId) {
+        return threadRepository.findLockFence(threadId).orElse(0L);
+    }
+
+    /**
+     * Keep the lease alive until {@link #release} is called, renewing every third of the TTL.
+     * If the lease is found lost (expired or taken over) renewal stops; later fenced writes
+     * from this holder are then rejected.
+     * @param threadId The thread ID
+     * @param lockToken The token received when lock was acquired
+     */
+    public void keepAlive(UUID threadId, String lockToken) {
+        if (lockToken == null) return;
+
+        Disposable renewal = Flux.interval(renewInterval, renewInterval, Schedulers.boundedElastic())
+                .onBackpressureDrop()
+                .subscribe(tick -> {
+                    if (!renew(threadId, lockToken)) {
+                        leaseLostCounter.increment();
+                        log.warn("[ThreadLock] Lease lost for thread {} (fence {}), stopping renewal",
+                                threadId, fencingToken(lockToken));
+                        stopRenewal(lockToken);
+                    }
+                });
+        Disposable previous = leaseRenewals.put(lockToken, renewal);
+        if (previous != null) {
+            previous.dispose();
+        }
+    }
+
+    private boolean renew(UUID threadId, String lockToken) {
+        try {
+            Long result = redisTemplate.execute(RENEW_SCRIPT, List.of(lockKey(threadId)),
+                    lockToken, String.valueOf(lockTtl.toMillis()));
+            return result != null && result == 1;
+        } catch (Exception e) {
+            // Transient Redis failure: keep trying until the lease actually expires
+            log.warn("[ThreadLock] Lease renewal failed for thread {}: {}", threadId, e.getMessage());
+            return true;
+        }
+    }
+
     /**
      * Release the lock (only if we own it)
      * @param threadId The thread ID
@@ -64,13 +302,20 @@ public class ThreadLockService {
      */
     public void release(UUID threadId, String lockToken) {
         if (lockToken == null) return;
-        
+
+        stopRenewal(lockToken);
+        Long acquiredAt = acquiredAtNanos.remove(lockToken);
+        if (acquiredAt != null) {
+            holdTimer.record(System.nanoTime() - acquiredAt, TimeUnit.NANOSECONDS);
+        }
+
         String key = lockKey(threadId);
         try {
             Long result = redisTemplate.execute(RELEASE_SCRIPT, List.of(key), lockToken);
             if (result != null && result == 1) {
                 log.info("[ThreadLock] Lock released for thread {}", threadId);
             } else {
+                leaseLostCounter.increment();
                 log.warn("[ThreadLock] Lock release skipped for thread {} - token mismatch or already expired", threadId);
             }
         } catch (Exception e) {
@@ -78,6 +323,21 @@ public class ThreadLockService {
         }
     }
 
+    /**
+     * Redis key of the thread's fence counter, for writes that check their fence atomically
+     * (a write is stale when the counter is above its fence).
+     */
+    public String fenceKey(UUID threadId) {
+        return String.format(FENCE_KEY_FMT, threadId);
+    }
+
+    /**
+     * Extract the fencing token from a lock token returned by this service.
+     */
+    public static long fencingToken(String lockToken) {
+        return Long.parseLong(lockToken.substring(0, lockToken.indexOf(':')));
+    }
+
     /**
      * Check if thread is currently locked
      * @param threadId The thread ID
@@ -102,19 +362,36 @@ public class ThreadLockService {
 
     /**
      * Add a message to the thread's processing queue.
-     * Used for FIFO queue implementation (Tier 3).
+     * Used for FIFO queue implementation (Tier 3); the caller then polls {@link #tryAcquireQueued}.
      * @param threadId The thread ID
      * @param messageId The message ID to queue
      * @return The position in queue (1-based)
      */
     public long enqueue(UUID threadId, String messageId) {
-        String key = queueKey(threadId);
-        Long position = redisTemplate.opsForList().rightPush(key, messageId);
-        redisTemplate.expire(key, Duration.ofHours(1));
+        Long position = redisTemplate.execute(ENQUEUE_SCRIPT,
+                List.of(queueKey(threadId), heartbeatKey(threadId)),
+                messageId,
+                String.valueOf(System.currentTimeMillis()),
+                String.valueOf(QUEUE_TTL.toMillis()));
         log.info("[ThreadLock] Message {} queued for thread {} at position {}", messageId, threadId, position);
         return position != null ? position : 0;
     }
 
+    /**
+     * Remove a ticket that gave up waiting (client disconnected or timed out).
+     * @param threadId The thread ID
+     * @param ticket The ticket passed to {@link #enqueue}
+     */
+    public void leaveQueue(UUID threadId, String ticket) {
+        try {
+            redisTemplate.opsForList().remove(queueKey(threadId), 1, ticket);
+            redisTemplate.opsForZSet().remove(heartbeatKey(threadId), ticket);
+        } catch (Exception e) {
+            log.warn("[ThreadLock] Failed to remove ticket {} from queue of thread {} (skipped once stale): {}",
+                    ticket, threadId, e.getMessage());
+        }
+    }
+
     /**
      * Get the next message from the thread's processing queue.
      * @param threadId The thread ID
@@ -136,6 +413,19 @@ public class ThreadLockService {
         return new ThreadLockStatus(locked, queuePosition);
     }
 
+    private String onAcquired(long fence, String nonce) {
+        String lockToken = fence + ":" + nonce;
+        acquiredAtNanos.put(lockToken, System.nanoTime());
+        return lockToken;
+    }
+
+    private void stopRenewal(String lockToken) {
+        Disposable renewal = leaseRenewals.remove(lockToken);
+        if (renewal != null) {
+            renewal.dispose();
+        }
+    }
+
     private String lockKey(UUID threadId) {
         return String.format(LOCK_KEY_FMT, threadId);
     }
@@ -144,6 +434,20 @@ public class ThreadLockService {
         return String.format(QUEUE_KEY_FMT, threadId);
     }
 
+    private String heartbeatKey(UUID threadId) {
+        return String.format(QUEUE_HEARTBEAT_KEY_FMT, threadId);
+    }
+
+    /**
+     * Result of a queued acquisition attempt: lockToken is set once acquired,
+     * otherwise position is the ticket's place in line (1 = next).
+     */
+    public record QueuedAcquire(String lockToken, long position) {
+        public boolean acquired() {
+            return lockToken != null;
+        }
+    }
+
     /**
      * Record holding thread lock status information
      */
@@ -163,5 +467,3 @@ public class ThreadLockService {
         }
     }
 }
-
-
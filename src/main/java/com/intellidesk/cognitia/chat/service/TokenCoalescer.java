@@ -0,0 +1,271 @@
+package com.intellidesk.cognitia.chat.service;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.Subscription;
+
+import reactor.core.CoreSubscriber;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxOperator;
+import reactor.core.publisher.Operators;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Coalesces streamed model tokens into line-sized batches for SSE.
+ * A batch is flushed when:
+ * 1. A chunk contains a newline (preserves markdown line structure)
+ * 2. Buffered text has waited maxDelay, checked by a scheduler tick so a stalled model still flushes
+ * 3. Buffered text exceeds maxChars (memory safety)
+ *
+ * Cancellation is forwarded upstream, and upstream is only asked for more chunks once every
+ * flushed batch has been taken by downstream. The line buffer is reused across batches.
+ * On completion or error the buffered tail is flushed before the terminal signal.
+ * Delays are measured on the scheduler's clock, so virtual time drives them in tests.
+ */
+public final class TokenCoalescer extends FluxOperator<String, String> {
+
+    private static final int PREFETCH = 64;
+    private static final long MIN_TICK_MILLIS = 10;
+
+    private final Duration maxDelay;
+    private final int maxChars;
+    private final Scheduler scheduler;
+
+    private TokenCoalescer(Flux<String> source, Duration maxDelay, int maxChars, Scheduler scheduler) {
+        super(source);
+        this.maxDelay = maxDelay;
+        this.maxChars = maxChars;
+        this.scheduler = scheduler;
+    }
+
+    public static Flux<String> coalesce(Flux<String> source, Duration maxDelay, int maxChars) {
+        return new TokenCoalescer(source, maxDelay, maxChars, Schedulers.parallel());
+    }
+
+    @Override
+    public void subscribe(CoreSubscriber<? super String> actual) {
+        source.subscribe(new CoalescingSubscriber(actual, maxDelay.toNanos(), maxChars, scheduler));
+    }
+
+    static final class CoalescingSubscriber implements CoreSubscriber<String>, Subscription, Runnable {
+
+        private final CoreSubscriber<? super String> actual;
+        private final long maxDelayNanos;
+        private final int maxChars;
+        private final Scheduler clock;
+        private final Scheduler.Worker worker;
+
+        private final StringBuilder lineBuffer = new StringBuilder(256);
+        private final Queue<String> ready = new ConcurrentLinkedQueue<>();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicLong replenish = new AtomicLong();
+
+        private Subscription upstream;
+        private Disposable tick;
+        private long bufferedSinceNanos;
+        private int consumed;
+        private volatile boolean done;
+        private volatile boolean cancelled;
+        private Throwable error;
+
+        CoalescingSubscriber(CoreSubscriber<? super String> actual, long maxDelayNanos, int maxChars,
+                             Scheduler scheduler) {
+            this.actual = actual;
+            this.maxDelayNanos = maxDelayNanos;
+            this.maxChars = maxChars;
+            this.clock = scheduler;
+            this.worker = scheduler.createWorker();
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (Operators.validate(this.upstream, s)) {
+                this.upstream = s;
+                actual.onSubscribe(this);
+                long period = Math.max(MIN_TICK_MILLIS, TimeUnit.NANOSECONDS.toMillis(maxDelayNanos) / 4);
+                tick = worker.schedulePeriodically(this, period, period, TimeUnit.MILLISECONDS);
+                s.request(PREFETCH);
+            }
+        }
+
+        @Override
+        public void onNext(String chunk) {
+            if (done) {
+                Operators.onNextDropped(chunk, actual.currentContext());
+                return;
+            }
+            synchronized (lineBuffer) {
+                if (lineBuffer.length() == 0) {
+                    bufferedSinceNanos = clock.now(TimeUnit.NANOSECONDS);
+                }
+                lineBuffer.append(chunk);
+                if (chunk.indexOf('\n') >= 0 || lineBuffer.length() > maxChars) {
+                    flushLocked();
+                }
+            }
+            // Replenish in batches; drain() only hands these to upstream once downstream caught up
+            if (++consumed == PREFETCH) {
+                consumed = 0;
+                replenish.addAndGet(PREFETCH);
+            }
+            drain();
+        }
+
+        /**
+         * Scheduler tick: flush text that has waited longer than maxDelay even if no chunk arrives.
+         */
+        @Override
+        public void run() {
+            if (done || cancelled) {
+                return;
+            }
+            boolean flushed = false;
+            synchronized (lineBuffer) {
+                if (lineBuffer.length() > 0 && clock.now(TimeUnit.NANOSECONDS) - bufferedSinceNanos >= maxDelayNanos) {
+                    flushLocked();
+                    flushed = true;
+                }
+            }
+            if (flushed) {
+                drain();
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (done) {
+                Operators.onErrorDropped(t, actual.currentContext());
+                return;
+            }
+            synchronized (lineBuffer) {
+                if (lineBuffer.length() > 0) {
+                    flushLocked();
+                }
+            }
+            error = t;
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            if (done) {
+                return;
+            }
+            synchronized (lineBuffer) {
+                if (lineBuffer.length() > 0) {
+                    flushLocked();
+                }
+            }
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (Operators.validate(n)) {
+                requested.getAndUpdate(r -> Operators.addCap(r, n));
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            upstream.cancel();
+            disposeTimer();
+            if (wip.getAndIncrement() == 0) {
+                clear();
+            }
+        }
+
+        private void flushLocked() {
+            ready.offer(lineBuffer.toString());
+            lineBuffer.setLength(0);
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                long r = requested.get();
+                long emitted = 0;
+                while (emitted != r) {
+                    if (cancelled) {
+                        clear();
+                        return;
+                    }
+                    boolean terminated = done;
+                    String batch = ready.poll();
+                    if (terminated && batch == null) {
+                        terminate();
+                        return;
+                    }
+                    if (batch == null) {
+                        break;
+                    }
+                    actual.onNext(batch);
+                    emitted++;
+                }
+                if (cancelled) {
+                    clear();
+                    return;
+                }
+                if (done && ready.isEmpty()) {
+                    terminate();
+                    return;
+                }
+                if (emitted != 0 && r != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+                if (ready.isEmpty()) {
+                    long n = replenish.getAndSet(0);
+                    if (n > 0) {
+                        upstream.request(n);
+                    }
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        private void terminate() {
+            disposeTimer();
+            Throwable e = error;
+            if (e != null) {
+                actual.onError(e);
+            } else {
+                actual.onComplete();
+            }
+        }
+
+        private void disposeTimer() {
+            if (tick != null) {
+                tick.dispose();
+            }
+            worker.dispose();
+        }
+
+        private void clear() {
+            ready.clear();
+            synchronized (lineBuffer) {
+                lineBuffer.setLength(0);
+            }
+        }
+    }
+}
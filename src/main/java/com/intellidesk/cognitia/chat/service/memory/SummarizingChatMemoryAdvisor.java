@@ -7,6 +7,11 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
 import java.util.stream.Collectors;
 
 import org.springframework.ai.chat.client.ChatClient;
@@ -22,17 +27,64 @@ import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.messages.SystemMessage;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import com.intellidesk.cognitia.chat.repository.RedisChatMemoryRepository;
+import com.intellidesk.cognitia.chat.service.ThreadLockService;
+import com.intellidesk.cognitia.common.Constants;
 
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 
+/**
+ * Chat memory advisor that sends older messages as a rolling summary and only the recent window verbatim.
+ *
+ * The summary is kept per conversation in a Redis hash together with a fingerprint of the run of messages
+ * ending with the last one it covers (up to {@value #COVERED_RUN_LENGTH} messages, with the run's length),
+ * so a message whose text repeats later in the conversation does not move the marker. After each response
+ * a background refresh folds the messages that aged out of the recent window into the previous summary, so
+ * the next turn normally finds it ready; a Redis lock per conversation keeps instances from running the
+ * same refresh twice. Messages that aged out since the last refresh are sent verbatim after the summary;
+ * only when there are more of them than maxStaleMessages (or no summary exists yet) does the request path
+ * wait for a refresh.
+ */
 @Slf4j
 public final class SummarizingChatMemoryAdvisor implements BaseChatMemoryAdvisor {
 
-    private static final String SUMMARY_CACHE_PREFIX = "cognitia:chat:summary:";
+    private static final String SUMMARY_KEY_PREFIX = "cognitia:chat:summary:";
+    private static final String FIELD_SUMMARY = "summary";
+    private static final String FIELD_THROUGH = "through";
     private static final Duration SUMMARY_TTL = Duration.ofHours(6);
+    private static final String REFRESH_LOCK_PREFIX = "cognitia:chat:summary-refresh:";
+    private static final Duration REFRESH_LOCK_TTL = Duration.ofMinutes(2);
+    private static final int COVERED_RUN_LENGTH = 4;
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = RedisScript.of(
+        """
+        if redis.call('get', KEYS[1]) == ARGV[1] then
+            return redis.call('del', KEYS[1])
+        end
+        return 0
+        """
+        , Long.class);
+
+    /**
+     * Stores a refreshed summary only if the summary it was built on (ARGV[1], '' for none) is still current,
+     * so a slower concurrent refresh cannot overwrite a newer one.
+     */
+    private static final RedisScript<Long> STORE_SCRIPT = RedisScript.of(
+        """
+        local current = redis.call('hget', KEYS[1], 'through')
+        if (current or '') ~= ARGV[1] then
+            return 0
+        end
+        redis.call('hset', KEYS[1], 'summary', ARGV[2], 'through', ARGV[3], 'updatedAt', ARGV[4])
+        redis.call('pexpire', KEYS[1], ARGV[5])
+        return 1
+        """
+        , Long.class);
 
     private final ChatMemory chatMemory;
     private final ChatClient summaryClient;
@@ -42,6 +94,10 @@ public final class SummarizingChatMemoryAdvisor implements BaseChatMemoryAdvisor
     private final Scheduler scheduler;
     private final int recentWindowSize;
     private final int summarizationThreshold;
+    private final ThreadLockService threadLockService;
+    private final int maxStaleMessages;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final ThreadFactory refreshThreadFactory = Thread.ofVirtual().name("chat-summary-", 0).factory();
 
     private SummarizingChatMemoryAdvisor(ChatMemory chatMemory,
                                          ChatClient summaryClient,
@@ -50,7 +106,9 @@ public final class SummarizingChatMemoryAdvisor implements BaseChatMemoryAdvisor
                                          int order,
                                          Scheduler scheduler,
                                          int recentWindowSize,
-                                         int summarizationThreshold) {
+                                         int summarizationThreshold,
+                                         ThreadLockService threadLockService,
+                                         int maxStaleMessages) {
         this.chatMemory = chatMemory;
         this.summaryClient = summaryClient;
         this.redisTemplate = redisTemplate;
@@ -59,6 +117,8 @@ public final class SummarizingChatMemoryAdvisor implements BaseChatMemoryAdvisor
         this.scheduler = scheduler;
         this.recentWindowSize = recentWindowSize;
         this.summarizationThreshold = summarizationThreshold;
+        this.threadLockService = threadLockService;
+        this.maxStaleMessages = maxStaleMessages;
     }
 
     @Override
@@ -104,7 +164,7 @@ public final class SummarizingChatMemoryAdvisor implements BaseChatMemoryAdvisor
                 .build();
 
         Message userMessage = processedRequest.prompt().getLastUserOrToolResponseMessage();
-        this.chatMemory.add(conversationId, userMessage);
+        addToMemory(conversationId, chatClientRequest.context(), List.of(userMessage));
 
         return processedRequest;
     }
@@ -120,8 +180,9 @@ public final class SummarizingChatMemoryAdvisor implements BaseChatMemoryAdvisor
                     .map(g -> (Message) g.getOutput())
                     .toList();
         }
-        this.chatMemory.add(conversationId, assistantMessages);
+        addToMemory(conversationId, chatClientResponse.context(), assistantMessages);
         log.info("[SummarizingMemory] after conversationId={} assistantMessagesSaved={}", conversationId, assistantMessages.size());
+        scheduleRefresh(conversationId);
         return chatClientResponse;
     }
 
@@ -138,57 +199,201 @@ public final class SummarizingChatMemoryAdvisor implements BaseChatMemoryAdvisor
                         response -> this.after(response, streamAdvisorChain)));
     }
 
+    /**
+     * Writes for the request's tenant (TenantContext is not set on the Reactor threads this runs on) and
+     * under its lock fence when it has one, so a stalled turn whose lease was taken over cannot
+     * interleave its messages with the new holder's. The repository checks the fence in the same script
+     * as the write and throws StaleThreadLockException if it is stale.
+     */
+    private void addToMemory(String conversationId, Map<String, Object> context, List<Message> messages) {
+        UUID tenantId = context.get(Constants.PARAM_TENANT_ID) instanceof String tenant ? UUID.fromString(tenant) : null;
+        String fenceKey = null;
+        Long fenceValue = null;
+        if (threadLockService != null && context.get(Constants.PARAM_LOCK_FENCE) instanceof Number fence) {
+            fenceKey = threadLockService.fenceKey(UUID.fromString(conversationId));
+            fenceValue = fence.longValue();
+        }
+        RedisChatMemoryRepository.writeScoped(tenantId, fenceKey, fenceValue,
+                () -> this.chatMemory.add(conversationId, messages));
+    }
+
     private List<Message> buildSummarizedMessages(String conversationId, List<Message> allMessages) {
         int splitPoint = allMessages.size() - recentWindowSize;
         List<Message> olderMessages = allMessages.subList(0, splitPoint);
         List<Message> recentMessages = allMessages.subList(splitPoint, allMessages.size());
 
-        String summary = getOrCreateSummary(conversationId, olderMessages);
+        SummaryState state = readState(conversationId);
+        int pendingFrom = pendingFrom(olderMessages, state);
+        int pending = olderMessages.size() - pendingFrom;
+        String summary = state.summary();
+        if (summary == null || pending > maxStaleMessages) {
+            log.info("[SummarizingMemory] summary=refreshing-inline conversationId={} hasSummary={} pendingMessages={} maxStale={}",
+                    conversationId, summary != null, pending, maxStaleMessages);
+            SummaryState refreshed = refresh(conversationId, state, olderMessages);
+            if (refreshed != null) {
+                summary = refreshed.summary();
+                pendingFrom = olderMessages.size();
+            } else if (summary == null) {
+                summary = truncateFallback(olderMessages);
+                pendingFrom = olderMessages.size();
+            }
+        } else {
+            log.info("[SummarizingMemory] summary=ready conversationId={} pendingMessages={}", conversationId, pending);
+        }
 
         List<Message> result = new ArrayList<>();
         result.add(new SystemMessage("Summary of earlier conversation:\n" + summary));
+        // Aged out since the last refresh: sent verbatim until the background refresh folds them in
+        result.addAll(olderMessages.subList(pendingFrom, olderMessages.size()));
         result.addAll(recentMessages);
         return result;
     }
 
-    private String getOrCreateSummary(String conversationId, List<Message> messagesToSummarize) {
-        String contentHash = computeHash(messagesToSummarize);
-        String cacheKey = SUMMARY_CACHE_PREFIX + conversationId + ":" + contentHash;
-
-        String cached = redisTemplate.opsForValue().get(cacheKey);
-        if (cached != null) {
-            log.info("[SummarizingMemory] summaryCache=hit conversationId={} messagesSummarized={} hash={}", conversationId, messagesToSummarize.size(), contentHash);
-            return cached;
+    /**
+     * Folds the conversation's newly aged-out messages into its summary on a virtual thread.
+     * At most one refresh per conversation runs at a time: the local set avoids a Redis round trip for
+     * refreshes already running here, the SET NX lock covers the other instances.
+     */
+    private void scheduleRefresh(String conversationId) {
+        if (!refreshing.add(conversationId)) {
+            return;
         }
+        String lockKey = REFRESH_LOCK_PREFIX + conversationId;
+        String token = UUID.randomUUID().toString();
+        try {
+            if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(lockKey, token, REFRESH_LOCK_TTL))) {
+                refreshing.remove(conversationId);
+                return;
+            }
+        } catch (Exception e) {
+            // The next turn refreshes inline if the summary falls too far behind
+            log.warn("[SummarizingMemory] refreshLockFailed conversationId={} error={}", conversationId, e.getMessage());
+            refreshing.remove(conversationId);
+            return;
+        }
+        refreshThreadFactory.newThread(() -> {
+            try {
+                List<Message> allMessages = this.chatMemory.get(conversationId);
+                if (allMessages.size() > summarizationThreshold) {
+                    refresh(conversationId, readState(conversationId),
+                            allMessages.subList(0, allMessages.size() - recentWindowSize));
+                }
+            } catch (Exception e) {
+                log.warn("[SummarizingMemory] backgroundRefreshFailed conversationId={} error={}", conversationId, e.getMessage());
+            } finally {
+                releaseRefreshLock(lockKey, token);
+                refreshing.remove(conversationId);
+            }
+        }).start();
+    }
 
-        log.info("[SummarizingMemory] summaryCache=miss conversationId={} generating summary for messages={}", conversationId, messagesToSummarize.size());
+    private void releaseRefreshLock(String lockKey, String token) {
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(lockKey), token);
+        } catch (Exception e) {
+            log.warn("[SummarizingMemory] refreshUnlockFailed key={} error={}", lockKey, e.getMessage());
+        }
+    }
 
-        String transcript = messagesToSummarize.stream()
+    /**
+     * Summarizes the previous summary plus the older messages it does not cover yet and stores the result.
+     *
+     * @return the up-to-date state, or null if the summary could not be generated
+     */
+    private SummaryState refresh(String conversationId, SummaryState state, List<Message> olderMessages) {
+        int from = pendingFrom(olderMessages, state);
+        if (from >= olderMessages.size()) {
+            return state;
+        }
+        List<Message> newMessages = olderMessages.subList(from, olderMessages.size());
+        String transcript = newMessages.stream()
                 .map(m -> m.getMessageType().name() + ": " + m.getText())
                 .collect(Collectors.joining("\n"));
 
         String summary;
         try {
-            summary = summaryClient.prompt()
-                    .system("""
-                            You are a conversation summarizer. Produce a concise 2-4 sentence summary \
-                            of the following conversation transcript. Preserve key facts, decisions, \
-                            names, numbers, and any commitments made. Do NOT add any preamble or \
-                            explanation — output ONLY the summary text.""")
-                    .user(transcript)
-                    .call()
-                    .content();
+            summary = state.summary() == null
+                    ? summaryClient.prompt()
+                        .system("""
+                                You are a conversation summarizer. Produce a concise 2-4 sentence summary \
+                                of the following conversation transcript. Preserve key facts, decisions, \
+                                names, numbers, and any commitments made. Do NOT add any preamble or \
+                                explanation — output ONLY the summary text.""")
+                        .user(transcript)
+                        .call()
+                        .content()
+                    : summaryClient.prompt()
+                        .system("""
+                                You maintain a running summary of a conversation. Update the current summary \
+                                with the new messages in a concise 2-4 sentences. Preserve key facts, decisions, \
+                                names, numbers, and any commitments made from both. Do NOT add any preamble or \
+                                explanation — output ONLY the updated summary text.""")
+                        .user("Current summary:\n" + state.summary() + "\n\nNew messages:\n" + transcript)
+                        .call()
+                        .content();
         } catch (Exception e) {
-            log.warn("[SummarizingMemory] summaryGenerationFailed conversationId={} error={} usingTruncationFallback messagesKept=4", conversationId, e.getMessage());
-            summary = truncateFallback(messagesToSummarize);
+            log.warn("[SummarizingMemory] summaryGenerationFailed conversationId={} error={}", conversationId, e.getMessage());
+            return null;
+        }
+        if (summary == null || summary.isBlank()) {
+            return null;
         }
 
-        if (summary != null && !summary.isBlank()) {
-            redisTemplate.opsForValue().set(cacheKey, summary, SUMMARY_TTL);
-            log.info("[SummarizingMemory] summaryCached conversationId={} hash={} ttlHours={}", conversationId, contentHash, SUMMARY_TTL.toHours());
+        SummaryState updated = new SummaryState(summary.trim(), coveredMarker(olderMessages));
+        boolean stored = false;
+        try {
+            Long result = redisTemplate.execute(STORE_SCRIPT, List.of(SUMMARY_KEY_PREFIX + conversationId),
+                    state.through() != null ? state.through() : "",
+                    updated.summary(),
+                    updated.through(),
+                    String.valueOf(System.currentTimeMillis()),
+                    String.valueOf(SUMMARY_TTL.toMillis()));
+            stored = Long.valueOf(1).equals(result);
+        } catch (Exception e) {
+            log.warn("[SummarizingMemory] summaryStoreFailed conversationId={} error={}", conversationId, e.getMessage());
+        }
+        log.info("[SummarizingMemory] summaryRefreshed conversationId={} newMessages={} stored={}",
+                conversationId, newMessages.size(), stored);
+        return updated;
+    }
+
+    private SummaryState readState(String conversationId) {
+        try {
+            Map<Object, Object> fields = redisTemplate.opsForHash().entries(SUMMARY_KEY_PREFIX + conversationId);
+            return new SummaryState((String) fields.get(FIELD_SUMMARY), (String) fields.get(FIELD_THROUGH));
+        } catch (Exception e) {
+            log.warn("[SummarizingMemory] summaryReadFailed conversationId={} error={}", conversationId, e.getMessage());
+            return new SummaryState(null, null);
+        }
+    }
+
+    /**
+     * Index of the first older message the summary does not cover: the end of the latest run of messages
+     * matching the stored marker. The window only drops its oldest messages, so if that run is no longer
+     * in it, every older message is new.
+     */
+    private int pendingFrom(List<Message> olderMessages, SummaryState state) {
+        if (state.through() == null) {
+            return 0;
+        }
+        // "<run length>:<hash>"; markers written before runs were fingerprinted are a single message's hash
+        int sep = state.through().indexOf(':');
+        int runLength = sep > 0 ? Integer.parseInt(state.through().substring(0, sep)) : 1;
+        String hash = sep > 0 ? state.through().substring(sep + 1) : state.through();
+        for (int end = olderMessages.size(); end >= runLength; end--) {
+            if (hash.equals(computeHash(olderMessages.subList(end - runLength, end)))) {
+                return end;
+            }
         }
+        return 0;
+    }
 
-        return summary != null ? summary : "";
+    /**
+     * Marker for a summary covering all of olderMessages: the length and hash of its last messages.
+     */
+    private String coveredMarker(List<Message> olderMessages) {
+        List<Message> run = olderMessages.subList(Math.max(0, olderMessages.size() - COVERED_RUN_LENGTH), olderMessages.size());
+        return run.size() + ":" + computeHash(run);
     }
 
     private String truncateFallback(List<Message> messages) {
@@ -229,6 +434,8 @@ public final class SummarizingChatMemoryAdvisor implements BaseChatMemoryAdvisor
         private Scheduler scheduler = BaseAdvisor.DEFAULT_SCHEDULER;
         private int recentWindowSize = 8;
         private int summarizationThreshold = 10;
+        private ThreadLockService threadLockService;
+        private int maxStaleMessages = 6;
 
         private Builder(ChatMemory chatMemory) {
             this.chatMemory = chatMemory;
@@ -269,6 +476,16 @@ public final class SummarizingChatMemoryAdvisor implements BaseChatMemoryAdvisor
             return this;
         }
 
+        public Builder threadLockService(ThreadLockService threadLockService) {
+            this.threadLockService = threadLockService;
+            return this;
+        }
+
+        public Builder maxStaleMessages(int maxStaleMessages) {
+            this.maxStaleMessages = maxStaleMessages;
+            return this;
+        }
+
         public SummarizingChatMemoryAdvisor build() {
             if (this.summaryClient == null) {
                 throw new IllegalArgumentException("summaryClient is required");
@@ -284,7 +501,12 @@ public final class SummarizingChatMemoryAdvisor implements BaseChatMemoryAdvisor
                     this.order,
                     this.scheduler,
                     this.recentWindowSize,
-                    this.summarizationThreshold);
+                    this.summarizationThreshold,
+                    this.threadLockService,
+                    this.maxStaleMessages);
         }
     }
+
+    private record SummaryState(String summary, String through) {
+    }
 }
@@ -0,0 +1,231 @@
+package com.intellidesk.cognitia.chat.service.tools;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.execution.ToolExecutionException;
+import org.springframework.ai.tool.execution.ToolExecutionExceptionProcessor;
+import org.springframework.ai.tool.resolution.ToolCallbackResolver;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import com.intellidesk.cognitia.userandauth.multiteancy.TenantContext;
+
+import io.micrometer.observation.ObservationRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs the independent tool calls of one assistant message concurrently on virtual threads,
+ * bounded per request by cognitia.chat.tools.parallel.max-concurrency. Responses are returned
+ * in the order the model asked for them. Each tool still goes through its {@link TimelineToolCallbackProvider}
+ * wrapper, so toolStart/toolResult steps are emitted as before; if the client disconnects the
+ * in-flight calls are interrupted.
+ *
+ * Single calls, return-direct tools and tools not passed on the request fall back to Spring AI's
+ * default manager, which also handles tool definition resolution.
+ */
+@Component
+@Slf4j
+public class ConcurrentToolCallingManager implements ToolCallingManager {
+
+    private static final long CANCEL_POLL_MILLIS = 200;
+
+    private final ToolCallingManager delegate;
+    private final ToolExecutionExceptionProcessor exceptionProcessor;
+    private final boolean enabled;
+    private final int maxConcurrency;
+
+    public ConcurrentToolCallingManager(ToolCallbackResolver toolCallbackResolver,
+                                        ToolExecutionExceptionProcessor exceptionProcessor,
+                                        ObjectProvider<ObservationRegistry> observationRegistry,
+                                        @Value("${cognitia.chat.tools.parallel.enabled:true}") boolean enabled,
+                                        @Value("${cognitia.chat.tools.parallel.max-concurrency:4}") int maxConcurrency) {
+        this.delegate = ToolCallingManager.builder()
+                .toolCallbackResolver(toolCallbackResolver)
+                .toolExecutionExceptionProcessor(exceptionProcessor)
+                .observationRegistry(observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP))
+                .build();
+        this.exceptionProcessor = exceptionProcessor;
+        this.enabled = enabled;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+    }
+
+    @Override
+    public List<ToolDefinition> resolveToolDefinitions(ToolCallingChatOptions chatOptions) {
+        return delegate.resolveToolDefinitions(chatOptions);
+    }
+
+    @Override
+    public ToolExecutionResult executeToolCalls(Prompt prompt, ChatResponse chatResponse) {
+        Optional<AssistantMessage> toolCallMessage = chatResponse.getResults().stream()
+                .map(Generation::getOutput)
+                .filter(AssistantMessage::hasToolCalls)
+                .findFirst();
+        if (!enabled || toolCallMessage.isEmpty()
+                || !(prompt.getOptions() instanceof ToolCallingChatOptions options)) {
+            return delegate.executeToolCalls(prompt, chatResponse);
+        }
+
+        AssistantMessage assistantMessage = toolCallMessage.get();
+        List<AssistantMessage.ToolCall> toolCalls = assistantMessage.getToolCalls();
+        List<ToolCallback> callbacks = resolveCallbacks(toolCalls, options);
+        if (toolCalls.size() < 2 || callbacks == null) {
+            return delegate.executeToolCalls(prompt, chatResponse);
+        }
+
+        ToolContext toolContext = buildToolContext(prompt, assistantMessage, options);
+        List<ToolResponseMessage.ToolResponse> responses = executeConcurrently(toolCalls, callbacks, toolContext);
+
+        List<Message> conversationHistory = new ArrayList<>(prompt.getInstructions());
+        conversationHistory.add(assistantMessage);
+        conversationHistory.add(ToolResponseMessage.builder().responses(responses).build());
+        return ToolExecutionResult.builder()
+                .conversationHistory(conversationHistory)
+                .returnDirect(false)
+                .build();
+    }
+
+    /**
+     * Callbacks for each tool call in order, or null if any of them must take the default path.
+     */
+    private List<ToolCallback> resolveCallbacks(List<AssistantMessage.ToolCall> toolCalls, ToolCallingChatOptions options) {
+        Map<String, ToolCallback> byName = new HashMap<>();
+        for (ToolCallback callback : options.getToolCallbacks()) {
+            byName.put(callback.getToolDefinition().name(), callback);
+        }
+        List<ToolCallback> resolved = new ArrayList<>(toolCalls.size());
+        for (AssistantMessage.ToolCall toolCall : toolCalls) {
+            ToolCallback callback = byName.get(toolCall.name());
+            if (callback == null || callback.getToolMetadata().returnDirect()) {
+                return null;
+            }
+            resolved.add(callback);
+        }
+        return resolved;
+    }
+
+    private ToolContext buildToolContext(Prompt prompt, AssistantMessage assistantMessage, ToolCallingChatOptions options) {
+        Map<String, Object> context = new HashMap<>();
+        if (options.getToolContext() != null && !options.getToolContext().isEmpty()) {
+            context.putAll(options.getToolContext());
+            List<Message> history = new ArrayList<>(prompt.getInstructions());
+            history.add(assistantMessage);
+            context.put(ToolContext.TOOL_CALL_HISTORY, history);
+        }
+        return new ToolContext(context);
+    }
+
+    private List<ToolResponseMessage.ToolResponse> executeConcurrently(List<AssistantMessage.ToolCall> toolCalls,
+                                                                       List<ToolCallback> callbacks,
+                                                                       ToolContext toolContext) {
+        // Tools run on fresh virtual threads, so carry over what the request thread had bound. Streamed
+        // turns call tools from scheduler threads without a TenantContext; the tool context names the tenant.
+        UUID tenantId = TenantContext.getTenantId();
+        if (tenantId == null && toolContext.getContext().get("tenantId") instanceof String tenant && !tenant.isBlank()) {
+            tenantId = UUID.fromString(tenant);
+        }
+        UUID toolTenantId = tenantId;
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        Semaphore permits = new Semaphore(maxConcurrency);
+        long start = System.currentTimeMillis();
+
+        List<Future<String>> futures = new ArrayList<>(toolCalls.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < toolCalls.size(); i++) {
+                AssistantMessage.ToolCall toolCall = toolCalls.get(i);
+                ToolCallback callback = callbacks.get(i);
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    TenantContext.setTenantId(toolTenantId);
+                    SecurityContextHolder.setContext(securityContext);
+                    try {
+                        return callback.call(toolCall.arguments(), toolContext);
+                    } catch (ToolExecutionException e) {
+                        return exceptionProcessor.process(e);
+                    } finally {
+                        SecurityContextHolder.clearContext();
+                        TenantContext.clear();
+                        permits.release();
+                    }
+                }));
+            }
+
+            List<ToolResponseMessage.ToolResponse> responses = new ArrayList<>(toolCalls.size());
+            for (int i = 0; i < toolCalls.size(); i++) {
+                AssistantMessage.ToolCall toolCall = toolCalls.get(i);
+                String result = awaitResult(futures.get(i), toolCall.name(), callbacks, futures);
+                responses.add(new ToolResponseMessage.ToolResponse(toolCall.id(), toolCall.name(), result != null ? result : ""));
+            }
+            log.info("[ConcurrentToolCallingManager] Executed {} tool calls concurrently in {}ms (maxConcurrency={})",
+                    toolCalls.size(), System.currentTimeMillis() - start, maxConcurrency);
+            return responses;
+        }
+    }
+
+    /**
+     * Waits for one call, interrupting every in-flight call once the request's client has gone.
+     */
+    private String awaitResult(Future<String> future, String toolName, List<ToolCallback> callbacks,
+                               List<Future<String>> allFutures) {
+        while (true) {
+            if (isClientGone(callbacks)) {
+                allFutures.forEach(f -> f.cancel(true));
+                log.info("[ConcurrentToolCallingManager] Client disconnected, cancelled tool {}", toolName);
+                return "{\"error\":true,\"tool\":\"" + toolName + "\",\"message\":\"Request cancelled\"}";
+            }
+            try {
+                return future.get(CANCEL_POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // poll the timeline again
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                allFutures.forEach(f -> f.cancel(true));
+                throw new IllegalStateException("Interrupted while waiting for tool " + toolName, e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw new IllegalStateException("Tool " + toolName + " failed", cause);
+            } catch (CancellationException e) {
+                return "{\"error\":true,\"tool\":\"" + toolName + "\",\"message\":\"Request cancelled\"}";
+            }
+        }
+    }
+
+    private boolean isClientGone(List<ToolCallback> callbacks) {
+        for (ToolCallback callback : callbacks) {
+            if (callback instanceof TimelineToolCallbackProvider.TimedToolCallback timed && timed.isCancelled()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
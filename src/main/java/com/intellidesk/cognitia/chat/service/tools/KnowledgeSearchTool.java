@@ -12,8 +12,6 @@ import org.springframework.ai.chat.model.ToolContext;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
-import org.springframework.ai.vectorstore.SearchRequest;
-import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -23,18 +21,27 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.intellidesk.cognitia.chat.models.dtos.AccessPolicy;
 import com.intellidesk.cognitia.chat.models.dtos.SourceReference;
 import com.intellidesk.cognitia.chat.service.FilterExpressionBuilder;
+import com.intellidesk.cognitia.chat.service.HybridKnowledgeRetriever;
+import com.intellidesk.cognitia.chat.service.KnowledgeRetrievalCache;
+import com.intellidesk.cognitia.chat.service.RetrievalDiversifier;
 
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Agentic RAG tool -- lets the LLM search the tenant's ingested knowledge base
  * on-demand with a focused query, instead of always pre-fetching docs.
+ * The query is first rewritten against the recent conversation (memoized per query and context), and
+ * results are cached per policy and rewritten query (see {@link KnowledgeRetrievalCache}), so a repeated
+ * search skips the embedding and the vector search even when the conversation has moved on. When enabled,
+ * {@link RetrievalDiversifier} over-fetches and drops near-duplicate chunks before they reach the prompt.
  */
 @Component
 @Slf4j
 public class KnowledgeSearchTool implements TimelineAwareTool {
 
-    private final VectorStore vectorStore;
+    private final HybridKnowledgeRetriever retriever;
+    private final KnowledgeRetrievalCache retrievalCache;
+    private final RetrievalDiversifier diversifier;
     private final ObjectMapper objectMapper;
     private final ChatClient lightClient;
     private final ChatMemory chatMemory;
@@ -43,14 +50,19 @@ public class KnowledgeSearchTool implements TimelineAwareTool {
 
     private static final int DEFAULT_TOP_K = 5;
     private static final double DEFAULT_SIMILARITY_THRESHOLD = 0.50;
+    private static final TypeReference<List<KnowledgeResult>> RESULTS_TYPE = new TypeReference<>() {};
 
-    public KnowledgeSearchTool(VectorStore vectorStore,
+    public KnowledgeSearchTool(HybridKnowledgeRetriever retriever,
+                               KnowledgeRetrievalCache retrievalCache,
+                               RetrievalDiversifier diversifier,
                                ObjectMapper objectMapper,
                                @Qualifier("lightClient") ChatClient lightClient,
                                ChatMemory chatMemory,
                                @Value("${cognitia.chat.contextual-search.enabled:true}") boolean contextualSearchEnabled,
                                @Value("${cognitia.chat.contextual-search.history-window:5}") int historyWindow) {
-        this.vectorStore = vectorStore;
+        this.retriever = retriever;
+        this.retrievalCache = retrievalCache;
+        this.diversifier = diversifier;
         this.objectMapper = objectMapper;
         this.lightClient = lightClient;
         this.chatMemory = chatMemory;
@@ -90,24 +102,25 @@ public class KnowledgeSearchTool implements TimelineAwareTool {
         int resolvedTopK = (topK != null && topK >= 1 && topK <= 10) ? topK : DEFAULT_TOP_K;
         String filterExpression = FilterExpressionBuilder.build(accessPolicy, sourceFormat);
 
-        String searchQuery = query;
-        if (contextualSearchEnabled) {
-            searchQuery = rewriteQueryWithContext(query, toolContext);
-        }
-
-        log.info("KnowledgeSearch - originalQuery='{}', searchQuery='{}', topK={}, tenantId={}, filter='{}'",
-                query, searchQuery, resolvedTopK, tenantId, filterExpression);
-
-        SearchRequest.Builder builder = SearchRequest.builder()
-                .query(searchQuery)
-                .topK(resolvedTopK)
-                .similarityThreshold(DEFAULT_SIMILARITY_THRESHOLD)
-                .filterExpression(filterExpression);
+        String history = contextualSearchEnabled ? recentHistory(toolContext) : null;
 
         try {
-            List<Document> documents = vectorStore.similaritySearch(builder.build());
-            log.info("KnowledgeSearch - found {} documents for query='{}'", documents.size(), query);
-            return documents.stream().map(this::toKnowledgeResult).collect(Collectors.toList());
+            String rewritten = history != null
+                    ? retrievalCache.rewriteOrLoad(tenantId, query, history, () -> rewriteQueryWithContext(query, history))
+                    : null;
+            String searchQuery = rewritten != null ? rewritten : query;
+            return retrievalCache.getOrLoad(accessPolicy, searchQuery, resolvedTopK, sourceFormat, RESULTS_TYPE, () -> {
+                log.info("KnowledgeSearch - originalQuery='{}', searchQuery='{}', topK={}, tenantId={}, filter='{}'",
+                        query, searchQuery, resolvedTopK, tenantId, filterExpression);
+
+                List<Document> documents = retriever.search(searchQuery, diversifier.candidatesFor(resolvedTopK),
+                        DEFAULT_SIMILARITY_THRESHOLD, accessPolicy, sourceFormat);
+                if (diversifier.enabled()) {
+                    documents = diversifier.diversify(tenantId, documents, resolvedTopK);
+                }
+                log.info("KnowledgeSearch - found {} documents for query='{}'", documents.size(), query);
+                return documents.stream().map(this::toKnowledgeResult).collect(Collectors.toList());
+            });
         } catch (Exception e) {
             log.error("KnowledgeSearch failed for query='{}': {}", query, e.getMessage(), e);
             return List.of();
@@ -115,27 +128,44 @@ public class KnowledgeSearchTool implements TimelineAwareTool {
     }
 
     private AccessPolicy resolveAccessPolicy(ToolContext toolContext) {
-        if (toolContext != null && toolContext.getContext().containsKey("accessPolicy")) {
-            return AccessPolicy.deserialize((String) toolContext.getContext().get("accessPolicy"));
+        Object policy = toolContext != null ? toolContext.getContext().get("accessPolicy") : null;
+        if (policy instanceof AccessPolicy accessPolicy) {
+            return accessPolicy;
+        }
+        if (policy instanceof String json) {
+            return AccessPolicy.deserialize(json);
         }
         return null;
     }
 
-    private String rewriteQueryWithContext(String originalQuery, ToolContext toolContext) {
+    /**
+     * The recent conversation the query is rewritten against, or null when there is none.
+     */
+    private String recentHistory(ToolContext toolContext) {
         try {
             String conversationId = resolveConversationId(toolContext);
-            if (conversationId == null) return originalQuery;
+            if (conversationId == null) return null;
 
             List<Message> messages = chatMemory.get(conversationId);
-            if (messages == null || messages.isEmpty()) return originalQuery;
+            if (messages == null || messages.isEmpty()) return null;
 
             int limit = Math.min(messages.size(), historyWindow * 2);
             List<Message> recentMessages = messages.subList(messages.size() - limit, messages.size());
 
-            String recentHistory = recentMessages.stream()
+            return recentMessages.stream()
                     .map(m -> m.getMessageType().name() + ": " + truncateText(m.getText(), 200))
                     .collect(Collectors.joining("\n"));
+        } catch (Exception e) {
+            log.warn("Loading conversation history failed, searching without context: {}", e.getMessage());
+            return null;
+        }
+    }
 
+    /**
+     * The query rewritten against the conversation, or null when rewriting failed.
+     */
+    private String rewriteQueryWithContext(String originalQuery, String recentHistory) {
+        try {
             String rewritten = lightClient.prompt()
                     .user("""
                             Given this conversation history:
@@ -156,7 +186,7 @@ public class KnowledgeSearchTool implements TimelineAwareTool {
         } catch (Exception e) {
             log.warn("Query rewriting failed, using original query: {}", e.getMessage());
         }
-        return originalQuery;
+        return null;
     }
 
     private String resolveConversationId(ToolContext toolContext) {
@@ -1,11 +1,16 @@
 package com.intellidesk.cognitia.chat.service.tools;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.ai.chat.model.ToolContext;
 import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.augment.AugmentedArgumentEvent;
 import org.springframework.ai.tool.augment.AugmentedToolCallbackProvider;
 import org.springframework.ai.tool.definition.ToolDefinition;
 import org.springframework.ai.tool.metadata.ToolMetadata;
@@ -22,69 +27,97 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class TimelineToolCallbackProvider {
 
+    /**
+     * Timeline of the tool call running on this thread. Bound by {@link TimedToolCallback} around the
+     * delegate call so the shared, precompiled argument consumer can reach the request's timeline.
+     */
+    private static final ThreadLocal<AgentTimelineContext> ACTIVE_TIMELINE = new ThreadLocal<>();
+
     private final ObjectMapper objectMapper;
     private final ToolRegistryService toolRegistry;
+    private final Map<Object, ToolCallback[]> compiledByToolObject = new IdentityHashMap<>();
+    private final Map<List<Object>, ToolCallback[]> compiledBySelection = new ConcurrentHashMap<>();
 
     public TimelineToolCallbackProvider(ObjectMapper objectMapper, ToolRegistryService toolRegistry) {
         this.objectMapper = objectMapper;
         this.toolRegistry = toolRegistry;
-        log.info("TimelineToolCallbackProvider initialized with ToolRegistryService");
+
+        // Tool definitions and AgentThinking schemas are built once here instead of on every request
+        long start = System.nanoTime();
+        for (Object toolObject : toolRegistry.getAllToolObjects()) {
+            compiledByToolObject.put(toolObject, AugmentedToolCallbackProvider
+                    .<AgentThinking>builder()
+                    .toolObject(toolObject)
+                    .argumentType(AgentThinking.class)
+                    .argumentConsumer(this::onToolArguments)
+                    .removeExtraArgumentsAfterProcessing(true)
+                    .build()
+                    .getToolCallbacks());
+        }
+        log.info("TimelineToolCallbackProvider initialized with ToolRegistryService, precompiled {} tool objects in {}ms",
+                compiledByToolObject.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
     }
 
     public ToolCallback[] createAugmentedToolCallbacks(AgentTimelineContext timeline) {
-        return createAugmentedToolCallbacks(timeline, toolRegistry.getAllToolObjects().toArray());
+        return createAugmentedToolCallbacks(timeline, toolRegistry.getAllToolObjects());
     }
 
     public ToolCallback[] createAugmentedToolCallbacks(AgentTimelineContext timeline, List<String> stableToolIds) {
-        List<Object> toolObjects = toolRegistry.resolveToolObjectsByStableIds(stableToolIds);
-        return createAugmentedToolCallbacks(timeline, toolObjects.toArray());
+        return createAugmentedToolCallbacks(timeline, toolRegistry.resolveToolObjectsByStableIds(stableToolIds));
     }
 
-    private ToolCallback[] createAugmentedToolCallbacks(AgentTimelineContext timeline, Object... toolObjects) {
-        List<ToolCallback> allCallbacks = new ArrayList<>();
+    /**
+     * Binds the request's timeline to the precompiled callbacks of this tool selection.
+     */
+    private ToolCallback[] createAugmentedToolCallbacks(AgentTimelineContext timeline, List<Object> toolObjects) {
+        ToolCallback[] compiled = compiledBySelection.computeIfAbsent(List.copyOf(toolObjects), this::compileSelection);
+        ToolCallback[] bound = new ToolCallback[compiled.length];
+        for (int i = 0; i < compiled.length; i++) {
+            bound[i] = new TimedToolCallback(compiled[i], timeline, toolRegistry);
+        }
+        return bound;
+    }
 
+    private ToolCallback[] compileSelection(List<Object> toolObjects) {
+        List<ToolCallback> callbacks = new ArrayList<>();
         for (Object toolObject : toolObjects) {
-            AugmentedToolCallbackProvider<AgentThinking> augmented = AugmentedToolCallbackProvider
-                    .<AgentThinking>builder()
-                    .toolObject(toolObject)
-                    .argumentType(AgentThinking.class)
-                    .argumentConsumer(event -> {
-                        if (timeline == null)
-                            return;
-
-                        String toolName = event.toolDefinition().name();
-                        AgentThinking thinking = event.arguments();
-                        log.info(
-                                "[TimelineToolCallbackProvider] [createAugmentedToolCallback] AugmentedArgumentEvent arguments for tool: {} :: {}",
-                                toolName, thinking);
-                        log.info(
-                                "[TimelineToolCallbackProvider] [createAugmentedToolCallback] AugmentedArgumentEvent input for tool: {} :: {}",
-                                toolName, event.rawInput());
-                        Map<String, Object> args = parseArgs(event.rawInput());
-
-                        TimelineAwareTool aware = toolRegistry.getNativeToolBySpringName(toolName);
-                        String description = (aware != null && aware.timelineDescription() != null)
-                                ? aware.timelineDescription()
-                                : "Using " + toolName + "...";
-
-                        timeline.emitStep(AgentStep.toolStart(
-                            toolName,
-                            description,
-                            args,
-                            thinking != null ? thinking.innerThought() : null,
-                            thinking != null ? thinking.confidence() : null
-                        ));
-                    })
-                    .removeExtraArgumentsAfterProcessing(true)
-                    .build();
-
-            ToolCallback[] callbacks = augmented.getToolCallbacks();
-            for (ToolCallback cb : callbacks) {
-                allCallbacks.add(new TimedToolCallback(cb, timeline, toolRegistry));
+            ToolCallback[] compiled = compiledByToolObject.get(toolObject);
+            if (compiled == null) {
+                log.warn("[TimelineToolCallbackProvider] No precompiled callbacks for tool object {}", toolObject.getClass().getSimpleName());
+                continue;
             }
+            callbacks.addAll(Arrays.asList(compiled));
         }
+        return callbacks.toArray(ToolCallback[]::new);
+    }
 
-        return allCallbacks.toArray(ToolCallback[]::new);
+    private void onToolArguments(AugmentedArgumentEvent<AgentThinking> event) {
+        AgentTimelineContext timeline = ACTIVE_TIMELINE.get();
+        if (timeline == null)
+            return;
+
+        String toolName = event.toolDefinition().name();
+        AgentThinking thinking = event.arguments();
+        log.info(
+                "[TimelineToolCallbackProvider] [createAugmentedToolCallback] AugmentedArgumentEvent arguments for tool: {} :: {}",
+                toolName, thinking);
+        log.info(
+                "[TimelineToolCallbackProvider] [createAugmentedToolCallback] AugmentedArgumentEvent input for tool: {} :: {}",
+                toolName, event.rawInput());
+        Map<String, Object> args = parseArgs(event.rawInput());
+
+        TimelineAwareTool aware = toolRegistry.getNativeToolBySpringName(toolName);
+        String description = (aware != null && aware.timelineDescription() != null)
+                ? aware.timelineDescription()
+                : "Using " + toolName + "...";
+
+        timeline.emitStep(AgentStep.toolStart(
+            toolName,
+            description,
+            args,
+            thinking != null ? thinking.innerThought() : null,
+            thinking != null ? thinking.confidence() : null
+        ));
     }
 
     @SuppressWarnings("unchecked")
@@ -120,6 +153,10 @@ public class TimelineToolCallbackProvider {
             return delegate.getToolMetadata();
         }
 
+        boolean isCancelled() {
+            return timeline != null && timeline.isCancelled();
+        }
+
         @Override
         public String call(String toolInput) {
             return call(toolInput, null);
@@ -136,6 +173,7 @@ public class TimelineToolCallbackProvider {
 
             long start = System.currentTimeMillis();
 
+            ACTIVE_TIMELINE.set(timeline);
             try {
                 String result = toolContext != null
                         ? delegate.call(toolInput, toolContext)
@@ -163,6 +201,8 @@ public class TimelineToolCallbackProvider {
                 }
                 log.error("[TimedToolCallback] Tool {} failed after {}ms", toolName, duration, e);
                 return errorPayload;
+            } finally {
+                ACTIVE_TIMELINE.remove();
             }
         }
 
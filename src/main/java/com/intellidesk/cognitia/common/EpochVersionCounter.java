@@ -0,0 +1,109 @@
+package com.intellidesk.cognitia.common;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-tenant version counter in Redis that cached entries are stamped with. A missing key starts at a
+ * random epoch, so a version that restarts after Redis lost the key never repeats one that entries were
+ * stamped with. A failed bump drops the key instead; if that fails too, the tenant is kept until
+ * {@link #retryPendingInvalidations()} gets the drop through.
+ */
+@Slf4j
+public class EpochVersionCounter {
+
+    private static final RedisScript<Long> SEED_SCRIPT = RedisScript.of("""
+            redis.call('set', KEYS[1], ARGV[1], 'NX')
+            return tonumber(redis.call('get', KEYS[1]))
+            """, Long.class);
+
+    private static final RedisScript<Long> BUMP_SCRIPT = RedisScript.of("""
+            if redis.call('exists', KEYS[1]) == 0 then
+                redis.call('set', KEYS[1], ARGV[1])
+                return tonumber(ARGV[1])
+            end
+            return redis.call('incr', KEYS[1])
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String keyFormat;
+    private final String name;
+
+    // Tenants whose bump failed; their version key is dropped as soon as Redis answers again
+    private final Set<UUID> pendingInvalidations = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param keyFormat the version key with a %s for the tenant id
+     * @param name      tag of this counter's log lines
+     */
+    public EpochVersionCounter(StringRedisTemplate redisTemplate, String keyFormat, String name) {
+        this.redisTemplate = redisTemplate;
+        this.keyFormat = keyFormat;
+        this.name = name;
+    }
+
+    public String key(UUID tenantId) {
+        return String.format(keyFormat, tenantId);
+    }
+
+    /**
+     * Returns the tenant's version, seeding a random epoch if it has none. Redis errors propagate.
+     */
+    public long current(UUID tenantId) {
+        Long version = redisTemplate.execute(SEED_SCRIPT, List.of(key(tenantId)), String.valueOf(newEpoch()));
+        return version != null ? version : 0L;
+    }
+
+    /**
+     * Increments the tenant's version (seeding a random epoch if it has none), or drops the key when
+     * Redis rejects the increment.
+     */
+    public void bump(UUID tenantId) {
+        try {
+            Long version = redisTemplate.execute(BUMP_SCRIPT, List.of(key(tenantId)), String.valueOf(newEpoch()));
+            pendingInvalidations.remove(tenantId);
+            log.info("[{}] tenantId={} version={}", name, tenantId, version);
+        } catch (Exception e) {
+            log.error("[{}] Failed to bump version for tenant {}: {}", name, tenantId, e.getMessage(), e);
+            invalidate(tenantId);
+        }
+    }
+
+    /**
+     * Retries the invalidation of every tenant whose bump failed. Owners call this on a schedule.
+     */
+    public void retryPendingInvalidations() {
+        for (UUID tenantId : pendingInvalidations) {
+            invalidate(tenantId);
+        }
+    }
+
+    /**
+     * Drops the tenant's version key. The next reader seeds a fresh random epoch, which no cached
+     * entry is stamped with, so all of them miss.
+     */
+    private void invalidate(UUID tenantId) {
+        try {
+            redisTemplate.delete(key(tenantId));
+            pendingInvalidations.remove(tenantId);
+            log.warn("[{}] Dropped version key tenantId={}", name, tenantId);
+        } catch (Exception e) {
+            if (pendingInvalidations.add(tenantId)) {
+                log.error("[{}] Could not drop version key for tenant {}, will retry: {}", name, tenantId, e.getMessage());
+            }
+        }
+    }
+
+    private static long newEpoch() {
+        // Upper 31 bits random, lower 32 bits left for increments
+        return ThreadLocalRandom.current().nextLong(1, 1L << 31) << 32;
+    }
+}
@@ -0,0 +1,31 @@
+package com.intellidesk.cognitia.ingestion.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * HNSW build and search parameters for vector_store.
+ * m and efConstruction apply when the index is (re)built; efSearch is set per query as
+ * max(efSearchMin, topK * efSearchPerResult), capped at efSearchMax.
+ */
+@ConfigurationProperties(prefix = "cognitia.vectorstore.hnsw")
+public record HnswIndexProperties(
+        Integer m,
+        Integer efConstruction,
+        Integer efSearchMin,
+        Integer efSearchMax,
+        Integer efSearchPerResult,
+        String maintenanceWorkMem) {
+
+    public HnswIndexProperties {
+        m = m != null ? m : 16;
+        efConstruction = efConstruction != null ? efConstruction : 64;
+        efSearchMin = efSearchMin != null ? efSearchMin : 40;
+        efSearchMax = efSearchMax != null ? efSearchMax : 400;
+        efSearchPerResult = efSearchPerResult != null ? efSearchPerResult : 4;
+        maintenanceWorkMem = maintenanceWorkMem != null ? maintenanceWorkMem : "512MB";
+    }
+
+    public int efSearchFor(int topK) {
+        return Math.min(efSearchMax, Math.max(efSearchMin, topK * efSearchPerResult));
+    }
+}
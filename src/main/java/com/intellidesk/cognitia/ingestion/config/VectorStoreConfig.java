@@ -0,0 +1,72 @@
+package com.intellidesk.cognitia.ingestion.config;
+
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.intellidesk.cognitia.ingestion.service.vectorstore.AccessScopedVectorStore;
+import com.intellidesk.cognitia.ingestion.service.vectorstore.EmbeddingCache;
+import com.intellidesk.cognitia.ingestion.service.vectorstore.QueryEmbeddingCache;
+import com.intellidesk.cognitia.ingestion.service.vectorstore.VectorIndexManager;
+import com.intellidesk.cognitia.ingestion.service.vectorstore.VectorStorePartitions;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Declares the pgvector store explicitly (the auto-configured one backs off) and exposes
+ * {@link AccessScopedVectorStore} as the VectorStore the rest of the app injects. Query embeddings
+ * go through a {@link QueryEmbeddingCache}; it is not a bean so EmbeddingModel injection stays unambiguous.
+ */
+@Configuration
+@EnableConfigurationProperties(HnswIndexProperties.class)
+public class VectorStoreConfig {
+
+    @Bean
+    public PgVectorStore pgVectorStore(JdbcTemplate jdbcTemplate,
+                                       EmbeddingModel embeddingModel,
+                                       @Value("${spring.ai.vectorstore.pgvector.dimensions:1536}") int dimensions,
+                                       @Value("${spring.ai.vectorstore.pgvector.max-document-batch-size:10000}") int maxDocumentBatchSize,
+                                       @Value("${spring.ai.vectorstore.pgvector.initialize-schema:false}") boolean initializeSchema,
+                                       @Value("${spring.ai.vectorstore.pgvector.schema-validation:false}") boolean schemaValidation) {
+        return PgVectorStore.builder(jdbcTemplate, embeddingModel)
+                .dimensions(dimensions)
+                .distanceType(PgVectorStore.PgDistanceType.COSINE_DISTANCE)
+                .indexType(PgVectorStore.PgIndexType.HNSW)
+                .maxDocumentBatchSize(maxDocumentBatchSize)
+                .initializeSchema(initializeSchema)
+                .vectorTableValidationsEnabled(schemaValidation)
+                .build();
+    }
+
+    @Bean
+    @Primary
+    public AccessScopedVectorStore vectorStore(PgVectorStore pgVectorStore,
+                                               VectorStorePartitions partitions,
+                                               VectorIndexManager indexManager,
+                                               JdbcTemplate jdbcTemplate,
+                                               EmbeddingModel embeddingModel,
+                                               EmbeddingCache embeddingCache,
+                                               StringRedisTemplate redisTemplate,
+                                               MeterRegistry meterRegistry,
+                                               ObjectMapper objectMapper,
+                                               @Value("${cognitia.vectorstore.exact-search-max-rows:20000}") long exactSearchMaxRows,
+                                               @Value("${cognitia.vectorstore.tenant-size-ttl-seconds:300}") long tenantSizeTtlSeconds,
+                                               @Value("${cognitia.vectorstore.embedding-batch-size:100}") int embeddingBatchSize,
+                                               @Value("${cognitia.query-embedding-cache.enabled:true}") boolean queryCacheEnabled,
+                                               @Value("${cognitia.query-embedding-cache.near-max-entries:5000}") int queryCacheNearMaxEntries,
+                                               @Value("${cognitia.query-embedding-cache.redis-ttl-hours:24}") long queryCacheRedisTtlHours,
+                                               @Value("${spring.ai.openai.embedding.options.model:default}") String model,
+                                               @Value("${spring.ai.openai.embedding.options.dimensions:1536}") int dimensions) {
+        QueryEmbeddingCache queryEmbeddings = new QueryEmbeddingCache(embeddingModel, redisTemplate, meterRegistry,
+                queryCacheEnabled, model, dimensions, queryCacheNearMaxEntries, queryCacheRedisTtlHours);
+        return new AccessScopedVectorStore(pgVectorStore, partitions, indexManager, jdbcTemplate, queryEmbeddings,
+                embeddingCache, objectMapper, exactSearchMaxRows, tenantSizeTtlSeconds, embeddingBatchSize);
+    }
+}
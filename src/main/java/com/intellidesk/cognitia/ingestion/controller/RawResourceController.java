@@ -20,6 +20,8 @@ import org.springframework.web.multipart.MultipartFile;
 
 import com.intellidesk.cognitia.ingestion.models.dtos.ApiResponse;
 import com.intellidesk.cognitia.ingestion.models.dtos.CloudinaryUploadResult;
+import com.intellidesk.cognitia.ingestion.models.dtos.ResourceBulkDeleteDTO;
+import com.intellidesk.cognitia.ingestion.models.dtos.ResourceBulkDeleteResult;
 import com.intellidesk.cognitia.ingestion.models.dtos.ResourceDetails;
 import com.intellidesk.cognitia.ingestion.models.dtos.ResourceMetadata;
 import com.intellidesk.cognitia.ingestion.models.dtos.ResourceUpdateDTO;
@@ -94,4 +96,13 @@ public class RawResourceController {
         return ResponseEntity.ok(new ApiResponse<>("Resource deleted successfully", true, null));
     }
 
+    @Operation(summary = "Delete many resources; their embeddings are removed in the background")
+    @PostMapping("/bulk-delete")
+    @PreAuthorize("hasAuthority('PERM_RESOURCE_DELETE')")
+    public ResponseEntity<ApiResponse<ResourceBulkDeleteResult>> deleteResources(
+            @Valid @RequestBody ResourceBulkDeleteDTO dto) {
+        ResourceBulkDeleteResult result = resourceService.deleteResources(dto.assetIds());
+        return ResponseEntity.accepted().body(new ApiResponse<>("Resources deleted, embedding cleanup queued", true, result));
+    }
+
 }
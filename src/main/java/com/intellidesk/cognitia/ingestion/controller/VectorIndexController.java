@@ -0,0 +1,62 @@
+package com.intellidesk.cognitia.ingestion.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.intellidesk.cognitia.ingestion.models.dtos.ApiResponse;
+import com.intellidesk.cognitia.ingestion.models.dtos.VectorIndexStatus;
+import com.intellidesk.cognitia.ingestion.service.vectorstore.VectorIndexManager;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/v1/admin/vector-index")
+@Tag(name = "Vector Index", description = "HNSW index maintenance for the knowledge base")
+public class VectorIndexController {
+
+    private final VectorIndexManager vectorIndexManager;
+
+    public VectorIndexController(VectorIndexManager vectorIndexManager) {
+        this.vectorIndexManager = vectorIndexManager;
+    }
+
+    @GetMapping
+    @Operation(summary = "Index size, options, rebuild progress and optionally sampled recall against exact search")
+    @PreAuthorize("hasAuthority('PERM_VECTOR_INDEX_ADMIN')")
+    public ResponseEntity<ApiResponse<VectorIndexStatus>> getStatus(@RequestParam(defaultValue = "0") int recallSamples,
+                                                                    @RequestParam(defaultValue = "10") int topK) {
+        VectorIndexStatus status = vectorIndexManager.status(Math.min(Math.max(recallSamples, 0), 200),
+                Math.min(Math.max(topK, 1), 100));
+        return ResponseEntity.ok(new ApiResponse<>("Vector index status fetched", true, status));
+    }
+
+    @PostMapping("/rebuild")
+    @Operation(summary = "Rebuild the HNSW index online with the configured parameters")
+    @PreAuthorize("hasAuthority('PERM_VECTOR_INDEX_ADMIN')")
+    public ResponseEntity<ApiResponse<Void>> rebuild() {
+        if (!vectorIndexManager.startRebuild()) {
+            return new ResponseEntity<>(new ApiResponse<>("An index job is already running", false, null), HttpStatus.CONFLICT);
+        }
+        return new ResponseEntity<>(new ApiResponse<>("Vector index rebuild started", true, null), HttpStatus.ACCEPTED);
+    }
+
+    @PostMapping("/quantization/backfill")
+    @Operation(summary = "Fill the configured quantized embedding column and build its index online")
+    @PreAuthorize("hasAuthority('PERM_VECTOR_INDEX_ADMIN')")
+    public ResponseEntity<ApiResponse<Void>> backfillQuantized() {
+        if (!vectorIndexManager.quantization().enabled()) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>("No quantization mode is configured", false, null));
+        }
+        if (!vectorIndexManager.startQuantizedBackfill()) {
+            return new ResponseEntity<>(new ApiResponse<>("An index job is already running", false, null), HttpStatus.CONFLICT);
+        }
+        return new ResponseEntity<>(new ApiResponse<>("Quantized embedding backfill started", true, null), HttpStatus.ACCEPTED);
+    }
+}
@@ -0,0 +1,14 @@
+package com.intellidesk.cognitia.ingestion.models.dtos;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+@Schema(description = "Resources to delete together with their embeddings")
+public record ResourceBulkDeleteDTO(
+        @NotEmpty
+        @Size(max = 500)
+        List<String> assetIds
+) {}
@@ -0,0 +1,11 @@
+package com.intellidesk.cognitia.ingestion.models.dtos;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Outcome of a bulk delete; embeddings of deleted resources are removed asynchronously")
+public record ResourceBulkDeleteResult(
+        int deleted,
+        List<String> notFound
+) {}
@@ -0,0 +1,50 @@
+package com.intellidesk.cognitia.ingestion.models.dtos;
+
+import java.time.Instant;
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "State of the vector_store HNSW indexes")
+public record VectorIndexStatus(
+        String indexName,
+        long sizeBytes,
+        int partitions,
+        List<String> options,
+        boolean matchesConfiguredOptions,
+        Job job,
+        Quantization quantization,
+        Recall recall) {
+
+    @Schema(description = "Progress of the last online rebuild or backfill")
+    public record Job(
+            String name,
+            String state,
+            Instant startedAt,
+            Instant finishedAt,
+            int partitionsDone,
+            int partitionsTotal,
+            String currentPartition,
+            String phase,
+            long tuplesDone,
+            long tuplesTotal,
+            String error) {}
+
+    @Schema(description = "Quantized ANN column configured for this deployment")
+    public record Quantization(
+            String mode,
+            boolean searchReady,
+            long rowsMissing,
+            long indexSizeBytes) {}
+
+    @Schema(description = "ANN recall measured against exact search on sampled chunks")
+    public record Recall(
+            int samples,
+            int topK,
+            int efSearch,
+            double recall,
+            double annAvgMs,
+            double exactAvgMs,
+            Double quantizedRecall,
+            Double quantizedAvgMs) {}
+}
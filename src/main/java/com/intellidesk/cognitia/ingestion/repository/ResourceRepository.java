@@ -1,4 +1,6 @@
 package com.intellidesk.cognitia.ingestion.repository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -9,4 +11,6 @@ import com.intellidesk.cognitia.ingestion.models.entities.Resource;
 public interface ResourceRepository extends JpaRepository<Resource, UUID> {
 
     Optional<Resource> findByAssetId(String assetId);
+
+    List<Resource> findByAssetIdIn(Collection<String> assetIds);
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.intellidesk.cognitia.ingestion.service;
+
+import java.util.UUID;
+
+/**
+ * Per-tenant version stamp for cached knowledge retrievals. Every successful ingestion and every
+ * drained embedding deletion bumps the tenant's version, so retrievals cached under an older
+ * version are never served again and simply expire.
+ */
+public interface KnowledgeVersionService {
+
+    String versionKey(UUID tenantId);
+
+    /**
+     * Returns the tenant's version, seeding a random epoch if it has none yet, so a version is never
+     * reused after its key was lost.
+     */
+    long currentVersion(UUID tenantId);
+
+    /**
+     * Bumps the tenant's version once the surrounding transaction commits (immediately if none is active).
+     * If Redis rejects the bump, the version key is dropped instead (retried until it succeeds).
+     */
+    void bump(UUID tenantId);
+}
@@ -1,8 +1,11 @@
 package com.intellidesk.cognitia.ingestion.service;
 
+import java.util.List;
+
 import org.springframework.web.multipart.MultipartFile;
 
 import com.intellidesk.cognitia.ingestion.models.dtos.CloudinaryUploadResult;
+import com.intellidesk.cognitia.ingestion.models.dtos.ResourceBulkDeleteResult;
 import com.intellidesk.cognitia.ingestion.models.dtos.ResourceDetails;
 import com.intellidesk.cognitia.ingestion.models.dtos.ResourceMetadata;
 import com.intellidesk.cognitia.ingestion.models.dtos.ResourceUpdateDTO;
@@ -18,4 +21,6 @@ public interface ResourceService {
     public ResourceDetails updateResource(String assetId, ResourceUpdateDTO dto);
 
     public void deleteResource(String assetId);
+
+    public ResourceBulkDeleteResult deleteResources(List<String> assetIds);
 }
@@ -0,0 +1,61 @@
+package com.intellidesk.cognitia.ingestion.service.impl;
+
+import java.util.UUID;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.intellidesk.cognitia.common.EpochVersionCounter;
+import com.intellidesk.cognitia.ingestion.service.KnowledgeVersionService;
+
+@Service
+public class KnowledgeVersionServiceImpl implements KnowledgeVersionService {
+
+    private static final String VERSION_KEY_FMT = "cognitia:knowledge:version:%s";
+
+    private final EpochVersionCounter counter;
+
+    public KnowledgeVersionServiceImpl(StringRedisTemplate redisTemplate) {
+        this.counter = new EpochVersionCounter(redisTemplate, VERSION_KEY_FMT, "KnowledgeVersion");
+    }
+
+    @Override
+    public String versionKey(UUID tenantId) {
+        return counter.key(tenantId);
+    }
+
+    @Override
+    public long currentVersion(UUID tenantId) {
+        return counter.current(tenantId);
+    }
+
+    @Override
+    public void bump(UUID tenantId) {
+        if (tenantId == null) {
+            return;
+        }
+        // After commit: a search that still sees the old chunks can then only cache them under the old version
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    counter.bump(tenantId);
+                }
+            });
+        } else {
+            counter.bump(tenantId);
+        }
+    }
+
+    /**
+     * Retries dropping the version key of every tenant whose bump failed, so retrievals cached before
+     * the failed bump stop being served once Redis answers again.
+     */
+    @Scheduled(fixedDelay = 5_000)
+    public void retryPendingInvalidations() {
+        counter.retryPendingInvalidations();
+    }
+}
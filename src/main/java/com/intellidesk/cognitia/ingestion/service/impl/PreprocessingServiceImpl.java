@@ -19,6 +19,7 @@ import com.intellidesk.cognitia.ingestion.models.entities.IngestionJob;
 
 import com.intellidesk.cognitia.ingestion.models.entities.Resource;
 import com.intellidesk.cognitia.ingestion.repository.ResourceRepository;
+import com.intellidesk.cognitia.ingestion.service.KnowledgeVersionService;
 import com.intellidesk.cognitia.ingestion.service.PreprocessingService;
 import com.intellidesk.cognitia.ingestion.service.preprocessingStrategy.PreprocessingStrategyFactory;
 
@@ -32,6 +33,7 @@ public class PreprocessingServiceImpl implements PreprocessingService {
 
     private final PreprocessingStrategyFactory preprocessingStrategyFactory;
     private final ResourceRepository resourceRepository;
+    private final KnowledgeVersionService knowledgeVersionService;
 
     private VectorStore vectorStore;
 
@@ -42,9 +44,11 @@ public class PreprocessingServiceImpl implements PreprocessingService {
 
     PreprocessingServiceImpl(PreprocessingStrategyFactory preprocessingStrategyFactory,
                              ResourceRepository resourceRepository,
+                             KnowledgeVersionService knowledgeVersionService,
                              VectorStore vectorStore) {
         this.preprocessingStrategyFactory = preprocessingStrategyFactory;
         this.resourceRepository = resourceRepository;
+        this.knowledgeVersionService = knowledgeVersionService;
         this.vectorStore = vectorStore;
     }
    
@@ -65,6 +69,7 @@ public class PreprocessingServiceImpl implements PreprocessingService {
                 .preprocess(new PathResource(filePth), rawSource);
 
         vectorStore.add(chunks);
+        knowledgeVersionService.bump(rawSource.getTenantId());
     }
 
 
@@ -1,10 +1,15 @@
 package com.intellidesk.cognitia.ingestion.service.impl;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
-import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -16,6 +21,7 @@ import org.springframework.web.multipart.MultipartFile;
 import com.cloudinary.Cloudinary;
 import com.intellidesk.cognitia.analytics.service.QuotaService;
 import com.intellidesk.cognitia.ingestion.models.dtos.CloudinaryUploadResult;
+import com.intellidesk.cognitia.ingestion.models.dtos.ResourceBulkDeleteResult;
 import com.intellidesk.cognitia.ingestion.models.dtos.ResourceDetails;
 import com.intellidesk.cognitia.ingestion.models.dtos.ResourceMetadata;
 import com.intellidesk.cognitia.ingestion.models.dtos.ResourceUpdateDTO;
@@ -28,6 +34,7 @@ import com.intellidesk.cognitia.ingestion.repository.ResourceRepository;
 import com.intellidesk.cognitia.ingestion.service.ResourceService;
 import com.intellidesk.cognitia.ingestion.service.uploadStrategy.FileUploadStrategy;
 import com.intellidesk.cognitia.ingestion.service.uploadStrategy.FileUploadStrategyFactory;
+import com.intellidesk.cognitia.ingestion.service.vectorstore.EmbeddingDeletionQueue;
 import com.intellidesk.cognitia.ingestion.utils.ResourceMapper;
 import com.intellidesk.cognitia.userandauth.models.entities.ClassificationLevel;
 import com.intellidesk.cognitia.userandauth.models.entities.Department;
@@ -52,7 +59,7 @@ public class ResourceServiceImpl implements ResourceService {
     private final ResourceMapper mapper;
     private final QuotaService quotaService;
     private final Cloudinary cloudinary;
-    private final VectorStore vectorStore;
+    private final EmbeddingDeletionQueue embeddingDeletionQueue;
     private final DepartmentRepository departmentRepository;
     private final ClassificationLevelRepository classificationLevelRepository;
 
@@ -209,14 +216,56 @@ public class ResourceServiceImpl implements ResourceService {
         }
     }
 
-    private void deleteEmbeddings(Resource resource) {
-        try {
-            String filterExpression = "sourceId == '" + resource.getResId().toString() + "'";
-            vectorStore.delete(filterExpression);
-            log.info("Embeddings deleted for resource: resId={}", resource.getResId());
-        } catch (Exception e) {
-            log.error("Failed to delete embeddings for resource (resId={}): {}", resource.getResId(), e.getMessage());
+    @Override
+    @Transactional
+    public ResourceBulkDeleteResult deleteResources(List<String> assetIds) {
+        Set<String> requested = new LinkedHashSet<>(assetIds);
+        List<Resource> resources = resourceRepository.findByAssetIdIn(requested);
+        Set<String> found = resources.stream().map(Resource::getAssetId).collect(Collectors.toSet());
+        List<String> notFound = requested.stream().filter(assetId -> !found.contains(assetId)).toList();
+
+        deleteFromCloudinary(resources);
+        resources.stream()
+                .collect(Collectors.groupingBy(Resource::getTenantId, LinkedHashMap::new,
+                        Collectors.mapping(Resource::getResId, Collectors.toList())))
+                .forEach(embeddingDeletionQueue::enqueue);
+
+        resourceRepository.deleteAll(resources);
+        log.info("Resources deleted: count={}, notFound={}", resources.size(), notFound.size());
+        return new ResourceBulkDeleteResult(resources.size(), notFound);
+    }
+
+    /**
+     * Removes many assets with Cloudinary's bulk API, one call per resource type and 100 public ids.
+     */
+    private void deleteFromCloudinary(List<Resource> resources) {
+        Map<String, List<String>> publicIdsByType = new LinkedHashMap<>();
+        for (Resource resource : resources) {
+            if (resource.getPublicId() == null || resource.getPublicId().isBlank()) {
+                log.warn("No publicId stored for resource (assetId={}), skipping Cloudinary deletion", resource.getAssetId());
+                continue;
+            }
+            publicIdsByType.computeIfAbsent(resolveCloudinaryResourceType(resource.getFormat()), t -> new ArrayList<>())
+                    .add(resource.getPublicId());
         }
+        publicIdsByType.forEach((resourceType, publicIds) -> {
+            for (int from = 0; from < publicIds.size(); from += 100) {
+                List<String> batch = publicIds.subList(from, Math.min(from + 100, publicIds.size()));
+                try {
+                    cloudinary.api().deleteResources(batch, Map.of("resource_type", resourceType, "invalidate", true));
+                } catch (Exception e) {
+                    log.error("Failed to bulk delete {} resources from Cloudinary: {}", batch.size(), e.getMessage());
+                    throw new ApiException("Failed to delete resources from storage", e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Queues the resource's chunks for deletion; they are removed in batches once this transaction commits.
+     */
+    private void deleteEmbeddings(Resource resource) {
+        embeddingDeletionQueue.enqueue(resource.getTenantId(), List.of(resource.getResId()));
     }
 
     private String resolveCloudinaryResourceType(String format) {
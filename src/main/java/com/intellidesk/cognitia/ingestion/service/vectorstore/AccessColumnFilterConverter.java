@@ -0,0 +1,144 @@
+package com.intellidesk.cognitia.ingestion.service.vectorstore;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.springframework.ai.vectorstore.filter.Filter;
+
+/**
+ * Translates a Spring AI filter expression into a SQL predicate over vector_store.
+ * Access keys are mapped to the typed columns added in V35 so the btree indexes can serve them;
+ * any other key falls back to a metadata->>'key' comparison.
+ */
+final class AccessColumnFilterConverter {
+
+    private static final Map<String, String> COLUMNS = Map.of(
+            "tenantId", "tenant_id",
+            "sourceId", "source_id",
+            "department", "department",
+            "classificationRank", "classification_rank",
+            "sourceFormat", "source_format");
+
+    private static final Set<String> UUID_COLUMNS = Set.of("tenant_id", "source_id");
+    private static final Pattern SAFE_KEY = Pattern.compile("[A-Za-z0-9_]+");
+
+    private AccessColumnFilterConverter() {}
+
+    /**
+     * @param params receives the bind values in placeholder order
+     */
+    static String toSql(Filter.Expression expression, List<Object> params) {
+        return switch (expression.type()) {
+            case AND -> "(" + operand(expression.left(), params) + " AND " + operand(expression.right(), params) + ")";
+            case OR -> "(" + operand(expression.left(), params) + " OR " + operand(expression.right(), params) + ")";
+            case NOT -> "NOT (" + operand(expression.left(), params) + ")";
+            case EQ -> comparison(expression, "=", params);
+            case NE -> comparison(expression, "<>", params);
+            case GT -> comparison(expression, ">", params);
+            case GTE -> comparison(expression, ">=", params);
+            case LT -> comparison(expression, "<", params);
+            case LTE -> comparison(expression, "<=", params);
+            case IN -> membership(expression, "IN", params);
+            case NIN -> membership(expression, "NOT IN", params);
+            default -> throw new IllegalArgumentException("Unsupported filter operation: " + expression.type());
+        };
+    }
+
+    /**
+     * Tenant the expression is pinned to, if it has a tenantId equality reachable through ANDs only.
+     */
+    static UUID tenantOf(Filter.Operand operand) {
+        if (operand instanceof Filter.Group group) {
+            return tenantOf(group.content());
+        }
+        if (!(operand instanceof Filter.Expression expression)) {
+            return null;
+        }
+        if (expression.type() == Filter.ExpressionType.AND) {
+            UUID left = tenantOf(expression.left());
+            return left != null ? left : tenantOf(expression.right());
+        }
+        if (expression.type() == Filter.ExpressionType.EQ
+                && expression.left() instanceof Filter.Key key
+                && "tenantId".equals(unquote(key.key()))
+                && expression.right() instanceof Filter.Value value) {
+            return UUID.fromString(value.value().toString());
+        }
+        return null;
+    }
+
+    private static String operand(Filter.Operand operand, List<Object> params) {
+        if (operand instanceof Filter.Expression expression) {
+            return toSql(expression, params);
+        }
+        if (operand instanceof Filter.Group group) {
+            return "(" + toSql(group.content(), params) + ")";
+        }
+        throw new IllegalArgumentException("Unexpected filter operand: " + operand);
+    }
+
+    private static String comparison(Filter.Expression expression, String operator, List<Object> params) {
+        String key = key(expression);
+        Object value = ((Filter.Value) expression.right()).value();
+        String column = COLUMNS.get(key);
+        if (column != null) {
+            params.add(bindValue(column, value));
+            return column + " " + operator + " ?";
+        }
+        if (value instanceof Number number && !"=".equals(operator) && !"<>".equals(operator)) {
+            params.add(number);
+            return "(metadata->>'" + key + "')::numeric " + operator + " ?";
+        }
+        params.add(String.valueOf(value));
+        return "metadata->>'" + key + "' " + operator + " ?";
+    }
+
+    private static String membership(Filter.Expression expression, String operator, List<Object> params) {
+        String key = key(expression);
+        Object raw = ((Filter.Value) expression.right()).value();
+        List<?> values = raw instanceof List<?> list ? list : List.of(raw);
+        if (values.isEmpty()) {
+            return "IN".equals(operator) ? "FALSE" : "TRUE";
+        }
+        String column = COLUMNS.get(key);
+        for (Object value : values) {
+            params.add(column != null ? bindValue(column, value) : String.valueOf(value));
+        }
+        String placeholders = values.stream().map(v -> "?").collect(Collectors.joining(", "));
+        String target = column != null ? column : "metadata->>'" + key + "'";
+        return target + " " + operator + " (" + placeholders + ")";
+    }
+
+    private static Object bindValue(String column, Object value) {
+        if (UUID_COLUMNS.contains(column)) {
+            return value instanceof UUID uuid ? uuid : UUID.fromString(value.toString());
+        }
+        if ("classification_rank".equals(column)) {
+            return value instanceof Number number ? number.intValue() : Integer.parseInt(value.toString().strip());
+        }
+        return String.valueOf(value);
+    }
+
+    private static String key(Filter.Expression expression) {
+        if (!(expression.left() instanceof Filter.Key key)) {
+            throw new IllegalArgumentException("Expected a metadata key on the left of " + expression.type());
+        }
+        String name = unquote(key.key());
+        // Unmapped keys are inlined into the JSON path, so only plain identifiers are accepted
+        if (!SAFE_KEY.matcher(name).matches()) {
+            throw new IllegalArgumentException("Unsupported metadata key: " + name);
+        }
+        return name;
+    }
+
+    private static String unquote(String key) {
+        if (key.length() > 1 && (key.startsWith("'") && key.endsWith("'") || key.startsWith("\"") && key.endsWith("\""))) {
+            return key.substring(1, key.length() - 1);
+        }
+        return key;
+    }
+}
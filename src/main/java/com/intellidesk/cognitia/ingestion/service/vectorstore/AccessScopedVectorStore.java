@@ -0,0 +1,307 @@
+package com.intellidesk.cognitia.ingestion.service.vectorstore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pgvector.PGvector;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * pgvector store that filters on the typed access columns of vector_store (tenant_id, department,
+ * classification_rank, source_id, source_format) instead of JSON-path predicates over metadata.
+ * The table is partitioned by tenant (see {@link VectorStorePartitions}): inserts go into the tenant's
+ * partition directly and write tenant_id themselves, and searches pinned to a tenant read
+ * its partition so only that tenant's HNSW graph is walked. Id deletes go through
+ * Spring AI's {@link PgVectorStore}.
+ *
+ * Searches pinned to a small tenant skip the HNSW index: the tenant's rows are selected through the
+ * btree index and ranked exactly, so the answer is not starved by the ANN index post-filtering
+ * department and classification. Larger tenants use the HNSW index with the filter pushed down and
+ * an ef_search sized for the request (see {@link VectorIndexManager#withEfSearch}). When a quantized
+ * column is configured and its index is ready, the ANN pass runs over it instead and the candidates
+ * are re-scored against the full-precision embedding. Query text is embedded through the
+ * {@link EmbeddingModel} given as queryEmbeddingModel (a {@link QueryEmbeddingCache} in the app).
+ * Distances are cosine, matching the store's configured distance type.
+ */
+@Slf4j
+public class AccessScopedVectorStore implements VectorStore {
+
+    private static final String ANN_SQL = """
+            SELECT id::text AS id, content, metadata::text AS metadata, embedding <=> ? AS distance
+            FROM %s
+            WHERE %s AND embedding <=> ? < ?
+            ORDER BY distance
+            LIMIT ?
+            """;
+
+    private static final String EXACT_SQL = """
+            WITH scoped AS MATERIALIZED (
+                SELECT id, content, metadata, embedding FROM %s WHERE %s
+            )
+            SELECT id::text AS id, content, metadata::text AS metadata, embedding <=> ? AS distance
+            FROM scoped
+            WHERE embedding <=> ? < ?
+            ORDER BY distance
+            LIMIT ?
+            """;
+
+    /**
+     * Over-fetches candidates from the quantized index, then re-scores them at full precision.
+     */
+    private static final String QUANTIZED_SQL = """
+            WITH candidates AS (
+                SELECT id, content, metadata, embedding FROM %s
+                WHERE %s
+                ORDER BY %s %s %s
+                LIMIT ?
+            )
+            SELECT id::text AS id, content, metadata::text AS metadata, embedding <=> ? AS distance
+            FROM candidates
+            WHERE embedding <=> ? < ?
+            ORDER BY distance
+            LIMIT ?
+            """;
+
+    private static final String TENANT_ROWS_SQL = "SELECT count(*) FROM %s WHERE tenant_id = ?";
+
+    // Inserted into the tenant's partition directly, never routed through the parent (see VectorStorePartitions)
+    private static final String INSERT_SQL = """
+            INSERT INTO %s (id, content, metadata, embedding, tenant_id%s)
+            VALUES (?, ?, ?::json, ?, ?%s)
+            ON CONFLICT (tenant_id, id) DO UPDATE
+            SET content = EXCLUDED.content, metadata = EXCLUDED.metadata, embedding = EXCLUDED.embedding%s
+            """;
+
+    private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {};
+
+    private final PgVectorStore delegate;
+    private final VectorStorePartitions partitions;
+    private final VectorIndexManager indexManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final EmbeddingModel queryEmbeddingModel;
+    private final EmbeddingCache embeddingCache;
+    private final ObjectMapper objectMapper;
+    private final long exactSearchMaxRows;
+    private final long tenantSizeTtlMillis;
+    private final int embeddingBatchSize;
+    private final VectorQuantization quantization;
+    private final String insertSql;
+    private final Map<UUID, TenantSize> tenantSizes = new ConcurrentHashMap<>();
+
+    public AccessScopedVectorStore(PgVectorStore delegate,
+                                   VectorStorePartitions partitions,
+                                   VectorIndexManager indexManager,
+                                   JdbcTemplate jdbcTemplate,
+                                   EmbeddingModel queryEmbeddingModel,
+                                   EmbeddingCache embeddingCache,
+                                   ObjectMapper objectMapper,
+                                   long exactSearchMaxRows,
+                                   long tenantSizeTtlSeconds,
+                                   int embeddingBatchSize) {
+        this.delegate = delegate;
+        this.partitions = partitions;
+        this.indexManager = indexManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.queryEmbeddingModel = queryEmbeddingModel;
+        this.embeddingCache = embeddingCache;
+        this.objectMapper = objectMapper;
+        this.exactSearchMaxRows = exactSearchMaxRows;
+        this.tenantSizeTtlMillis = tenantSizeTtlSeconds * 1000;
+        this.embeddingBatchSize = Math.max(1, embeddingBatchSize);
+        this.quantization = indexManager.quantization();
+        this.insertSql = quantization.enabled()
+                ? INSERT_SQL.formatted("%s", ", " + quantization.column(), ", " + quantization.bindExpression(),
+                        ", " + quantization.column() + " = EXCLUDED." + quantization.column())
+                : INSERT_SQL.formatted("%s", "", "", "");
+    }
+
+    /**
+     * Embeds the chunks in batches (skipping chunks already in the {@link EmbeddingCache}) and upserts
+     * them into their tenants' partitions.
+     */
+    @Override
+    public void add(List<Document> documents) {
+        for (int from = 0; from < documents.size(); from += embeddingBatchSize) {
+            List<Document> batch = documents.subList(from, Math.min(from + embeddingBatchSize, documents.size()));
+            List<float[]> embeddings = embed(batch);
+
+            Map<UUID, List<Object[]>> rowsByTenant = new LinkedHashMap<>();
+            for (int i = 0; i < batch.size(); i++) {
+                Document document = batch.get(i);
+                UUID tenantId = tenantIdOf(document);
+                PGvector embedding = new PGvector(embeddings.get(i));
+                rowsByTenant.computeIfAbsent(tenantId, t -> new ArrayList<>()).add(quantization.enabled()
+                        ? new Object[] { UUID.fromString(document.getId()), document.getText(),
+                                toJson(document.getMetadata()), embedding, tenantId, embedding }
+                        : new Object[] { UUID.fromString(document.getId()), document.getText(),
+                                toJson(document.getMetadata()), embedding, tenantId });
+            }
+            rowsByTenant.forEach(this::insert);
+        }
+        log.info("[AccessScopedVectorStore] Stored {} chunks", documents.size());
+    }
+
+    private void insert(UUID tenantId, List<Object[]> rows) {
+        partitions.ensurePartition(tenantId);
+        try {
+            jdbcTemplate.batchUpdate(insertSql.formatted(VectorStorePartitions.partitionTable(tenantId)), rows);
+        } catch (BadSqlGrammarException e) {
+            // The partition was dropped since this instance last saw it. The surrounding ingest transaction is
+            // aborted anyway, so the job's retry re-checks the catalog and recreates it
+            partitions.forget(tenantId);
+            throw e;
+        }
+    }
+
+    /**
+     * Embeddings for a batch in input order, resolved per tenant through the content-hash cache.
+     */
+    private List<float[]> embed(List<Document> batch) {
+        Map<UUID, List<Integer>> positionsByTenant = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            positionsByTenant.computeIfAbsent(tenantIdOf(batch.get(i)), t -> new ArrayList<>()).add(i);
+        }
+        float[][] embeddings = new float[batch.size()][];
+        positionsByTenant.forEach((tenantId, positions) -> {
+            List<float[]> vectors = embeddingCache.embed(tenantId,
+                    positions.stream().map(i -> batch.get(i).getText()).toList());
+            for (int j = 0; j < positions.size(); j++) {
+                embeddings[positions.get(j)] = vectors.get(j);
+            }
+        });
+        return Arrays.asList(embeddings);
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        delegate.delete(idList);
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        List<Object> params = new ArrayList<>();
+        String where = AccessColumnFilterConverter.toSql(filterExpression, params);
+        String table = partitions.tableFor(AccessColumnFilterConverter.tenantOf(filterExpression));
+        int deleted = jdbcTemplate.update("DELETE FROM " + table + " WHERE " + where, params.toArray());
+        log.info("[AccessScopedVectorStore] Deleted {} chunks where {}", deleted, where);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        List<Object> filterParams = new ArrayList<>();
+        String where = request.hasFilterExpression()
+                ? AccessColumnFilterConverter.toSql(request.getFilterExpression(), filterParams)
+                : "TRUE";
+        PGvector queryVector = new PGvector(queryEmbeddingModel.embed(request.getQuery()));
+        double maxDistance = 1 - request.getSimilarityThreshold();
+
+        UUID tenantId = request.hasFilterExpression() ? AccessColumnFilterConverter.tenantOf(request.getFilterExpression()) : null;
+        String table = partitions.tableFor(tenantId);
+        boolean exact = tenantId != null && tenantRows(table, tenantId) <= exactSearchMaxRows;
+        boolean quantized = !exact && indexManager.quantizedSearchReady();
+        int candidates = quantized ? request.getTopK() * indexManager.oversample() : request.getTopK();
+
+        List<Object> params = new ArrayList<>();
+        String sql;
+        if (exact) {
+            sql = EXACT_SQL.formatted(table, where);
+            params.addAll(filterParams);
+            params.add(queryVector);
+        } else if (quantized) {
+            sql = QUANTIZED_SQL.formatted(table, where,
+                    quantization.column(), quantization.distanceOperator(), quantization.bindExpression());
+            params.addAll(filterParams);
+            params.add(queryVector);
+            params.add(candidates);
+            params.add(queryVector);
+        } else {
+            sql = ANN_SQL.formatted(table, where);
+            params.add(queryVector);
+            params.addAll(filterParams);
+        }
+        params.add(queryVector);
+        params.add(maxDistance);
+        params.add(request.getTopK());
+
+        RowMapper<Document> rowMapper = (rs, rowNum) -> {
+            double distance = rs.getDouble("distance");
+            Map<String, Object> metadata = parseMetadata(rs.getString("metadata"));
+            metadata.put("distance", distance);
+            return Document.builder()
+                    .id(rs.getString("id"))
+                    .text(rs.getString("content"))
+                    .metadata(metadata)
+                    .score(1 - distance)
+                    .build();
+        };
+        List<Document> documents = exact
+                ? jdbcTemplate.query(sql, rowMapper, params.toArray())
+                : indexManager.withEfSearch(candidates, () -> jdbcTemplate.query(sql, rowMapper, params.toArray()));
+
+        log.debug("[AccessScopedVectorStore] tenantId={} exact={} quantized={} topK={} hits={}",
+                tenantId, exact, quantized, request.getTopK(), documents.size());
+        return documents;
+    }
+
+    private long tenantRows(String table, UUID tenantId) {
+        long now = System.currentTimeMillis();
+        TenantSize cached = tenantSizes.get(tenantId);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.rows();
+        }
+        Long rows = jdbcTemplate.queryForObject(TENANT_ROWS_SQL.formatted(table), Long.class, tenantId);
+        long count = rows != null ? rows : 0;
+        tenantSizes.put(tenantId, new TenantSize(count, now + tenantSizeTtlMillis));
+        return count;
+    }
+
+    private UUID tenantIdOf(Document document) {
+        Object tenantId = document.getMetadata().get("tenantId");
+        if (tenantId == null) {
+            throw new IllegalArgumentException("Chunk " + document.getId() + " has no tenantId metadata");
+        }
+        return UUID.fromString(tenantId.toString());
+    }
+
+    private String toJson(Map<String, Object> metadata) {
+        try {
+            return objectMapper.writeValueAsString(metadata);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Chunk metadata is not serializable", e);
+        }
+    }
+
+    private Map<String, Object> parseMetadata(String json) {
+        if (json == null || json.isBlank()) {
+            return new HashMap<>();
+        }
+        try {
+            return objectMapper.readValue(json, METADATA_TYPE);
+        } catch (Exception e) {
+            log.warn("[AccessScopedVectorStore] Unreadable chunk metadata: {}", e.getMessage());
+            return new HashMap<>();
+        }
+    }
+
+    private record TenantSize(long rows, long expiresAt) {}
+}
@@ -0,0 +1,200 @@
+package com.intellidesk.cognitia.ingestion.service.vectorstore;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.pgvector.PGvector;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+
+/**
+ * Content-addressed cache in front of the {@link EmbeddingModel} for ingestion (see V39).
+ * Chunks are keyed by SHA-256 of their normalized text (Unicode NFC, whitespace collapsed) plus the
+ * model id and dimensions; a batch is looked up in one query and only the misses are sent to the model.
+ *
+ * Entries belong to the tenant whose content produced them and are only looked up under that tenant,
+ * so no tenant is ever served a vector derived from another tenant's documents.
+ */
+@Component
+@Slf4j
+public class EmbeddingCache {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final String LOOKUP_SQL = """
+            SELECT c.content_hash, c.embedding::text AS embedding
+            FROM public.embedding_cache c
+            WHERE c.tenant_id = ? AND c.model = ? AND c.dimensions = ? AND c.content_hash = ANY(?)
+            """;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO public.embedding_cache (tenant_id, model, dimensions, content_hash, embedding)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT DO NOTHING
+            """;
+
+    // Touch hits at most once a day to keep eviction working without a write per lookup
+    private static final String TOUCH_SQL = """
+            UPDATE public.embedding_cache SET last_used_at = now()
+            WHERE tenant_id = ? AND model = ? AND dimensions = ? AND content_hash = ANY(?)
+              AND last_used_at < now() - interval '1 day'
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EmbeddingModel embeddingModel;
+    private final boolean enabled;
+    private final String model;
+    private final int dimensions;
+    private final int ttlDays;
+    private final Counter hits;
+    private final Counter misses;
+
+    public EmbeddingCache(JdbcTemplate jdbcTemplate,
+                          EmbeddingModel embeddingModel,
+                          MeterRegistry meterRegistry,
+                          @Value("${cognitia.embedding-cache.enabled:true}") boolean enabled,
+                          @Value("${spring.ai.openai.embedding.options.model:default}") String model,
+                          @Value("${spring.ai.openai.embedding.options.dimensions:1536}") int dimensions,
+                          @Value("${cognitia.embedding-cache.ttl-days:30}") int ttlDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.embeddingModel = embeddingModel;
+        this.enabled = enabled;
+        this.model = model;
+        this.dimensions = dimensions;
+        this.ttlDays = ttlDays;
+        this.hits = Counter.builder("cognitia.embedding.cache")
+                .description("Chunk embeddings served from the content-hash cache vs computed by the model")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("cognitia.embedding.cache")
+                .description("Chunk embeddings served from the content-hash cache vs computed by the model")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Embeddings for one tenant's chunk texts, in input order.
+     */
+    public List<float[]> embed(UUID tenantId, List<String> texts) {
+        if (!enabled) {
+            return embeddingModel.embed(texts);
+        }
+        List<String> hashes = texts.stream().map(EmbeddingCache::contentHash).toList();
+        Map<String, float[]> cached = lookup(tenantId, hashes);
+
+        // Distinct misses only: identical chunks within one document are embedded once
+        Map<String, String> missing = new LinkedHashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            if (!cached.containsKey(hashes.get(i))) {
+                missing.putIfAbsent(hashes.get(i), texts.get(i));
+            }
+        }
+
+        Map<String, float[]> computed = new HashMap<>();
+        if (!missing.isEmpty()) {
+            List<String> missHashes = new ArrayList<>(missing.keySet());
+            List<float[]> embeddings = embeddingModel.embed(new ArrayList<>(missing.values()));
+            for (int i = 0; i < missHashes.size(); i++) {
+                computed.put(missHashes.get(i), embeddings.get(i));
+            }
+            store(tenantId, computed);
+        }
+
+        List<float[]> result = new ArrayList<>(texts.size());
+        for (String hash : hashes) {
+            float[] embedding = cached.get(hash);
+            result.add(embedding != null ? embedding : computed.get(hash));
+        }
+        hits.increment(texts.size() - missing.size());
+        misses.increment(missing.size());
+        log.info("[EmbeddingCache] tenantId={} chunks={} hits={} misses={}",
+                tenantId, texts.size(), texts.size() - missing.size(), missing.size());
+        return result;
+    }
+
+    private Map<String, float[]> lookup(UUID tenantId, List<String> hashes) {
+        Map<String, float[]> found = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(LOOKUP_SQL);
+            ps.setObject(1, tenantId);
+            ps.setString(2, model);
+            ps.setInt(3, dimensions);
+            ps.setArray(4, connection.createArrayOf("bpchar", hashes.toArray()));
+            return ps;
+        }, rs -> {
+            try {
+                found.put(rs.getString("content_hash"), new PGvector(rs.getString("embedding")).toArray());
+            } catch (SQLException e) {
+                log.warn("[EmbeddingCache] Skipping unreadable cached embedding: {}", e.getMessage());
+            }
+        });
+        if (!found.isEmpty()) {
+            jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(TOUCH_SQL);
+                ps.setObject(1, tenantId);
+                ps.setString(2, model);
+                ps.setInt(3, dimensions);
+                Array keys = connection.createArrayOf("bpchar", found.keySet().toArray());
+                ps.setArray(4, keys);
+                return ps;
+            });
+        }
+        return found;
+    }
+
+    private void store(UUID tenantId, Map<String, float[]> embeddings) {
+        List<Object[]> rows = new ArrayList<>(embeddings.size());
+        embeddings.forEach((hash, embedding) ->
+                rows.add(new Object[] { tenantId, model, dimensions, hash, new PGvector(embedding) }));
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        } catch (Exception e) {
+            // The chunks are still stored; only a later re-upload would miss the cache
+            log.warn("[EmbeddingCache] Failed to cache {} embeddings for tenant {}: {}", rows.size(), tenantId, e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelay = 3_600_000)
+    @SchedulerLock(name = "embeddingCacheEviction", lockAtMostFor = "PT30M", lockAtLeastFor = "PT5M")
+    public void evictUnused() {
+        int evicted = jdbcTemplate.update(
+                "DELETE FROM public.embedding_cache WHERE last_used_at < now() - make_interval(days => ?)", ttlDays);
+        if (evicted > 0) {
+            log.info("[EmbeddingCache] Evicted {} embeddings unused for {} days", evicted, ttlDays);
+        }
+    }
+
+    static String contentHash(String text) {
+        String normalized = WHITESPACE.matcher(Normalizer.normalize(text == null ? "" : text, Normalizer.Form.NFC))
+                .replaceAll(" ")
+                .strip();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
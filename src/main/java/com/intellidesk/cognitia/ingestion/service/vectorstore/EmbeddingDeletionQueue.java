@@ -0,0 +1,275 @@
+package com.intellidesk.cognitia.ingestion.service.vectorstore;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.intellidesk.cognitia.ingestion.service.KnowledgeVersionService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+
+/**
+ * Deletes the chunks of removed resources off the request path (see V40). Resources are enqueued in
+ * the deleting transaction; after commit a virtual thread drains the queue, and a scheduled sweep picks
+ * up anything left behind by a crash or a failed attempt.
+ *
+ * Queue rows are claimed with FOR UPDATE SKIP LOCKED, so several instances can drain concurrently.
+ * Each claim is handled per tenant: the chunk ids of all claimed resources are resolved with one query
+ * over the tenant partition's source_id index, then deleted by primary key in batches. The tenant's
+ * knowledge version is bumped once its chunks are gone.
+ *
+ * A row that failed max-attempts times is no longer claimed. It stays in the queue with its last_error
+ * and is counted by the cognitia.embedding.deletion.stuck gauge; resetting its attempts to 0 retries it.
+ */
+@Component
+@Slf4j
+public class EmbeddingDeletionQueue {
+
+    private static final String ENQUEUE_SQL = """
+            INSERT INTO public.embedding_deletion_queue (tenant_id, source_id)
+            VALUES (?, ?)
+            ON CONFLICT (tenant_id, source_id) DO NOTHING
+            """;
+
+    private static final String CLAIM_SQL = """
+            UPDATE public.embedding_deletion_queue q
+            SET claimed_at = now(), attempts = q.attempts + 1
+            FROM (
+                SELECT tenant_id, source_id FROM public.embedding_deletion_queue
+                WHERE attempts < ? AND (claimed_at IS NULL OR claimed_at < now() - make_interval(secs => ?))
+                ORDER BY enqueued_at
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            ) c
+            WHERE q.tenant_id = c.tenant_id AND q.source_id = c.source_id
+            RETURNING q.tenant_id, q.source_id, q.attempts
+            """;
+
+    private static final String STUCK_SQL = "SELECT count(*) FROM public.embedding_deletion_queue WHERE attempts >= ?";
+
+    private static final String RESOLVE_SQL = "SELECT id FROM %s WHERE tenant_id = ? AND source_id = ANY(?)";
+
+    private static final String DELETE_SQL = "DELETE FROM %s WHERE tenant_id = ? AND id = ANY(?)";
+
+    private static final String DONE_SQL =
+            "DELETE FROM public.embedding_deletion_queue WHERE tenant_id = ? AND source_id = ANY(?)";
+
+    // claimed_at stays set, so the rows are retried once the lease expires
+    private static final String FAILED_SQL =
+            "UPDATE public.embedding_deletion_queue SET last_error = ? WHERE tenant_id = ? AND source_id = ANY(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final VectorStorePartitions partitions;
+    private final KnowledgeVersionService knowledgeVersionService;
+    private final int batchSize;
+    private final int claimSize;
+    private final long leaseSeconds;
+    private final int maxAttempts;
+    private final Timer batchTimer;
+    private final Counter deletedChunks;
+    private final AtomicLong stuckRows = new AtomicLong();
+    private final ThreadFactory drainThreadFactory = Thread.ofVirtual().name("embedding-deletion-", 0).factory();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+
+    public EmbeddingDeletionQueue(JdbcTemplate jdbcTemplate,
+                                  VectorStorePartitions partitions,
+                                  KnowledgeVersionService knowledgeVersionService,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${cognitia.embedding-deletion.batch-size:500}") int batchSize,
+                                  @Value("${cognitia.embedding-deletion.claim-size:50}") int claimSize,
+                                  @Value("${cognitia.embedding-deletion.lease-seconds:300}") long leaseSeconds,
+                                  @Value("${cognitia.embedding-deletion.max-attempts:5}") int maxAttempts) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.partitions = partitions;
+        this.knowledgeVersionService = knowledgeVersionService;
+        this.batchSize = Math.max(1, batchSize);
+        this.claimSize = Math.max(1, claimSize);
+        this.leaseSeconds = leaseSeconds;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.batchTimer = Timer.builder("cognitia.embedding.deletion.batch")
+                .description("Latency of one batched chunk delete")
+                .register(meterRegistry);
+        this.deletedChunks = Counter.builder("cognitia.embedding.deletion.chunks")
+                .description("Chunks removed by the embedding deletion queue")
+                .register(meterRegistry);
+        Gauge.builder("cognitia.embedding.deletion.stuck", stuckRows, AtomicLong::get)
+                .description("Queued resources no longer retried after max-attempts failures")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues the chunks of these resources for deletion. Joins the surrounding transaction, so the
+     * queue rows commit or roll back together with the resource rows; draining starts after commit.
+     */
+    public void enqueue(UUID tenantId, Collection<UUID> sourceIds) {
+        if (sourceIds.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = sourceIds.stream().map(sourceId -> new Object[] { tenantId, sourceId }).toList();
+        jdbcTemplate.batchUpdate(ENQUEUE_SQL, rows);
+        log.info("[EmbeddingDeletionQueue] Enqueued tenantId={} resources={}", tenantId, sourceIds.size());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    requestDrain();
+                }
+            });
+        } else {
+            requestDrain();
+        }
+    }
+
+    /**
+     * Starts draining on a virtual thread unless this instance is already draining, in which case the
+     * running drain makes one more pass.
+     */
+    public void requestDrain() {
+        drainRequested.set(true);
+        if (draining.compareAndSet(false, true)) {
+            drainThreadFactory.newThread(this::drainLoop).start();
+        }
+    }
+
+    @Scheduled(fixedDelay = 30_000)
+    @SchedulerLock(name = "embeddingDeletionQueue", lockAtMostFor = "PT10M", lockAtLeastFor = "PT10S")
+    public void drainPending() {
+        while (drainOnce() > 0) {
+            // keep claiming until nothing claimable is left
+        }
+    }
+
+    /**
+     * Refreshes the stuck-row gauge. Runs on every instance, so each one reports the same queue-wide count.
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void refreshStuckCount() {
+        try {
+            Long count = jdbcTemplate.queryForObject(STUCK_SQL, Long.class, maxAttempts);
+            stuckRows.set(count != null ? count : 0L);
+        } catch (Exception e) {
+            log.warn("[EmbeddingDeletionQueue] Could not count stuck rows: {}", e.getMessage());
+        }
+    }
+
+    private void drainLoop() {
+        try {
+            while (drainRequested.getAndSet(false)) {
+                while (drainOnce() > 0) {
+                    // keep claiming until nothing claimable is left
+                }
+            }
+        } catch (Exception e) {
+            log.error("[EmbeddingDeletionQueue] Drain failed, the scheduled sweep will retry: {}", e.getMessage(), e);
+        } finally {
+            draining.set(false);
+            // A request that arrived between the last check and releasing the flag
+            if (drainRequested.get() && draining.compareAndSet(false, true)) {
+                drainThreadFactory.newThread(this::drainLoop).start();
+            }
+        }
+    }
+
+    /**
+     * @return the number of queue rows claimed by this pass
+     */
+    private int drainOnce() {
+        Map<UUID, List<UUID>> claimed = new LinkedHashMap<>();
+        Map<UUID, Integer> lastAttempts = new LinkedHashMap<>();
+        jdbcTemplate.query(CLAIM_SQL, rs -> {
+            UUID tenantId = rs.getObject("tenant_id", UUID.class);
+            claimed.computeIfAbsent(tenantId, t -> new ArrayList<>()).add(rs.getObject("source_id", UUID.class));
+            lastAttempts.merge(tenantId, rs.getInt("attempts"), Math::max);
+        }, maxAttempts, leaseSeconds, claimSize);
+
+        int count = 0;
+        for (Map.Entry<UUID, List<UUID>> entry : claimed.entrySet()) {
+            count += entry.getValue().size();
+            UUID tenantId = entry.getKey();
+            List<UUID> sourceIds = entry.getValue();
+            try {
+                int deleted = deleteChunks(tenantId, sourceIds);
+                updateWithIds(DONE_SQL, sourceIds, tenantId);
+                knowledgeVersionService.bump(tenantId);
+                log.info("[EmbeddingDeletionQueue] tenantId={} resources={} chunksDeleted={}",
+                        tenantId, sourceIds.size(), deleted);
+            } catch (Exception e) {
+                int attempts = lastAttempts.get(tenantId);
+                if (attempts >= maxAttempts) {
+                    log.error("[EmbeddingDeletionQueue] Giving up on tenant {} ({} resources) after {} attempts: {}",
+                            tenantId, sourceIds.size(), attempts, e.getMessage(), e);
+                } else {
+                    log.warn("[EmbeddingDeletionQueue] Failed to delete chunks for tenant {} ({} resources), attempt {}/{}: {}",
+                            tenantId, sourceIds.size(), attempts, maxAttempts, e.getMessage());
+                }
+                updateWithIds(FAILED_SQL, sourceIds, e.getMessage(), tenantId);
+            }
+        }
+        return count;
+    }
+
+    private int deleteChunks(UUID tenantId, List<UUID> sourceIds) {
+        String table = partitions.tableFor(tenantId);
+        List<UUID> chunkIds = jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(RESOLVE_SQL.formatted(table));
+            ps.setObject(1, tenantId);
+            ps.setArray(2, connection.createArrayOf("uuid", sourceIds.toArray()));
+            return ps;
+        }, (rs, rowNum) -> rs.getObject("id", UUID.class));
+
+        int deleted = 0;
+        for (int from = 0; from < chunkIds.size(); from += batchSize) {
+            List<UUID> batch = chunkIds.subList(from, Math.min(from + batchSize, chunkIds.size()));
+            long start = System.nanoTime();
+            deleted += jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(DELETE_SQL.formatted(table));
+                ps.setObject(1, tenantId);
+                ps.setArray(2, connection.createArrayOf("uuid", batch.toArray()));
+                return ps;
+            });
+            batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        deletedChunks.increment(deleted);
+        return deleted;
+    }
+
+    /**
+     * Runs a queue update whose last parameter is the source id array; leading parameters are bound in order.
+     */
+    private void updateWithIds(String sql, List<UUID> sourceIds, Object... leading) {
+        try {
+            jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(sql);
+                for (int i = 0; i < leading.length; i++) {
+                    ps.setObject(i + 1, leading[i]);
+                }
+                ps.setArray(leading.length + 1, connection.createArrayOf("uuid", sourceIds.toArray()));
+                return ps;
+            });
+        } catch (Exception e) {
+            log.warn("[EmbeddingDeletionQueue] Queue update failed for {} resources: {}", sourceIds.size(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.intellidesk.cognitia.ingestion.service.vectorstore;
+
+/**
+ * A partitioned HNSW index on vector_store.
+ * @param tag short marker used in the names of per-partition child indexes
+ */
+public record HnswIndexSpec(String name, String column, String opclass, String tag) {
+
+    public static final HnswIndexSpec FULL_PRECISION =
+            new HnswIndexSpec("spring_ai_vector_index", "embedding", "public.vector_cosine_ops", "hnsw");
+}
@@ -0,0 +1,181 @@
+package com.intellidesk.cognitia.ingestion.service.vectorstore;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link EmbeddingModel} decorator for search queries. {@link #embed(String)} is served from an
+ * in-process LRU, then from Redis, and only then from the model. Keys are the SHA-256 of the query
+ * text normalized like chunk text (see {@link EmbeddingCache}) and lower-cased, plus the model id
+ * and dimensions. Concurrent misses for the same key share one upstream call.
+ *
+ * Every other method delegates unchanged, so ingestion never goes through this cache.
+ */
+@Slf4j
+public class QueryEmbeddingCache implements EmbeddingModel {
+
+    private static final String REDIS_KEY_FMT = "cognitia:query-embedding:%s:%d:%s";
+
+    private final EmbeddingModel delegate;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final String model;
+    private final int dimensions;
+    private final Duration redisTtl;
+    private final Map<String, float[]> nearCache;
+    private final Map<String, CompletableFuture<float[]>> inFlight = new ConcurrentHashMap<>();
+
+    public QueryEmbeddingCache(EmbeddingModel delegate,
+                               StringRedisTemplate redisTemplate,
+                               MeterRegistry meterRegistry,
+                               boolean enabled,
+                               String model,
+                               int dimensions,
+                               int nearMaxEntries,
+                               long redisTtlHours) {
+        this.delegate = delegate;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.model = model;
+        this.dimensions = dimensions;
+        this.redisTtl = Duration.ofHours(redisTtlHours);
+        int maxEntries = Math.max(1, nearMaxEntries);
+        this.nearCache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    @Override
+    public float[] embed(String text) {
+        if (!enabled || text == null || text.isBlank()) {
+            return delegate.embed(text);
+        }
+        long start = System.nanoTime();
+        String key = REDIS_KEY_FMT.formatted(model, dimensions, EmbeddingCache.contentHash(text.toLowerCase(Locale.ROOT)));
+
+        float[] near = nearCache.get(key);
+        if (near != null) {
+            record("near", start);
+            return near;
+        }
+
+        CompletableFuture<float[]> mine = new CompletableFuture<>();
+        CompletableFuture<float[]> leader = inFlight.putIfAbsent(key, mine);
+        if (leader != null) {
+            float[] shared = await(leader);
+            record("coalesced", start);
+            return shared;
+        }
+        try {
+            float[] embedding = readRedis(key);
+            String result = "redis";
+            if (embedding == null) {
+                embedding = delegate.embed(text);
+                writeRedis(key, embedding);
+                result = "miss";
+            }
+            nearCache.put(key, embedding);
+            mine.complete(embedding);
+            record(result, start);
+            return embedding;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return delegate.call(request);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return delegate.embed(document);
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    private float[] readRedis(String key) {
+        try {
+            String value = redisTemplate.opsForValue().get(key);
+            return value != null ? decode(value) : null;
+        } catch (Exception e) {
+            log.warn("[QueryEmbeddingCache] Redis read failed, embedding upstream: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeRedis(String key, float[] embedding) {
+        try {
+            redisTemplate.opsForValue().set(key, encode(embedding), redisTtl);
+        } catch (Exception e) {
+            log.warn("[QueryEmbeddingCache] Redis write failed for {}: {}", key, e.getMessage());
+        }
+    }
+
+    private static float[] await(CompletableFuture<float[]> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Little-endian float32 bytes, Base64 encoded: about a third of the size of the JSON array.
+     */
+    private static String encode(float[] embedding) {
+        ByteBuffer buffer = ByteBuffer.allocate(embedding.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(embedding);
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    private static float[] decode(String value) {
+        ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(value)).order(ByteOrder.LITTLE_ENDIAN);
+        float[] embedding = new float[buffer.remaining() / Float.BYTES];
+        buffer.asFloatBuffer().get(embedding);
+        return embedding;
+    }
+
+    private void record(String result, long start) {
+        Timer.builder("cognitia.query-embedding")
+                .description("Query embedding latency by cache tier (near, redis, coalesced, miss)")
+                .tag("result", result)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,499 @@
+package com.intellidesk.cognitia.ingestion.service.vectorstore;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.intellidesk.cognitia.ingestion.config.HnswIndexProperties;
+import com.intellidesk.cognitia.ingestion.models.dtos.VectorIndexStatus;
+import com.pgvector.PGvector;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Owns the HNSW indexes of vector_store: per-query ef_search, online rebuilds with the configured
+ * build parameters, the quantized-embedding backfill, and the status report behind the admin endpoint.
+ *
+ * A rebuild never blocks writers for long. It creates an invalid partitioned index ON ONLY the parent,
+ * builds each partition's index CONCURRENTLY and attaches it, then swaps the new index in for the old
+ * one in a short transaction. Jobs run one at a time, guarded across instances by an advisory lock.
+ */
+@Service
+@Slf4j
+public class VectorIndexManager {
+
+    private static final long JOB_LOCK_KEY = 7_346_210_913L;
+    private static final long READY_CHECK_TTL_MILLIS = 60_000;
+    private static final Pattern MEMORY_SETTING = Pattern.compile("\\d+\\s*(kB|MB|GB)?");
+
+    private static final String PARTITIONS_SQL = """
+            SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'public.vector_store'::regclass ORDER BY c.relname
+            """;
+
+    private static final String ATTACHED_SQL = """
+            SELECT t.relname FROM pg_inherits i
+            JOIN pg_index x ON x.indexrelid = i.inhrelid
+            JOIN pg_class t ON t.oid = x.indrelid
+            WHERE i.inhparent = to_regclass(?)
+            """;
+
+    private static final String SIZE_SQL = """
+            SELECT coalesce(sum(pg_relation_size(i.inhrelid)), 0) AS size_bytes, count(*) AS partitions
+            FROM pg_inherits i WHERE i.inhparent = to_regclass(?)
+            """;
+
+    private static final String PROGRESS_SQL = """
+            SELECT c.relname, p.phase, p.tuples_done, p.tuples_total
+            FROM pg_stat_progress_create_index p JOIN pg_class c ON c.oid = p.relid
+            WHERE p.relid IN (SELECT inhrelid FROM pg_inherits WHERE inhparent = 'public.vector_store'::regclass)
+            LIMIT 1
+            """;
+
+    private static final String ESTIMATED_ROWS_SQL = """
+            SELECT coalesce(sum(greatest(c.reltuples, 0)), 0)::bigint FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'public.vector_store'::regclass
+            """;
+
+    // Block sampling reads only the sampled pages; random() then orders just those rows
+    private static final String SAMPLE_QUERIES_SQL = """
+            SELECT tenant_id, embedding::text AS embedding FROM public.vector_store TABLESAMPLE SYSTEM (%s)
+            WHERE embedding IS NOT NULL ORDER BY random() LIMIT ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final HnswIndexProperties properties;
+    private final VectorStorePartitions partitions;
+    private final VectorQuantization quantization;
+    private final int oversample;
+    private final int backfillBatchSize;
+    private final AtomicBoolean jobRunning = new AtomicBoolean();
+
+    private volatile String jobName;
+    private volatile String jobState = "IDLE";
+    private volatile Instant jobStartedAt;
+    private volatile Instant jobFinishedAt;
+    private volatile int partitionsDone;
+    private volatile int partitionsTotal;
+    private volatile String currentPartition;
+    private volatile String jobError;
+    private volatile long quantizedReadyCheckedAt;
+    private volatile boolean quantizedReady;
+
+    public VectorIndexManager(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              HnswIndexProperties properties,
+                              VectorStorePartitions partitions,
+                              @Value("${cognitia.vectorstore.quantization.mode:none}") String quantizationMode,
+                              @Value("${cognitia.vectorstore.quantization.oversample:4}") int oversample,
+                              @Value("${cognitia.vectorstore.quantization.backfill-batch-size:1000}") int backfillBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.properties = properties;
+        this.partitions = partitions;
+        this.quantization = VectorQuantization.valueOf(quantizationMode.strip().toUpperCase());
+        this.oversample = Math.max(1, oversample);
+        this.backfillBatchSize = Math.max(1, backfillBatchSize);
+    }
+
+    public VectorQuantization quantization() {
+        return quantization;
+    }
+
+    /**
+     * Candidates fetched from the quantized index per requested result, before re-scoring.
+     */
+    public int oversample() {
+        return oversample;
+    }
+
+    /**
+     * Whether searches can use the quantized index: a mode is configured and its index is built and valid.
+     * Until then searches stay on the full-precision index.
+     */
+    public boolean quantizedSearchReady() {
+        if (!quantization.enabled()) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        if (now - quantizedReadyCheckedAt > READY_CHECK_TTL_MILLIS) {
+            Boolean valid = jdbcTemplate.queryForObject(
+                    "SELECT coalesce((SELECT indisvalid FROM pg_index WHERE indexrelid = to_regclass(?)), false)",
+                    Boolean.class, "public." + quantization.index().name());
+            quantizedReady = Boolean.TRUE.equals(valid);
+            quantizedReadyCheckedAt = now;
+        }
+        return quantizedReady;
+    }
+
+    /**
+     * Runs an ANN query in a read-only transaction with hnsw.ef_search sized for the number of rows it
+     * asks the index for. The setting is transaction-local (SET LOCAL), so it never leaks to the pool.
+     */
+    public <T> T withEfSearch(int limit, Supplier<T> query) {
+        return readOnlyTransaction.execute(status -> {
+            setLocal("hnsw.ef_search", String.valueOf(properties.efSearchFor(limit)));
+            return query.get();
+        });
+    }
+
+    /**
+     * Starts an online rebuild of the full-precision index in the background.
+     * @return false if an index job is already running on this instance
+     */
+    public boolean startRebuild() {
+        return startJob("rebuild", connection -> rebuild(connection, HnswIndexSpec.FULL_PRECISION));
+    }
+
+    /**
+     * Fills the configured quantized column for every row that lacks it, then builds its index online.
+     * @return false if no quantization mode is configured or an index job is already running
+     */
+    public boolean startQuantizedBackfill() {
+        if (!quantization.enabled()) {
+            return false;
+        }
+        return startJob("quantized-backfill", connection -> {
+            backfill(connection);
+            rebuild(connection, quantization.index());
+            quantizedReadyCheckedAt = 0;
+            return null;
+        });
+    }
+
+    private boolean startJob(String name, ConnectionCallback<Void> job) {
+        if (!jobRunning.compareAndSet(false, true)) {
+            return false;
+        }
+        jobName = name;
+        jobState = "RUNNING";
+        jobStartedAt = Instant.now();
+        jobFinishedAt = null;
+        jobError = null;
+        partitionsDone = 0;
+        partitionsTotal = 0;
+        Thread.ofVirtual().name("vector-index-" + name).start(() -> {
+            try {
+                jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                    connection.setAutoCommit(true);
+                    if (!tryAdvisoryLock(connection)) {
+                        jobState = "SKIPPED";
+                        jobError = "An index job is already running on another instance";
+                        return null;
+                    }
+                    try {
+                        job.doInConnection(connection);
+                        jobState = "COMPLETED";
+                    } finally {
+                        try (Statement statement = connection.createStatement()) {
+                            statement.execute("SELECT pg_advisory_unlock(" + JOB_LOCK_KEY + ")");
+                        }
+                    }
+                    return null;
+                });
+            } catch (Exception e) {
+                jobState = "FAILED";
+                jobError = e.getMessage();
+                log.error("[VectorIndexManager] Index job {} failed: {}", name, e.getMessage(), e);
+            } finally {
+                jobFinishedAt = Instant.now();
+                currentPartition = null;
+                jobRunning.set(false);
+            }
+        });
+        return true;
+    }
+
+    private Void rebuild(Connection connection, HnswIndexSpec spec) throws SQLException {
+        String nextName = spec.name() + "_next";
+        String withClause = "WITH (m = %d, ef_construction = %d)".formatted(properties.m(), properties.efConstruction());
+        String using = " USING hnsw (" + spec.column() + " " + spec.opclass() + ") " + withClause;
+        String suffix = "_" + spec.tag() + "_" + Long.toString(System.currentTimeMillis() / 1000, 36);
+        partitionsDone = 0;
+        partitionsTotal = 0;
+
+        try (Statement statement = connection.createStatement()) {
+            if (MEMORY_SETTING.matcher(properties.maintenanceWorkMem()).matches()) {
+                statement.execute("SET maintenance_work_mem = '" + properties.maintenanceWorkMem() + "'");
+            }
+            statement.execute("DROP INDEX IF EXISTS public." + nextName);
+            statement.execute("CREATE INDEX " + nextName + " ON ONLY public.vector_store" + using);
+
+            // Loop until every partition, including ones created meanwhile, has an attached index
+            List<String> pending = pendingPartitions(connection, nextName);
+            while (!pending.isEmpty()) {
+                partitionsTotal = partitionsDone + pending.size();
+                for (String partition : pending) {
+                    currentPartition = partition;
+                    String child = partition + suffix;
+                    log.info("[VectorIndexManager] Building {} on {}{}", child, partition, using);
+                    statement.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + child + " ON public." + partition + using);
+                    statement.execute("ALTER INDEX public." + nextName + " ATTACH PARTITION public." + child);
+                    partitionsDone++;
+                }
+                pending = pendingPartitions(connection, nextName);
+            }
+
+            connection.setAutoCommit(false);
+            try {
+                statement.execute("DROP INDEX IF EXISTS public." + spec.name());
+                statement.execute("ALTER INDEX public." + nextName + " RENAME TO " + spec.name());
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+        log.info("[VectorIndexManager] Built {} on {} partitions {}", spec.name(), partitionsDone, withClause);
+        return null;
+    }
+
+    /**
+     * Fills the quantized column partition by partition in short autocommit batches, so no long
+     * transaction or table-wide lock is held while it runs.
+     */
+    private void backfill(Connection connection) throws SQLException {
+        List<String> all = listPartitions(connection);
+        partitionsTotal = all.size();
+        String column = quantization.column();
+        for (String partition : all) {
+            currentPartition = partition;
+            String sql = "UPDATE public." + partition + " SET " + column + " = " + quantization.backfillExpression()
+                    + " WHERE ctid IN (SELECT ctid FROM public." + partition
+                    + " WHERE " + column + " IS NULL AND embedding IS NOT NULL LIMIT " + backfillBatchSize + ")";
+            long rows = 0;
+            try (Statement statement = connection.createStatement()) {
+                int updated;
+                do {
+                    updated = statement.executeUpdate(sql);
+                    rows += updated;
+                } while (updated > 0);
+            }
+            partitionsDone++;
+            log.info("[VectorIndexManager] Backfilled {} rows of {} in {}", rows, column, partition);
+        }
+    }
+
+    private boolean tryAdvisoryLock(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT pg_try_advisory_lock(" + JOB_LOCK_KEY + ")")) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    private List<String> listPartitions(Connection connection) throws SQLException {
+        List<String> result = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(PARTITIONS_SQL)) {
+            while (rs.next()) {
+                result.add(rs.getString(1));
+            }
+        }
+        return result;
+    }
+
+    private List<String> pendingPartitions(Connection connection, String parentIndex) throws SQLException {
+        Set<String> attached = new HashSet<>();
+        try (PreparedStatement ps = connection.prepareStatement(ATTACHED_SQL)) {
+            ps.setString(1, "public." + parentIndex);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    attached.add(rs.getString(1));
+                }
+            }
+        }
+        List<String> pending = listPartitions(connection);
+        pending.removeIf(attached::contains);
+        return pending;
+    }
+
+    public VectorIndexStatus status(int recallSamples, int topK) {
+        HnswIndexSpec spec = HnswIndexSpec.FULL_PRECISION;
+        Map<String, Object> size = jdbcTemplate.queryForMap(SIZE_SQL, "public." + spec.name());
+        String rawOptions = jdbcTemplate.queryForObject(
+                "SELECT coalesce((SELECT array_to_string(reloptions, ',') FROM pg_class WHERE oid = to_regclass(?)), '')",
+                String.class, "public." + spec.name());
+        List<String> options = rawOptions == null || rawOptions.isBlank() ? List.of() : Arrays.asList(rawOptions.split(","));
+
+        return new VectorIndexStatus(
+                spec.name(),
+                ((Number) size.get("size_bytes")).longValue(),
+                ((Number) size.get("partitions")).intValue(),
+                options,
+                matchesConfigured(options),
+                jobStatus(),
+                quantizationStatus(),
+                recallSamples > 0 ? sampleRecall(recallSamples, topK) : null);
+    }
+
+    /**
+     * Unset options mean the pgvector defaults (m=16, ef_construction=64).
+     */
+    private boolean matchesConfigured(List<String> options) {
+        int m = 16;
+        int efConstruction = 64;
+        for (String option : options) {
+            String[] kv = option.split("=", 2);
+            if (kv.length == 2 && "m".equals(kv[0])) {
+                m = Integer.parseInt(kv[1]);
+            } else if (kv.length == 2 && "ef_construction".equals(kv[0])) {
+                efConstruction = Integer.parseInt(kv[1]);
+            }
+        }
+        return m == properties.m() && efConstruction == properties.efConstruction();
+    }
+
+    private VectorIndexStatus.Job jobStatus() {
+        List<Map<String, Object>> progress = jdbcTemplate.queryForList(PROGRESS_SQL);
+        Map<String, Object> row = progress.isEmpty() ? Map.of() : progress.get(0);
+        return new VectorIndexStatus.Job(
+                jobName,
+                jobState,
+                jobStartedAt,
+                jobFinishedAt,
+                partitionsDone,
+                partitionsTotal,
+                row.isEmpty() ? currentPartition : (String) row.get("relname"),
+                (String) row.get("phase"),
+                row.isEmpty() ? 0 : ((Number) row.get("tuples_done")).longValue(),
+                row.isEmpty() ? 0 : ((Number) row.get("tuples_total")).longValue(),
+                jobError);
+    }
+
+    private VectorIndexStatus.Quantization quantizationStatus() {
+        if (!quantization.enabled()) {
+            return new VectorIndexStatus.Quantization(quantization.name(), false, 0, 0);
+        }
+        Long missing = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM public.vector_store WHERE " + quantization.column() + " IS NULL AND embedding IS NOT NULL",
+                Long.class);
+        Map<String, Object> size = jdbcTemplate.queryForMap(SIZE_SQL, "public." + quantization.index().name());
+        return new VectorIndexStatus.Quantization(
+                quantization.name(),
+                quantizedSearchReady(),
+                missing != null ? missing : 0,
+                ((Number) size.get("size_bytes")).longValue());
+    }
+
+    /**
+     * Uses stored chunks from a block sample as queries and compares the index's top-K (with the ef_search a
+     * search of that size would get) against an exact scan of the same tenant partition. With a
+     * quantized index ready, its over-fetch + re-score path is measured the same way.
+     */
+    private VectorIndexStatus.Recall sampleRecall(int samples, int topK) {
+        List<Map<String, Object>> queries = jdbcTemplate.queryForList(
+                SAMPLE_QUERIES_SQL.formatted(samplePercent(samples)), samples);
+        boolean measureQuantized = quantizedSearchReady();
+        int candidates = topK * oversample;
+
+        double annRecall = 0;
+        double quantizedRecall = 0;
+        long annNanos = 0;
+        long quantizedNanos = 0;
+        long exactNanos = 0;
+        for (Map<String, Object> query : queries) {
+            String table = partitions.tableFor((UUID) query.get("tenant_id"));
+            PGvector vector;
+            try {
+                vector = new PGvector((String) query.get("embedding"));
+            } catch (SQLException e) {
+                throw new IllegalStateException("Unreadable embedding", e);
+            }
+            String sql = "SELECT id::text FROM " + table + " ORDER BY embedding <=> ? LIMIT ?";
+
+            long start = System.nanoTime();
+            List<String> exact = readOnlyTransaction.execute(status -> {
+                setLocal("enable_indexscan", "off");
+                return jdbcTemplate.queryForList(sql, String.class, vector, topK);
+            });
+            exactNanos += System.nanoTime() - start;
+            Set<String> truth = exact != null ? new HashSet<>(exact) : Set.of();
+
+            start = System.nanoTime();
+            List<String> ann = withEfSearch(topK, () -> {
+                setLocal("enable_seqscan", "off");
+                return jdbcTemplate.queryForList(sql, String.class, vector, topK);
+            });
+            annNanos += System.nanoTime() - start;
+            annRecall += overlap(ann, truth);
+
+            if (measureQuantized) {
+                String quantizedSql = "WITH candidates AS (SELECT id, embedding FROM " + table
+                        + " ORDER BY " + quantization.column() + " " + quantization.distanceOperator() + " "
+                        + quantization.bindExpression() + " LIMIT ?) "
+                        + "SELECT id::text FROM candidates ORDER BY embedding <=> ? LIMIT ?";
+                start = System.nanoTime();
+                List<String> rescored = withEfSearch(candidates, () -> {
+                    setLocal("enable_seqscan", "off");
+                    return jdbcTemplate.queryForList(quantizedSql, String.class, vector, candidates, vector, topK);
+                });
+                quantizedNanos += System.nanoTime() - start;
+                quantizedRecall += overlap(rescored, truth);
+            }
+        }
+
+        int n = queries.size();
+        return new VectorIndexStatus.Recall(
+                n,
+                topK,
+                properties.efSearchFor(topK),
+                average(annRecall, n),
+                average(annNanos / 1_000_000.0, n),
+                average(exactNanos / 1_000_000.0, n),
+                measureQuantized ? average(quantizedRecall, n) : null,
+                measureQuantized ? average(quantizedNanos / 1_000_000.0, n) : null);
+    }
+
+    /**
+     * Percentage of vector_store pages to sample for about ten times the requested rows (pages are
+     * sampled whole, so the margin absorbs clustering), from the planner's row estimate.
+     */
+    private String samplePercent(int samples) {
+        Long rows = jdbcTemplate.queryForObject(ESTIMATED_ROWS_SQL, Long.class);
+        if (rows == null || rows == 0) {
+            return "100";
+        }
+        double percent = Math.min(100, Math.max(0.01, samples * 10 * 100.0 / rows));
+        return String.format(Locale.ROOT, "%.4f", percent);
+    }
+
+    private static double overlap(List<String> found, Set<String> truth) {
+        if (truth.isEmpty()) {
+            return 1;
+        }
+        return found.stream().filter(truth::contains).count() / (double) truth.size();
+    }
+
+    private static double average(double total, int n) {
+        return n == 0 ? 0 : total / n;
+    }
+
+    private void setLocal(String name, String value) {
+        jdbcTemplate.queryForObject("SELECT set_config(?, ?, true)", String.class, name, value);
+    }
+}
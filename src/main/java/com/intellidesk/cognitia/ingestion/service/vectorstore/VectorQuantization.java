@@ -0,0 +1,51 @@
+package com.intellidesk.cognitia.ingestion.service.vectorstore;
+
+/**
+ * Storage mode for the ANN pass over vector_store (see V37, V38). With any mode but NONE the index is
+ * built over a compact copy of the embedding, candidates are over-fetched from it and re-scored against
+ * the full-precision column:
+ * HALFVEC stores float16 values, BINARY one bit per dimension, and MATRYOSHKA the first 256 dimensions
+ * (the embedding model is trained so that a prefix is itself a usable embedding).
+ * One mode per deployment: only the selected mode's column is written, so the Matryoshka prefix is not
+ * kept alongside a halfvec or binary copy and switching modes needs a backfill.
+ */
+public enum VectorQuantization {
+
+    NONE(null, null, null, null, null),
+    HALFVEC("embedding_half", "?::halfvec(1536)", "embedding::halfvec(1536)", "<=>",
+            new HnswIndexSpec("vector_store_embedding_half_idx", "embedding_half", "public.halfvec_cosine_ops", "half")),
+    BINARY("embedding_bits", "binary_quantize(?::vector)::bit(1536)", "binary_quantize(embedding)::bit(1536)", "<~>",
+            new HnswIndexSpec("vector_store_embedding_bits_idx", "embedding_bits", "public.bit_hamming_ops", "bits")),
+    MATRYOSHKA("embedding_prefix", "subvector(?::vector, 1, 256)::vector(256)", "subvector(embedding, 1, 256)::vector(256)", "<=>",
+            new HnswIndexSpec("vector_store_embedding_prefix_idx", "embedding_prefix", "public.vector_cosine_ops", "mrl"));
+
+    private final String column;
+    private final String bindExpression;
+    private final String backfillExpression;
+    private final String distanceOperator;
+    private final HnswIndexSpec index;
+
+    VectorQuantization(String column, String bindExpression, String backfillExpression,
+                       String distanceOperator, HnswIndexSpec index) {
+        this.column = column;
+        this.bindExpression = bindExpression;
+        this.backfillExpression = backfillExpression;
+        this.distanceOperator = distanceOperator;
+        this.index = index;
+    }
+
+    /** Column holding the quantized copy. */
+    public String column() { return column; }
+
+    /** SQL turning one bound full-precision vector into the quantized type. */
+    public String bindExpression() { return bindExpression; }
+
+    /** SQL deriving the quantized copy from the row's embedding column. */
+    public String backfillExpression() { return backfillExpression; }
+
+    public String distanceOperator() { return distanceOperator; }
+
+    public HnswIndexSpec index() { return index; }
+
+    public boolean enabled() { return this != NONE; }
+}
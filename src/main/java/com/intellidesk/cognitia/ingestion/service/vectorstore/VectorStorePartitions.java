@@ -0,0 +1,165 @@
+package com.intellidesk.cognitia.ingestion.service.vectorstore;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-tenant LIST partitions of vector_store (see V36). Each tenant's chunks and HNSW graph live in
+ * vector_store_t_&lt;uuid without dashes&gt;; reads for a known tenant go straight to that table.
+ *
+ * Partitions are created when a tenant is onboarded. Ingestion inserts into the partition itself,
+ * never through the parent, so a missing partition fails the insert instead of routing the rows into
+ * the default partition (which would then block the partition from being created). A partition seen
+ * in the catalog is trusted for partition-check-seconds before the catalog is asked again. Offboarding
+ * a tenant drops its partition ({@link #dropTenant}).
+ */
+@Component
+@Slf4j
+public class VectorStorePartitions {
+
+    public static final String PARENT_TABLE = "public.vector_store";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate ddlTransaction;
+    private final long checkIntervalMillis;
+    // Tenant -> time until which its partition is assumed to exist without asking the catalog
+    private final Map<UUID, Long> knownPartitions = new ConcurrentHashMap<>();
+
+    public VectorStorePartitions(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${cognitia.vectorstore.partition-check-seconds:60}") long checkSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ddlTransaction = new TransactionTemplate(transactionManager);
+        this.ddlTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.checkIntervalMillis = checkSeconds * 1000;
+    }
+
+    public static String partitionName(UUID tenantId) {
+        return "vector_store_t_" + tenantId.toString().replace("-", "");
+    }
+
+    public static String partitionTable(UUID tenantId) {
+        return "public." + partitionName(tenantId);
+    }
+
+    /**
+     * Table to query for a tenant: its partition when it exists, otherwise the parent table.
+     */
+    public String tableFor(UUID tenantId) {
+        if (tenantId != null && exists(tenantId)) {
+            return partitionTable(tenantId);
+        }
+        return PARENT_TABLE;
+    }
+
+    /**
+     * Creates a new tenant's partition once the surrounding transaction commits (immediately if none
+     * is active). A failure is only logged: {@link #ensurePartition} retries on the tenant's first ingest.
+     */
+    public void onboard(UUID tenantId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    createQuietly(tenantId);
+                }
+            });
+        } else {
+            createQuietly(tenantId);
+        }
+    }
+
+    /**
+     * Creates the tenant's partition if the catalog does not have it. Must run before the tenant's first
+     * insert; after onboarding this is a cache lookup.
+     */
+    public void ensurePartition(UUID tenantId) {
+        if (exists(tenantId)) {
+            return;
+        }
+        try {
+            // Own transaction, so the parent's ACCESS EXCLUSIVE lock is released right after the DDL
+            ddlTransaction.executeWithoutResult(status -> {
+                jdbcTemplate.execute("SET LOCAL lock_timeout = '5s'");
+                jdbcTemplate.execute(String.format(
+                        "CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES IN ('%s')",
+                        partitionTable(tenantId), PARENT_TABLE, tenantId));
+            });
+            log.info("[VectorStorePartitions] Created partition {} for tenant {}", partitionName(tenantId), tenantId);
+        } catch (DataAccessException e) {
+            // Another instance may have created it concurrently
+            if (!exists(tenantId)) {
+                throw e;
+            }
+        }
+        knownPartitions.put(tenantId, System.currentTimeMillis() + checkIntervalMillis);
+    }
+
+    /**
+     * Offboards a tenant: detaches and drops its partition, which removes all of its chunks and its HNSW
+     * graph without touching other tenants' rows, and purges its embedding cache and pending deletions.
+     * Runs in its own transaction. Other instances notice the drop within partition-check-seconds.
+     */
+    public void dropTenant(UUID tenantId) {
+        String table = partitionTable(tenantId);
+        ddlTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.execute("SET LOCAL lock_timeout = '5s'");
+            Boolean attached = jdbcTemplate.queryForObject(
+                    "SELECT to_regclass(?) IS NOT NULL", Boolean.class, table);
+            if (Boolean.TRUE.equals(attached)) {
+                jdbcTemplate.execute(String.format("ALTER TABLE %s DETACH PARTITION %s", PARENT_TABLE, table));
+                jdbcTemplate.execute("DROP TABLE " + table);
+            }
+            jdbcTemplate.update("DELETE FROM public.embedding_cache WHERE tenant_id = ?", tenantId);
+            jdbcTemplate.update("DELETE FROM public.embedding_deletion_queue WHERE tenant_id = ?", tenantId);
+        });
+        forget(tenantId);
+        log.info("[VectorStorePartitions] Dropped partition {} for tenant {}", partitionName(tenantId), tenantId);
+    }
+
+    /**
+     * Drops what this instance believes about the tenant's partition, e.g. after a statement against it
+     * failed because it was dropped elsewhere. The next lookup asks the catalog.
+     */
+    public void forget(UUID tenantId) {
+        knownPartitions.remove(tenantId);
+    }
+
+    private void createQuietly(UUID tenantId) {
+        try {
+            ensurePartition(tenantId);
+        } catch (Exception e) {
+            log.warn("[VectorStorePartitions] Could not create partition for new tenant {}, first ingest will retry: {}",
+                    tenantId, e.getMessage());
+        }
+    }
+
+    private boolean exists(UUID tenantId) {
+        long now = System.currentTimeMillis();
+        Long trustedUntil = knownPartitions.get(tenantId);
+        if (trustedUntil != null && trustedUntil > now) {
+            return true;
+        }
+        Boolean found = jdbcTemplate.queryForObject(
+                "SELECT to_regclass(?) IS NOT NULL", Boolean.class, partitionTable(tenantId));
+        if (Boolean.TRUE.equals(found)) {
+            knownPartitions.put(tenantId, now + checkIntervalMillis);
+            return true;
+        }
+        knownPartitions.remove(tenantId);
+        return false;
+    }
+}
@@ -35,11 +35,12 @@ public enum Permissions {
     QUOTA_READ,
     QUOTA_ADMIN,
     DEPARTMENT_MANAGE,
-    CLASSIFICATION_MANAGE;
+    CLASSIFICATION_MANAGE,
+    VECTOR_INDEX_ADMIN;
 
     private static final Set<Permissions> PLATFORM_LEVEL = Set.of(
             PLAN_CREATE, PLAN_UPDATE, PLAN_DELETE, PLAN_READ,
-            TENANT_LIST, QUOTA_ADMIN
+            TENANT_LIST, QUOTA_ADMIN, VECTOR_INDEX_ADMIN
     );
 
     public static boolean isPlatformLevel(Permissions permission) {
@@ -17,7 +17,7 @@ public interface UserRepository extends JpaRepository<User, UUID>{
     @EntityGraph(attributePaths = "role")
     List<User> findAll();
 
-    @EntityGraph(attributePaths = {"role", "role.permissions"})
+    @EntityGraph(attributePaths = {"role", "role.permissions", "departments"})
     @Query("SELECT u FROM User u WHERE u.email = :email")
     Optional<User> findByEmailWithRoleAndPermissions(@Param("email") String email);
 
@@ -0,0 +1,25 @@
+package com.intellidesk.cognitia.userandauth.services;
+
+import java.util.UUID;
+
+/**
+ * Per-tenant version stamp for cached access policies. Any change to roles, departments,
+ * classification levels or a user's assignments bumps the tenant's version so every cached
+ * policy of that tenant is ignored from the next request on.
+ */
+public interface AccessPolicyVersionService {
+
+    String versionKey(UUID tenantId);
+
+    /**
+     * Returns the tenant's version, seeding a random epoch if it has none yet, so a version is never
+     * reused after its key was lost.
+     */
+    long currentVersion(UUID tenantId);
+
+    /**
+     * Bumps the tenant's version once the surrounding transaction commits (immediately if none is active).
+     * If Redis rejects the bump, the version key is dropped instead (retried until it succeeds).
+     */
+    void bump(UUID tenantId);
+}
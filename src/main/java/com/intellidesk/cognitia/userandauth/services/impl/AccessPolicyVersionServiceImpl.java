@@ -0,0 +1,61 @@
+package com.intellidesk.cognitia.userandauth.services.impl;
+
+import java.util.UUID;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.intellidesk.cognitia.common.EpochVersionCounter;
+import com.intellidesk.cognitia.userandauth.services.AccessPolicyVersionService;
+
+@Service
+public class AccessPolicyVersionServiceImpl implements AccessPolicyVersionService {
+
+    private static final String VERSION_KEY_FMT = "cognitia:access-policy:version:%s";
+
+    private final EpochVersionCounter counter;
+
+    public AccessPolicyVersionServiceImpl(StringRedisTemplate redisTemplate) {
+        this.counter = new EpochVersionCounter(redisTemplate, VERSION_KEY_FMT, "AccessPolicyVersion");
+    }
+
+    @Override
+    public String versionKey(UUID tenantId) {
+        return counter.key(tenantId);
+    }
+
+    @Override
+    public long currentVersion(UUID tenantId) {
+        return counter.current(tenantId);
+    }
+
+    @Override
+    public void bump(UUID tenantId) {
+        if (tenantId == null) {
+            return;
+        }
+        // After commit: a reader that loads the old rows can then only cache them under the old version
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    counter.bump(tenantId);
+                }
+            });
+        } else {
+            counter.bump(tenantId);
+        }
+    }
+
+    /**
+     * Retries dropping the version key of every tenant whose bump failed. While Redis is unreachable the
+     * resolvers load from the database anyway; this closes the window once it is back.
+     */
+    @Scheduled(fixedDelay = 5_000)
+    public void retryPendingInvalidations() {
+        counter.retryPendingInvalidations();
+    }
+}
@@ -10,6 +10,7 @@ import com.intellidesk.cognitia.userandauth.models.dtos.ClassificationLevelDTO;
 import com.intellidesk.cognitia.userandauth.models.entities.ClassificationLevel;
 import com.intellidesk.cognitia.userandauth.multiteancy.TenantContext;
 import com.intellidesk.cognitia.userandauth.repository.ClassificationLevelRepository;
+import com.intellidesk.cognitia.userandauth.services.AccessPolicyVersionService;
 import com.intellidesk.cognitia.userandauth.services.ClassificationService;
 import com.intellidesk.cognitia.utils.exceptionHandling.exceptions.ApiException;
 
@@ -20,6 +21,7 @@ import lombok.RequiredArgsConstructor;
 public class ClassificationServiceImpl implements ClassificationService {
 
     private final ClassificationLevelRepository classificationLevelRepository;
+    private final AccessPolicyVersionService accessPolicyVersionService;
 
     @Override
     @Transactional
@@ -37,6 +39,7 @@ public class ClassificationServiceImpl implements ClassificationService {
             .build();
         level.setTenantId(tenantId);
         ClassificationLevel saved = classificationLevelRepository.save(level);
+        accessPolicyVersionService.bump(tenantId);
         return toDTO(saved);
     }
 
@@ -68,7 +71,9 @@ public class ClassificationServiceImpl implements ClassificationService {
         }
         if (name != null) level.setName(name);
         if (rank != null) level.setRank(rank);
-        return toDTO(classificationLevelRepository.save(level));
+        ClassificationLevel saved = classificationLevelRepository.save(level);
+        accessPolicyVersionService.bump(tenantId);
+        return toDTO(saved);
     }
 
     @Override
@@ -80,6 +85,7 @@ public class ClassificationServiceImpl implements ClassificationService {
             throw new ApiException("Classification level not found");
         }
         classificationLevelRepository.delete(level);
+        accessPolicyVersionService.bump(level.getTenantId());
     }
 
     private ClassificationLevelDTO toDTO(ClassificationLevel level) {
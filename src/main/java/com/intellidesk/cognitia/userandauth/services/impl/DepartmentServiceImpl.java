@@ -10,6 +10,7 @@ import com.intellidesk.cognitia.userandauth.models.dtos.DepartmentDTO;
 import com.intellidesk.cognitia.userandauth.models.entities.Department;
 import com.intellidesk.cognitia.userandauth.multiteancy.TenantContext;
 import com.intellidesk.cognitia.userandauth.repository.DepartmentRepository;
+import com.intellidesk.cognitia.userandauth.services.AccessPolicyVersionService;
 import com.intellidesk.cognitia.userandauth.services.DepartmentService;
 import com.intellidesk.cognitia.utils.exceptionHandling.exceptions.ApiException;
 
@@ -20,6 +21,7 @@ import lombok.RequiredArgsConstructor;
 public class DepartmentServiceImpl implements DepartmentService {
 
     private final DepartmentRepository departmentRepository;
+    private final AccessPolicyVersionService accessPolicyVersionService;
 
     @Override
     @Transactional
@@ -34,6 +36,7 @@ public class DepartmentServiceImpl implements DepartmentService {
             .build();
         dept.setTenantId(tenantId);
         Department saved = departmentRepository.save(dept);
+        accessPolicyVersionService.bump(tenantId);
         return toDTO(saved);
     }
 
@@ -60,7 +63,9 @@ public class DepartmentServiceImpl implements DepartmentService {
         }
         dept.setName(dto.name());
         dept.setDescription(dto.description());
-        return toDTO(departmentRepository.save(dept));
+        Department saved = departmentRepository.save(dept);
+        accessPolicyVersionService.bump(tenantId);
+        return toDTO(saved);
     }
 
     @Override
@@ -75,6 +80,7 @@ public class DepartmentServiceImpl implements DepartmentService {
             throw new ApiException("Cannot delete the default General department");
         }
         departmentRepository.delete(dept);
+        accessPolicyVersionService.bump(dept.getTenantId());
     }
 
     private DepartmentDTO toDTO(Department dept) {
@@ -18,6 +18,7 @@ import com.intellidesk.cognitia.userandauth.repository.ClassificationLevelReposi
 import com.intellidesk.cognitia.userandauth.repository.PermissionsRepository;
 import com.intellidesk.cognitia.userandauth.repository.RoleRepository;
 import com.intellidesk.cognitia.userandauth.repository.UserRepository;
+import com.intellidesk.cognitia.userandauth.services.AccessPolicyVersionService;
 import com.intellidesk.cognitia.userandauth.services.RoleService;
 import com.intellidesk.cognitia.utils.exceptionHandling.exceptions.ApiException;
 
@@ -32,6 +33,7 @@ public class RoleServiceImpl implements RoleService{
     private final PermissionsRepository permissionRepository;
     private final UserRepository userRepository;
     private final ClassificationLevelRepository classificationLevelRepository;
+    private final AccessPolicyVersionService accessPolicyVersionService;
 
     @Override
     @Transactional
@@ -116,6 +118,7 @@ public class RoleServiceImpl implements RoleService{
             role.setClearanceLevel(resolveClearanceLevel(roleCreationDTO.getClearanceLevelId()));
         }
         Role updatedRole = roleRepository.save(role);
+        accessPolicyVersionService.bump(updatedRole.getTenantId());
         roleCreationDTO.setRoleId(updatedRole.getRoleId());
         roleCreationDTO.setClearanceRank(deriveClearanceRank(updatedRole));
         return roleCreationDTO;
@@ -146,6 +149,7 @@ public class RoleServiceImpl implements RoleService{
         }
 
         roleRepository.delete(role);
+        accessPolicyVersionService.bump(role.getTenantId());
     }
     
 }
\ No newline at end of file
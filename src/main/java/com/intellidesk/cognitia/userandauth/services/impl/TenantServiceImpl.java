@@ -16,6 +16,7 @@ import com.intellidesk.cognitia.analytics.models.dto.AssignPlanRequest;
 import com.intellidesk.cognitia.analytics.models.dto.PlanDTO;
 import com.intellidesk.cognitia.analytics.service.PlanCatalogService;
 import com.intellidesk.cognitia.analytics.service.QuotaService;
+import com.intellidesk.cognitia.ingestion.service.vectorstore.VectorStorePartitions;
 import com.intellidesk.cognitia.notification.EmailService;
 import com.intellidesk.cognitia.notification.OtpService;
 import com.intellidesk.cognitia.userandauth.models.dtos.RoleCreationDTO;
@@ -50,6 +51,7 @@ public class TenantServiceImpl implements TenantService {
     private final EmailService emailService;
     private final PasswordEncoder passwordEncoder;
     private final TenantSetupService tenantSetupService;
+    private final VectorStorePartitions vectorStorePartitions;
 
     @Override
     public Boolean checkIfExists(String id) {
@@ -75,6 +77,7 @@ public class TenantServiceImpl implements TenantService {
         Tenant newTenant = tenantRepository.save(tenant);
 
         tenantSetupService.seedDefaults(newTenant.getId());
+        vectorStorePartitions.onboard(newTenant.getId());
 
         RoleCreationDTO roleCreationDTO = new RoleCreationDTO();
         roleCreationDTO.setName(RoleEnum.SUPER_ADMIN.toString());
@@ -33,6 +33,7 @@ import com.intellidesk.cognitia.userandauth.repository.PermissionsRepository;
 import com.intellidesk.cognitia.userandauth.repository.RoleRepository;
 import com.intellidesk.cognitia.userandauth.repository.TenantRepository;
 import com.intellidesk.cognitia.userandauth.repository.UserRepository;
+import com.intellidesk.cognitia.userandauth.services.AccessPolicyVersionService;
 import com.intellidesk.cognitia.userandauth.services.UserService;
 import com.intellidesk.cognitia.utils.Utils;
 import com.intellidesk.cognitia.utils.exceptionHandling.exceptions.ApiException;
@@ -51,6 +52,7 @@ public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final ClassificationLevelRepository classificationLevelRepository;
     private final DepartmentRepository departmentRepository;
+    private final AccessPolicyVersionService accessPolicyVersionService;
     private final PasswordEncoder passwordEncoder;
     private final OtpService otpService;
     private final EmailService emailService;
@@ -222,6 +224,7 @@ public class UserServiceImpl implements UserService {
 
         user.setRole(role);
         User updated = userRepository.save(user);
+        accessPolicyVersionService.bump(updated.getTenantId());
         return Utils.mapToUserDetailsDTO(updated);
     }
 
@@ -238,6 +241,7 @@ public class UserServiceImpl implements UserService {
 
         user.setDepartments(new HashSet<>(departments));
         User updated = userRepository.save(user);
+        accessPolicyVersionService.bump(updated.getTenantId());
         return Utils.mapToUserDetailsDTO(updated);
     }
 }
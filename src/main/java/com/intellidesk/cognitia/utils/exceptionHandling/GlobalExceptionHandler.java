@@ -272,6 +272,20 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(body);
     }
 
+    @ExceptionHandler(StaleThreadLockException.class)
+    public ResponseEntity<?> handleStaleThreadLock(StaleThreadLockException ex) {
+        log.warn("[GlobalExceptionHandler] Stale thread lock: {} - fence: {}", ex.getThreadId(), ex.getFencingToken());
+        Map<String, Object> body = Map.of(
+                "error", "thread_lock_lost",
+                "code", "THREAD_LOCK_LOST",
+                "message", ex.getMessage(),
+                "threadId", ex.getThreadId(),
+                "retryable", true,
+                "timestamp", Instant.now()
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+    }
+
     @ExceptionHandler(Error.class)
 public ResponseEntity<ExceptionApiResponse<?>> handleError(Error error) {
     log.error("[GlobalExceptionHandler] : [handleError] : " + error.getMessage(), error);
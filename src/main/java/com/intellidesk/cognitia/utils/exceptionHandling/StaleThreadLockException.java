@@ -0,0 +1,25 @@
+package com.intellidesk.cognitia.utils.exceptionHandling;
+
+/**
+ * Exception thrown when a request tries to write to a chat thread after its lock lease
+ * was lost and another request acquired the thread with a newer fencing token.
+ */
+public class StaleThreadLockException extends RuntimeException {
+
+    private final String threadId;
+    private final long fencingToken;
+
+    public StaleThreadLockException(String threadId, long fencingToken) {
+        super("Lock on thread " + threadId + " (fence " + fencingToken + ") is no longer held. The write was rejected.");
+        this.threadId = threadId;
+        this.fencingToken = fencingToken;
+    }
+
+    public String getThreadId() {
+        return threadId;
+    }
+
+    public long getFencingToken() {
+        return fencingToken;
+    }
+}
@@ -0,0 +1,11 @@
+-- =============================================================================
+-- V33: Fencing token for chat thread writes
+-- =============================================================================
+-- Highest thread-lock fencing token that has written to the thread. Message
+-- inserts advance it with a conditional UPDATE, so a request whose Redis lease
+-- lapsed (and was re-acquired elsewhere) can no longer write.
+-- Intentionally not mapped on the ChatThread entity: a full-entity save would
+-- otherwise write back a stale value.
+-- =============================================================================
+
+ALTER TABLE chat_threads ADD COLUMN IF NOT EXISTS lock_fence BIGINT NOT NULL DEFAULT 0;
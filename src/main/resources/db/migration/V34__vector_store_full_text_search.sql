@@ -0,0 +1,16 @@
+-- =============================================================================
+-- V34: Full-text search over vector_store content
+-- =============================================================================
+-- Lexical leg of hybrid retrieval: exact identifiers (invoice numbers, SKUs,
+-- error codes) that embeddings tend to miss are matched through a tsvector.
+-- The 'simple' configuration is used on purpose: no stemming or stop words, so
+-- identifiers and codes are indexed verbatim. Semantic matching is left to the
+-- embedding leg.
+-- =============================================================================
+
+ALTER TABLE public.vector_store
+    ADD COLUMN IF NOT EXISTS content_tsv tsvector
+    GENERATED ALWAYS AS (to_tsvector('simple'::regconfig, coalesce(content, ''))) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_vector_store_content_tsv
+    ON public.vector_store USING gin (content_tsv);
@@ -0,0 +1,39 @@
+-- =============================================================================
+-- V35: Typed access columns on vector_store
+-- =============================================================================
+-- Access filters (tenant, department, classification) and source lookups used
+-- to be JSON-path predicates over metadata, which no index can serve. The keys
+-- are promoted to generated columns, so every insert path (including Spring
+-- AI's PgVectorStore, which only writes id/content/metadata/embedding) keeps
+-- them in sync without application changes. Malformed values become NULL
+-- instead of failing the insert.
+-- =============================================================================
+
+ALTER TABLE public.vector_store
+    ADD COLUMN IF NOT EXISTS tenant_id uuid GENERATED ALWAYS AS (
+        CASE WHEN (metadata->>'tenantId') ~* '^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$'
+             THEN (metadata->>'tenantId')::uuid END) STORED,
+    ADD COLUMN IF NOT EXISTS source_id uuid GENERATED ALWAYS AS (
+        CASE WHEN (metadata->>'sourceId') ~* '^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$'
+             THEN (metadata->>'sourceId')::uuid END) STORED,
+    ADD COLUMN IF NOT EXISTS department text GENERATED ALWAYS AS (metadata->>'department') STORED,
+    ADD COLUMN IF NOT EXISTS classification_rank integer GENERATED ALWAYS AS (
+        CASE WHEN (metadata->>'classificationRank') ~ '^-?[0-9]{1,9}$'
+             THEN (metadata->>'classificationRank')::integer END) STORED,
+    ADD COLUMN IF NOT EXISTS source_format text GENERATED ALWAYS AS (metadata->>'sourceFormat') STORED;
+
+-- Access filter: tenant equality, department IN (...), classification_rank <= clearance
+CREATE INDEX IF NOT EXISTS idx_vector_store_tenant_access
+    ON public.vector_store (tenant_id, department, classification_rank);
+
+-- Format-filtered searches; most chunks carry a format, legacy rows without one are skipped
+CREATE INDEX IF NOT EXISTS idx_vector_store_tenant_format
+    ON public.vector_store (tenant_id, source_format)
+    WHERE source_format IS NOT NULL;
+
+-- Embedding deletion when a resource is removed
+CREATE INDEX IF NOT EXISTS idx_vector_store_source_id
+    ON public.vector_store (source_id)
+    WHERE source_id IS NOT NULL;
+
+ANALYZE public.vector_store;
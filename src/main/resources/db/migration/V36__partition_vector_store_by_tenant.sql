@@ -0,0 +1,88 @@
+-- =============================================================================
+-- V36: Partition vector_store by tenant
+-- =============================================================================
+-- One LIST partition per tenant, each with its own HNSW graph (the index on
+-- the parent is created on every partition), so a search only walks its own
+-- tenant's graph and offboarding a tenant is a DROP TABLE of its partition.
+--
+-- tenant_id becomes a regular column because Postgres does not allow a
+-- generated column as partition key; the application now writes it on insert.
+-- Rows without a tenant (should not exist after the V23 backfill) land in the
+-- default partition under the nil UUID, where no access filter can reach them.
+--
+-- Partitions are named vector_store_t_<tenant uuid without dashes>. New tenants
+-- get theirs from the application when the tenant is created
+-- (VectorStorePartitions.onboard); offboarding drops it (dropTenant).
+-- =============================================================================
+
+CREATE TABLE public.vector_store_partitioned (
+    id uuid DEFAULT public.uuid_generate_v4() NOT NULL,
+    content text,
+    metadata json,
+    embedding public.vector(1536),
+    tenant_id uuid NOT NULL,
+    source_id uuid GENERATED ALWAYS AS (
+        CASE WHEN (metadata->>'sourceId') ~* '^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$'
+             THEN (metadata->>'sourceId')::uuid END) STORED,
+    department text GENERATED ALWAYS AS (metadata->>'department') STORED,
+    classification_rank integer GENERATED ALWAYS AS (
+        CASE WHEN (metadata->>'classificationRank') ~ '^-?[0-9]{1,9}$'
+             THEN (metadata->>'classificationRank')::integer END) STORED,
+    source_format text GENERATED ALWAYS AS (metadata->>'sourceFormat') STORED,
+    content_tsv tsvector GENERATED ALWAYS AS (to_tsvector('simple'::regconfig, coalesce(content, ''))) STORED
+) PARTITION BY LIST (tenant_id);
+
+CREATE TABLE public.vector_store_default
+    PARTITION OF public.vector_store_partitioned DEFAULT;
+
+-- -----------------------------------------------------------------------------
+-- One partition per known tenant (registered tenants plus any tenant with chunks)
+-- -----------------------------------------------------------------------------
+DO $$
+DECLARE
+    t uuid;
+BEGIN
+    FOR t IN
+        SELECT id FROM public.tenants
+        UNION
+        SELECT DISTINCT tenant_id FROM public.vector_store WHERE tenant_id IS NOT NULL
+    LOOP
+        EXECUTE format('CREATE TABLE public.%I PARTITION OF public.vector_store_partitioned FOR VALUES IN (%L)',
+                       'vector_store_t_' || replace(t::text, '-', ''), t);
+    END LOOP;
+END $$;
+
+INSERT INTO public.vector_store_partitioned (id, content, metadata, embedding, tenant_id)
+SELECT id, content, metadata, embedding,
+       coalesce(tenant_id, '00000000-0000-0000-0000-000000000000'::uuid)
+FROM public.vector_store;
+
+DROP TABLE public.vector_store;
+ALTER TABLE public.vector_store_partitioned RENAME TO vector_store;
+ALTER TABLE public.vector_store OWNER TO cognitia;
+
+ALTER TABLE ONLY public.vector_store
+    ADD CONSTRAINT vector_store_pkey PRIMARY KEY (tenant_id, id);
+
+-- -----------------------------------------------------------------------------
+-- Partitioned indexes (created on every existing and future partition).
+-- The HNSW index keeps the name Spring AI's PgVectorStore checks for.
+-- -----------------------------------------------------------------------------
+CREATE INDEX spring_ai_vector_index
+    ON public.vector_store USING hnsw (embedding public.vector_cosine_ops);
+
+CREATE INDEX idx_vector_store_content_tsv
+    ON public.vector_store USING gin (content_tsv);
+
+CREATE INDEX idx_vector_store_tenant_access
+    ON public.vector_store (tenant_id, department, classification_rank);
+
+CREATE INDEX idx_vector_store_tenant_format
+    ON public.vector_store (tenant_id, source_format)
+    WHERE source_format IS NOT NULL;
+
+CREATE INDEX idx_vector_store_source_id
+    ON public.vector_store (source_id)
+    WHERE source_id IS NOT NULL;
+
+ANALYZE public.vector_store;
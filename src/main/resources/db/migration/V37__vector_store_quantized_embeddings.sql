@@ -0,0 +1,16 @@
+-- =============================================================================
+-- V37: Quantized embedding columns
+-- =============================================================================
+-- Optional compact copies of the 1536-dim embedding for the ANN pass:
+--   embedding_half  halfvec (float16), half the index memory of vector
+--   embedding_bits  binary-quantized, 1 bit per dimension
+-- Candidates found through them are re-scored against the full-precision
+-- embedding. Which one is used is chosen per deployment
+-- (cognitia.vectorstore.quantization.mode); the columns stay NULL until the
+-- admin backfill job fills them and builds their HNSW index online, so adding
+-- them here does not rewrite the table.
+-- =============================================================================
+
+ALTER TABLE public.vector_store
+    ADD COLUMN IF NOT EXISTS embedding_half public.halfvec(1536),
+    ADD COLUMN IF NOT EXISTS embedding_bits bit(1536);
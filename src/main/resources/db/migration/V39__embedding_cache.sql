@@ -0,0 +1,27 @@
+-- =============================================================================
+-- V39: Content-addressed embedding cache
+-- =============================================================================
+-- Embeddings keyed by SHA-256 of the normalized chunk text, the embedding model
+-- and its dimensions, so re-uploaded or near-identical documents do not pay for
+-- the embedding API again. Entries are scoped to the tenant that produced them:
+-- a tenant can only ever be served vectors computed from its own content.
+-- Entries unused for cognitia.embedding-cache.ttl-days are evicted by a
+-- scheduled job.
+-- =============================================================================
+
+CREATE TABLE public.embedding_cache (
+    tenant_id uuid NOT NULL,
+    model character varying(128) NOT NULL,
+    dimensions integer NOT NULL,
+    content_hash character(64) NOT NULL,
+    embedding public.vector NOT NULL,
+    created_at timestamp with time zone DEFAULT now() NOT NULL,
+    last_used_at timestamp with time zone DEFAULT now() NOT NULL
+);
+
+ALTER TABLE public.embedding_cache OWNER TO cognitia;
+
+ALTER TABLE ONLY public.embedding_cache
+    ADD CONSTRAINT embedding_cache_pkey PRIMARY KEY (tenant_id, model, dimensions, content_hash);
+
+CREATE INDEX idx_embedding_cache_last_used_at ON public.embedding_cache (last_used_at);
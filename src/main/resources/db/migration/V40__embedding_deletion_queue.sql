@@ -0,0 +1,25 @@
+-- =============================================================================
+-- V40: Queue for asynchronous embedding deletion
+-- =============================================================================
+-- Deleting a resource enqueues its id here in the same transaction; the chunks
+-- are removed afterwards by EmbeddingDeletionQueue, which resolves them through
+-- the tenant partition's source_id index and deletes them by primary key in
+-- batches. A row is claimed by setting claimed_at and is removed once all of the
+-- resource's chunks are gone; a claim older than the lease is taken over again.
+-- =============================================================================
+
+CREATE TABLE public.embedding_deletion_queue (
+    tenant_id uuid NOT NULL,
+    source_id uuid NOT NULL,
+    enqueued_at timestamp with time zone DEFAULT now() NOT NULL,
+    claimed_at timestamp with time zone,
+    attempts integer DEFAULT 0 NOT NULL,
+    last_error text
+);
+
+ALTER TABLE public.embedding_deletion_queue OWNER TO cognitia;
+
+ALTER TABLE ONLY public.embedding_deletion_queue
+    ADD CONSTRAINT embedding_deletion_queue_pkey PRIMARY KEY (tenant_id, source_id);
+
+CREATE INDEX idx_embedding_deletion_queue_enqueued_at ON public.embedding_deletion_queue (enqueued_at);
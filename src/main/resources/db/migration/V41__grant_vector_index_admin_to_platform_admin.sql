@@ -0,0 +1,23 @@
+-- =============================================================================
+-- V41: Grant VECTOR_INDEX_ADMIN to PLATFORM_ADMIN
+-- =============================================================================
+-- PermissionSeeder only inserts the permission row at startup, after Flyway has
+-- run, and V22 granted PLATFORM_ADMIN only the permissions that existed then.
+-- Insert the permission here and grant it to the platform admin role so the
+-- vector index status, rebuild and backfill endpoints are reachable.
+-- =============================================================================
+
+INSERT INTO public.permission (name, created_at, updated_at)
+SELECT 'VECTOR_INDEX_ADMIN', NOW(), NOW()
+WHERE NOT EXISTS (
+    SELECT 1 FROM public.permission WHERE name = 'VECTOR_INDEX_ADMIN'
+);
+
+INSERT INTO public.role_permisson (role_id, permission_id)
+SELECT r.role_id, p.permission_id
+FROM public.roles r
+CROSS JOIN public.permission p
+WHERE r.role_name = 'PLATFORM_ADMIN'
+  AND r.tenant_id = '00000000-0000-0000-0000-000000000000'
+  AND p.name = 'VECTOR_INDEX_ADMIN'
+ON CONFLICT (role_id, permission_id) DO NOTHING;
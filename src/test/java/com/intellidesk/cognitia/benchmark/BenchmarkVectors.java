@@ -0,0 +1,109 @@
+package com.intellidesk.cognitia.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+/**
+ * 1536-dim unit vectors for the vector store benchmarks: clustered synthetic points by default, or real
+ * embeddings exported with
+ * {@code \copy (SELECT embedding::text FROM vector_store TABLESAMPLE SYSTEM (5)) TO 'vectors.txt'}
+ * and passed as {@code -Dbenchmarks.vectors=vectors.txt}.
+ */
+final class BenchmarkVectors {
+
+    static final int DIMENSIONS = 1536;
+    private static final int CLUSTERS = 200;
+
+    private BenchmarkVectors() {}
+
+    /**
+     * count vectors starting at offset: lines of the exported file, or synthetic points seeded by the
+     * offset (so callers drawing non-overlapping ranges get independent sets either way).
+     */
+    static float[][] load(int offset, int count) {
+        String file = System.getProperty("benchmarks.vectors");
+        return file != null ? fromFile(Path.of(file), offset, count) : clustered(count, offset);
+    }
+
+    static String source() {
+        return System.getProperty("benchmarks.vectors", "synthetic");
+    }
+
+    /**
+     * Points scattered around cluster centres, like chunks of the same documents.
+     */
+    private static float[][] clustered(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        float[][] centres = new float[CLUSTERS][];
+        for (int c = 0; c < CLUSTERS; c++) {
+            centres[c] = gaussian(random, 1);
+        }
+        float[][] vectors = new float[count][];
+        for (int i = 0; i < count; i++) {
+            float[] noise = gaussian(random, 0.8);
+            float[] centre = centres[random.nextInt(CLUSTERS)];
+            for (int d = 0; d < DIMENSIONS; d++) {
+                noise[d] += centre[d];
+            }
+            vectors[i] = normalize(noise);
+        }
+        return vectors;
+    }
+
+    private static float[][] fromFile(Path file, int offset, int count) {
+        try (Stream<String> lines = Files.lines(file)) {
+            float[][] vectors = lines.filter(line -> !line.isBlank()).skip(offset).limit(count)
+                    .map(BenchmarkVectors::parse).toArray(float[][]::new);
+            if (vectors.length < count) {
+                throw new IllegalArgumentException(file + " has too few vectors, the benchmark needs " + (offset + count));
+            }
+            return vectors;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static float[] parse(String literal) {
+        String[] parts = literal.strip().replace("[", "").replace("]", "").split(",");
+        float[] vector = new float[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            vector[i] = Float.parseFloat(parts[i]);
+        }
+        return normalize(vector);
+    }
+
+    private static float[] gaussian(SplittableRandom random, double sigma) {
+        float[] vector = new float[DIMENSIONS];
+        for (int d = 0; d < DIMENSIONS; d++) {
+            vector[d] = (float) (random.nextGaussian() * sigma);
+        }
+        return vector;
+    }
+
+    static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int d = 0; d < vector.length; d++) {
+            vector[d] *= scale;
+        }
+        return vector;
+    }
+
+    /**
+     * Cosine distance of two unit vectors, as pgvector's {@code <=>} computes it.
+     */
+    static double cosineDistance(float[] a, float[] b) {
+        double sum = 0;
+        for (int d = 0; d < a.length; d++) {
+            sum += a[d] * b[d];
+        }
+        return 1 - sum;
+    }
+}
@@ -0,0 +1,97 @@
+package com.intellidesk.cognitia.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import com.intellidesk.cognitia.benchmark.VectorStoreBenchmarkDatabase.Measurement;
+import com.intellidesk.cognitia.benchmark.VectorStoreBenchmarkDatabase.SeededTenant;
+import com.intellidesk.cognitia.ingestion.service.vectorstore.VectorQuantization;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Recall@10 and latency of the two search paths of AccessScopedVectorStore for small tenants next to a
+ * large one, which sizes cognitia.vectorstore.exact-search-max-rows: the exact path (the tenant's rows
+ * through the btree index, ranked exactly) against the HNSW path (ef_search from the configured
+ * properties, access filter applied to the index's candidates). Each tenant is queried unfiltered and
+ * filtered to one of {@value VectorStoreBenchmarkDatabase#DEPARTMENTS} departments, where HNSW
+ * post-filtering starves the result. Needs Postgres, see {@link VectorStoreBenchmarkDatabase};
+ * -Dbenchmarks.large-tenant-rows sets the large tenant's size (default 50000).
+ *
+ * Asserts that the exact path finds the true neighbours and that HNSW keeps a recall floor where it
+ * is not filtered; the tenant size where exact latency overtakes HNSW latency is the threshold.
+ */
+@Slf4j
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ExactSearchThresholdBenchmark {
+
+    private static final int[] SMALL_TENANT_ROWS = { 500, 2_000, 5_000, 20_000 };
+    private static final int QUERIES = 50;
+    private static final double EXACT_RECALL_FLOOR = 0.99;
+    private static final double HNSW_UNFILTERED_RECALL_FLOOR = 0.9;
+
+    private VectorStoreBenchmarkDatabase database;
+    private float[][][] queries;
+    private SeededTenant[] tenants;
+
+    @BeforeAll
+    void seed() {
+        database = VectorStoreBenchmarkDatabase.connect();
+        int[] sizes = Arrays.copyOf(SMALL_TENANT_ROWS, SMALL_TENANT_ROWS.length + 1);
+        sizes[SMALL_TENANT_ROWS.length] = Integer.getInteger("benchmarks.large-tenant-rows", 50_000);
+        tenants = new SeededTenant[sizes.length];
+        queries = new float[sizes.length][][];
+        int offset = 0;
+        for (int t = 0; t < sizes.length; t++) {
+            float[][] vectors = BenchmarkVectors.load(offset, QUERIES + sizes[t]);
+            offset += vectors.length;
+            queries[t] = Arrays.copyOfRange(vectors, 0, QUERIES);
+            tenants[t] = database.seedTenant(Arrays.copyOfRange(vectors, QUERIES, vectors.length), false);
+        }
+    }
+
+    @AfterAll
+    void drop() {
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    @Test
+    void exactAgainstHnswPerTenantSize() {
+        VectorStore exact = database.store(Long.MAX_VALUE, VectorQuantization.NONE, 1);
+        VectorStore hnsw = database.store(0, VectorQuantization.NONE, 1);
+        log.info("[ExactSearchThresholdBenchmark] source={} queries={} topK={}",
+                BenchmarkVectors.source(), QUERIES, VectorStoreBenchmarkDatabase.TOP_K);
+
+        for (int t = 0; t < tenants.length; t++) {
+            for (String department : new String[] { null, VectorStoreBenchmarkDatabase.department(0) }) {
+                Measurement exactResult = database.measure(exact, tenants[t], department, queries[t]);
+                Measurement hnswResult = database.measure(hnsw, tenants[t], department, queries[t]);
+                report("exact", tenants[t], department, exactResult);
+                report("hnsw", tenants[t], department, hnswResult);
+
+                assertTrue(exactResult.recall() >= EXACT_RECALL_FLOOR,
+                        "exact recall " + exactResult.recall() + " at " + tenants[t].rows() + " rows");
+                if (department == null) {
+                    assertTrue(hnswResult.recall() >= HNSW_UNFILTERED_RECALL_FLOOR,
+                            "hnsw recall " + hnswResult.recall() + " at " + tenants[t].rows() + " rows");
+                }
+            }
+        }
+    }
+
+    private static void report(String path, SeededTenant tenant, String department, Measurement result) {
+        log.info("[ExactSearchThresholdBenchmark] path={} tenantRows={} filter={} recall={} hitsPerQuery={} millisPerQuery={}",
+                path, tenant.rows(), department == null ? "tenant" : "tenant+department",
+                "%.3f".formatted(result.recall()), "%.1f".formatted(result.hitsPerQuery()),
+                "%.2f".formatted(result.millisPerQuery()));
+    }
+}
@@ -0,0 +1,92 @@
+package com.intellidesk.cognitia.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import com.intellidesk.cognitia.benchmark.VectorStoreBenchmarkDatabase.Measurement;
+import com.intellidesk.cognitia.benchmark.VectorStoreBenchmarkDatabase.SeededTenant;
+import com.intellidesk.cognitia.ingestion.service.vectorstore.VectorQuantization;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Recall@10 and latency of AccessScopedVectorStore's quantized search (QUANTIZED_SQL: topK x oversample
+ * candidates from the mode's HNSW index, re-scored at full precision) for each {@link VectorQuantization}
+ * mode, against the full-precision HNSW search and an exact ranking. Each mode's index is built by the
+ * admin backfill job. Needs Postgres, see {@link VectorStoreBenchmarkDatabase};
+ * -Dbenchmarks.quantized-rows sets the tenant's size (default 50000).
+ *
+ * On the default synthetic vectors the 256-dim prefix is only a random projection, so Matryoshka
+ * recall is a lower bound there; a Matryoshka-trained model keeps more in the prefix. Asserts a recall
+ * floor per mode at the oversample it needs.
+ */
+@Slf4j
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QuantizedSearchRecallBenchmark {
+
+    private static final int QUERIES = 100;
+    private static final int[] OVERSAMPLES = { 1, 4, 10 };
+    private static final double FULL_PRECISION_RECALL_FLOOR = 0.9;
+    // Mode -> {oversample, recall floor}
+    private static final Map<VectorQuantization, double[]> RECALL_FLOORS = Map.of(
+            VectorQuantization.HALFVEC, new double[] { 4, 0.9 },
+            VectorQuantization.BINARY, new double[] { 10, 0.85 },
+            VectorQuantization.MATRYOSHKA, new double[] { 10, 0.85 });
+
+    private VectorStoreBenchmarkDatabase database;
+    private float[][] queries;
+    private SeededTenant tenant;
+
+    @BeforeAll
+    void seed() {
+        database = VectorStoreBenchmarkDatabase.connect();
+        float[][] vectors = BenchmarkVectors.load(0, QUERIES + Integer.getInteger("benchmarks.quantized-rows", 50_000));
+        queries = Arrays.copyOfRange(vectors, 0, QUERIES);
+        tenant = database.seedTenant(Arrays.copyOfRange(vectors, QUERIES, vectors.length), true);
+    }
+
+    @AfterAll
+    void drop() {
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    @Test
+    void quantizedRecallAgainstFullPrecision() throws InterruptedException {
+        log.info("[QuantizedSearchRecallBenchmark] source={} rows={} queries={} topK={}",
+                BenchmarkVectors.source(), tenant.rows(), QUERIES, VectorStoreBenchmarkDatabase.TOP_K);
+
+        Measurement exact = database.measure(database.store(Long.MAX_VALUE, VectorQuantization.NONE, 1), tenant, null, queries);
+        report("exact", "-", exact);
+        Measurement full = database.measure(database.store(0, VectorQuantization.NONE, 1), tenant, null, queries);
+        report("hnsw", "-", full);
+        assertTrue(full.recall() >= FULL_PRECISION_RECALL_FLOOR, "full-precision hnsw recall " + full.recall());
+
+        for (VectorQuantization mode : RECALL_FLOORS.keySet().stream().sorted().toList()) {
+            database.buildQuantizedIndex(mode);
+            assertTrue(database.indexManager(mode, 1).quantizedSearchReady(), mode + " index is not ready");
+            double[] floor = RECALL_FLOORS.get(mode);
+            for (int oversample : OVERSAMPLES) {
+                Measurement result = database.measure(database.store(0, mode, oversample), tenant, null, queries);
+                report(mode.name().toLowerCase(), String.valueOf(oversample), result);
+                if (oversample == (int) floor[0]) {
+                    assertTrue(result.recall() >= floor[1],
+                            mode + " recall " + result.recall() + " at oversample " + oversample);
+                }
+            }
+        }
+    }
+
+    private static void report(String mode, String oversample, Measurement result) {
+        log.info("[QuantizedSearchRecallBenchmark] mode={} oversample={} recall={} millisPerQuery={}",
+                mode, oversample, "%.3f".formatted(result.recall()), "%.2f".formatted(result.millisPerQuery()));
+    }
+}
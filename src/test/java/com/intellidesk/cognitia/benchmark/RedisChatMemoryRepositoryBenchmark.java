@@ -0,0 +1,149 @@
+package com.intellidesk.cognitia.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.intellidesk.cognitia.chat.config.StoredMessageRedisSerializer;
+import com.intellidesk.cognitia.chat.models.entities.StoredMessage;
+import com.intellidesk.cognitia.chat.repository.RedisChatMemoryRepository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bytes sent to Redis per chat turn: the delta writes of {@link RedisChatMemoryRepository#saveAll}
+ * against the delete-and-push-the-whole-window writes they replaced. Replays a conversation the way
+ * MessageWindowChatMemory drives the repository (one save after the user message, one after the
+ * answer, window capped at cognitia.chat.memory.max-messages) against an in-memory list, and reads the
+ * repository's own cognitia.chat.memory.bytes-written summary. Every save must take the append path
+ * and send at most the new message's bytes plus the script's fixed arguments.
+ */
+@Slf4j
+class RedisChatMemoryRepositoryBenchmark {
+
+    private static final int MAX_MESSAGES = 50;
+    private static final int TURNS = 100;
+    private static final int USER_CHARS = 200;
+    private static final int ASSISTANT_CHARS = 1_500;
+    // Fence, TTL, conversation id, timestamp, tenant, expected length and window size
+    private static final int SCRIPT_ARGUMENT_BYTES = 128;
+
+    @Test
+    void deltaWritesAgainstWholeWindow() {
+        for (StoredMessageRedisSerializer.Codec codec : StoredMessageRedisSerializer.Codec.values()) {
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            StoredMessageRedisSerializer serializer = new StoredMessageRedisSerializer(
+                    new ObjectMapper().registerModule(new JavaTimeModule()), registry, codec, 1024);
+            InMemoryListTemplate template = new InMemoryListTemplate(serializer);
+            RedisChatMemoryRepository repository =
+                    new RedisChatMemoryRepository(template, new StringRedisTemplate(), registry);
+
+            List<Message> window = new ArrayList<>();
+            long legacyBytes = 0;
+            long newMessageBytes = 0;
+            for (int turn = 0; turn < TURNS; turn++) {
+                for (Message message : List.of(new UserMessage(text("question " + turn, USER_CHARS)),
+                        new AssistantMessage(text("answer " + turn, ASSISTANT_CHARS)))) {
+                    newMessageBytes += serialized(serializer, message).length;
+                    legacyBytes += save(repository, template, serializer, window, message);
+                }
+            }
+
+            DistributionSummary appended = registry.find("cognitia.chat.memory.bytes-written").tag("mode", "append").summary();
+            DistributionSummary replaced = registry.find("cognitia.chat.memory.bytes-written").tag("mode", "replace").summary();
+            log.info("[RedisChatMemoryRepositoryBenchmark] codec={} turns={} window={} legacyBytesPerTurn={} deltaBytesPerTurn={} newMessageBytesPerTurn={}",
+                    codec, TURNS, MAX_MESSAGES, "%,.0f".formatted((double) legacyBytes / TURNS),
+                    "%,.0f".formatted(appended.totalAmount() / TURNS), "%,.0f".formatted((double) newMessageBytes / TURNS));
+            assertEquals(0, replaced.count(), "saves fell back to rewriting the window");
+            assertEquals(2L * TURNS, appended.count());
+            assertTrue(appended.totalAmount() <= newMessageBytes + (double) SCRIPT_ARGUMENT_BYTES * appended.count(),
+                    codec + " delta writes sent " + appended.totalAmount() + " bytes for " + newMessageBytes + " bytes of new messages");
+        }
+    }
+
+    /**
+     * One MessageWindowChatMemory.add: appends, trims the window and saves it. Returns what the old
+     * saveAll would have pushed for the same window.
+     */
+    private static long save(RedisChatMemoryRepository repository, InMemoryListTemplate template,
+                             StoredMessageRedisSerializer serializer, List<Message> window, Message message) {
+        window.add(message);
+        if (window.size() > MAX_MESSAGES) {
+            window.subList(0, window.size() - MAX_MESSAGES).clear();
+        }
+        repository.saveAll("benchmark", List.copyOf(window));
+
+        long legacy = 0;
+        List<StoredMessage> stored = new ArrayList<>(window.size());
+        for (Message m : window) {
+            legacy += serialized(serializer, m).length;
+            stored.add(new StoredMessage(m.getMessageType(), m.getText(), Map.of(), Instant.now()));
+        }
+        template.list = stored;
+        return legacy;
+    }
+
+    private static byte[] serialized(StoredMessageRedisSerializer serializer, Message m) {
+        Map<String, Object> metadata = m.getMetadata() != null ? m.getMetadata() : Map.of();
+        return serializer.serialize(new StoredMessage(m.getMessageType(), m.getText(), metadata, Instant.now()));
+    }
+
+    private static String text(String prefix, int chars) {
+        StringBuilder text = new StringBuilder(prefix);
+        while (text.length() < chars) {
+            text.append(" lorem ipsum dolor sit amet");
+        }
+        return text.substring(0, chars);
+    }
+
+    /**
+     * Serves LRANGE from a list the benchmark maintains and accepts every script call with the window's
+     * length; the repository measures the payload it sends itself.
+     */
+    private static class InMemoryListTemplate extends RedisTemplate<String, StoredMessage> {
+
+        private final ListOperations<String, StoredMessage> listOperations;
+        private List<StoredMessage> list = List.of();
+
+        @SuppressWarnings("unchecked")
+        InMemoryListTemplate(StoredMessageRedisSerializer serializer) {
+            setValueSerializer(serializer);
+            listOperations = mock(ListOperations.class);
+            when(listOperations.range(anyString(), anyLong(), anyLong())).thenAnswer(invocation -> list);
+        }
+
+        @Override
+        public ListOperations<String, StoredMessage> opsForList() {
+            return listOperations;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T execute(RedisScript<T> script, RedisSerializer<?> argsSerializer, RedisSerializer<T> resultSerializer,
+                             List<String> keys, Object... args) {
+            return (T) Long.valueOf(Math.min(list.size() + 1, MAX_MESSAGES));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.intellidesk.cognitia.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.MessageType;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.intellidesk.cognitia.chat.config.StoredMessageRedisSerializer;
+import com.intellidesk.cognitia.chat.config.StoredMessageRedisSerializer.Codec;
+import com.intellidesk.cognitia.chat.models.entities.StoredMessage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bytes and encode/decode time per chat memory entry for each codec of StoredMessageRedisSerializer:
+ * a short user message, and a long assistant answer with tool metadata written by JSON, by the binary
+ * codec with compression off, and by the binary codec deflating above the default 1 KB threshold.
+ * Every case must round-trip; the binary codec must be smaller than JSON, and deflating must shrink
+ * the long answer.
+ */
+@Slf4j
+class StoredMessageCodecBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int MEASURED_ITERATIONS = 50_000;
+    private static final int COMPRESSION_THRESHOLD = 1024;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Test
+    void codecsBytesAndTimePerMessage() {
+        StoredMessage shortMessage = new StoredMessage(MessageType.USER, text("How do I rotate the API key for", 200),
+                Map.of("messageType", "USER"), Instant.now());
+        StoredMessage longMessage = new StoredMessage(MessageType.ASSISTANT, text("To rotate the key, open Settings", 6_000),
+                Map.of("messageType", "ASSISTANT",
+                        "finishReason", "STOP",
+                        "toolCalls", List.of(
+                                Map.of("id", "call_1", "name", "searchKnowledgeBase", "arguments", "{\"query\":\"rotate api key\",\"topK\":5}"),
+                                Map.of("id", "call_2", "name", "getCurrentDateTime", "arguments", "{\"zone\":\"UTC\"}")),
+                        "usage", Map.of("promptTokens", 1_812, "completionTokens", 1_204)),
+                Instant.now());
+
+        Result jsonShort = measure("json", "short", serializer(Codec.JSON, COMPRESSION_THRESHOLD), shortMessage);
+        Result binaryShort = measure("binary", "short", serializer(Codec.BINARY, COMPRESSION_THRESHOLD), shortMessage);
+        Result jsonLong = measure("json", "long", serializer(Codec.JSON, COMPRESSION_THRESHOLD), longMessage);
+        Result binaryLong = measure("binary", "long", serializer(Codec.BINARY, Integer.MAX_VALUE), longMessage);
+        Result deflatedLong = measure("binary+deflate", "long", serializer(Codec.BINARY, COMPRESSION_THRESHOLD), longMessage);
+
+        assertTrue(binaryShort.bytes() < jsonShort.bytes(), "binary " + binaryShort.bytes() + " vs json " + jsonShort.bytes());
+        assertTrue(binaryLong.bytes() < jsonLong.bytes(), "binary " + binaryLong.bytes() + " vs json " + jsonLong.bytes());
+        assertTrue(deflatedLong.bytes() < binaryLong.bytes(), "deflated " + deflatedLong.bytes() + " vs raw " + binaryLong.bytes());
+    }
+
+    private static Result measure(String codec, String size, StoredMessageRedisSerializer serializer, StoredMessage message) {
+        byte[] encoded = serializer.serialize(message);
+        StoredMessage decoded = serializer.deserialize(encoded);
+        assertEquals(message.getMessageType(), decoded.getMessageType());
+        assertEquals(message.getText(), decoded.getText());
+        assertEquals(message.getTimestamp(), decoded.getTimestamp());
+        assertEquals(message.getMetadata(), decoded.getMetadata());
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            serializer.deserialize(serializer.serialize(message));
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            serializer.serialize(message);
+        }
+        double encodeMicros = (System.nanoTime() - start) / 1e3 / MEASURED_ITERATIONS;
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            serializer.deserialize(encoded);
+        }
+        double decodeMicros = (System.nanoTime() - start) / 1e3 / MEASURED_ITERATIONS;
+
+        log.info("[StoredMessageCodecBenchmark] codec={} message={} bytes={} encodeMicros={} decodeMicros={}",
+                codec, size, encoded.length, "%.2f".formatted(encodeMicros), "%.2f".formatted(decodeMicros));
+        return new Result(encoded.length, encodeMicros, decodeMicros);
+    }
+
+    private static StoredMessageRedisSerializer serializer(Codec codec, int compressionThreshold) {
+        return new StoredMessageRedisSerializer(OBJECT_MAPPER, new SimpleMeterRegistry(), codec, compressionThreshold);
+    }
+
+    private static String text(String prefix, int chars) {
+        StringBuilder text = new StringBuilder(prefix);
+        String[] words = { " the", " key", " settings", " rotate", " token", " expires", " after", " policy", " admin", "." };
+        for (int i = 0; text.length() < chars; i++) {
+            text.append(words[(i * 7 + i / 10) % words.length]);
+        }
+        return text.substring(0, chars);
+    }
+
+    private record Result(int bytes, double encodeMicros, double decodeMicros) {}
+}
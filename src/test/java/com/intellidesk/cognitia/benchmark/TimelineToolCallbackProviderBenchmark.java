@@ -0,0 +1,125 @@
+package com.intellidesk.cognitia.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.ai.tool.augment.AugmentedToolCallbackProvider;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.intellidesk.cognitia.chat.service.tools.AgentThinking;
+import com.intellidesk.cognitia.chat.service.tools.TimelineAwareTool;
+import com.intellidesk.cognitia.chat.service.tools.TimelineToolCallbackProvider;
+import com.intellidesk.cognitia.chat.service.tools.ToolRegistryService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-request cost of building the tool callbacks: precompiled callbacks bound to the timeline
+ * against the per-request AugmentedToolCallbackProvider build they replaced. Both must expose the
+ * same tools, and binding the precompiled callbacks must allocate at most a tenth of what the
+ * per-request build (reflection and schema generation) did.
+ */
+@Slf4j
+class TimelineToolCallbackProviderBenchmark {
+
+    private static final int WARMUP_REQUESTS = 2_000;
+    private static final int MEASURED_REQUESTS = 20_000;
+
+    @Test
+    void precompiledAgainstPerRequestBuild() {
+        List<TimelineAwareTool> tools = List.of(new SearchTool(), new ClockTool(), new FetchTool());
+        ToolRegistryService registry = new ToolRegistryService(tools, Optional.empty());
+        TimelineToolCallbackProvider provider = new TimelineToolCallbackProvider(new ObjectMapper(), registry);
+
+        Result legacy = measure(() -> legacyCallbacks(registry.getAllToolObjects()));
+        Result precompiled = measure(() -> provider.createAugmentedToolCallbacks(null));
+
+        log.info("[TimelineToolCallbackProviderBenchmark] perRequestBuild microsPerRequest={} bytesPerRequest={}",
+                "%.2f".formatted(legacy.microsPerRequest()), "%,.0f".formatted(legacy.bytesPerRequest()));
+        log.info("[TimelineToolCallbackProviderBenchmark] precompiled     microsPerRequest={} bytesPerRequest={}",
+                "%.2f".formatted(precompiled.microsPerRequest()), "%,.0f".formatted(precompiled.bytesPerRequest()));
+        assertEquals(toolNames(legacyCallbacks(registry.getAllToolObjects())),
+                toolNames(provider.createAugmentedToolCallbacks(null)));
+        assertTrue(precompiled.bytesPerRequest() * 10 <= legacy.bytesPerRequest(),
+                "precompiled binding allocates " + precompiled.bytesPerRequest() + " bytes/request, per-request build "
+                        + legacy.bytesPerRequest());
+    }
+
+    private static List<String> toolNames(ToolCallback[] callbacks) {
+        return Arrays.stream(callbacks).map(callback -> callback.getToolDefinition().name()).sorted().toList();
+    }
+
+    private static Result measure(Supplier<ToolCallback[]> build) {
+        for (int i = 0; i < WARMUP_REQUESTS; i++) {
+            build.get();
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_REQUESTS; i++) {
+            build.get();
+        }
+        long nanos = System.nanoTime() - start;
+        long bytes = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+        return new Result(nanos / 1e3 / MEASURED_REQUESTS, (double) bytes / MEASURED_REQUESTS);
+    }
+
+    /**
+     * What TimelineToolCallbackProvider did on every request before the callbacks were precompiled.
+     */
+    private static ToolCallback[] legacyCallbacks(List<Object> toolObjects) {
+        return toolObjects.stream()
+                .flatMap(toolObject -> List.of(AugmentedToolCallbackProvider
+                        .<AgentThinking>builder()
+                        .toolObject(toolObject)
+                        .argumentType(AgentThinking.class)
+                        .argumentConsumer(event -> { })
+                        .removeExtraArgumentsAfterProcessing(true)
+                        .build()
+                        .getToolCallbacks()).stream())
+                .toArray(ToolCallback[]::new);
+    }
+
+    private record Result(double microsPerRequest, double bytesPerRequest) {
+    }
+
+    static class SearchTool implements TimelineAwareTool {
+
+        @Tool(description = "Searches the knowledge base")
+        public String search(@ToolParam(description = "The search query") String query,
+                             @ToolParam(description = "Number of results", required = false) Integer topK) {
+            return "[]";
+        }
+
+        @Tool(description = "Lists the sources of the knowledge base")
+        public String listSources(@ToolParam(description = "Source format filter", required = false) String format) {
+            return "[]";
+        }
+    }
+
+    static class ClockTool implements TimelineAwareTool {
+
+        @Tool(description = "Returns the current date and time")
+        public String now(@ToolParam(description = "IANA time zone", required = false) String zone) {
+            return "2026-01-01T00:00:00Z";
+        }
+    }
+
+    static class FetchTool implements TimelineAwareTool {
+
+        @Tool(description = "Extracts the text of a web page")
+        public String extract(@ToolParam(description = "The page URL") String url) {
+            return "";
+        }
+    }
+}
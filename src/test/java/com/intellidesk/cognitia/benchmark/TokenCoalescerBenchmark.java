@@ -0,0 +1,135 @@
+package com.intellidesk.cognitia.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import com.intellidesk.cognitia.chat.service.TokenCoalescer;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+
+/**
+ * Tokens/sec and bytes allocated per token: TokenCoalescer against the Flux.create implementation
+ * it replaced (kept below as {@link #legacyBufferByLine}). Both must emit the same batches, and the
+ * coalescer, which reuses its line buffer, must allocate little beyond the batch strings it emits:
+ * at most twice their estimated size (a Latin-1 String and its byte array), so nothing per token.
+ */
+@Slf4j
+class TokenCoalescerBenchmark {
+
+    private static final int TOKENS = 200_000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+    private static final Duration MAX_DELAY = Duration.ofMillis(500);
+    private static final int MAX_CHARS = 500;
+
+    @Test
+    void coalescerAgainstLegacyBuffer() {
+        List<String> tokens = tokens();
+        Function<Flux<String>, Flux<String>> legacyOperator = flux -> legacyBufferByLine(flux, MAX_DELAY, MAX_CHARS);
+        Function<Flux<String>, Flux<String>> coalescerOperator = flux -> TokenCoalescer.coalesce(flux, MAX_DELAY, MAX_CHARS);
+
+        List<String> batches = batches(tokens, coalescerOperator);
+        assertEquals(batches(tokens, legacyOperator), batches);
+        double batchBytesPerToken = batches.stream().mapToLong(TokenCoalescerBenchmark::stringBytes).sum() / (double) TOKENS;
+
+        Result legacy = measure(tokens, legacyOperator);
+        Result coalescer = measure(tokens, coalescerOperator);
+        log.info("[TokenCoalescerBenchmark] legacy    tokensPerSec={} bytesPerToken={}",
+                "%,.0f".formatted(legacy.tokensPerSecond()), "%.1f".formatted(legacy.bytesPerToken()));
+        log.info("[TokenCoalescerBenchmark] coalescer tokensPerSec={} bytesPerToken={}",
+                "%,.0f".formatted(coalescer.tokensPerSecond()), "%.1f".formatted(coalescer.bytesPerToken()));
+        log.info("[TokenCoalescerBenchmark] batchStringBytesPerToken={}", "%.1f".formatted(batchBytesPerToken));
+        assertTrue(coalescer.bytesPerToken() <= 2 * batchBytesPerToken,
+                "coalescer allocates " + coalescer.bytesPerToken() + " bytes/token for " + batchBytesPerToken + " bytes/token of batches");
+    }
+
+    private static Result measure(List<String> tokens, Function<Flux<String>, Flux<String>> operator) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            run(tokens, operator);
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            run(tokens, operator);
+        }
+        long nanos = System.nanoTime() - start;
+        long bytes = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+        long total = (long) TOKENS * MEASURED_ROUNDS;
+        return new Result(total / (nanos / 1e9), (double) bytes / total);
+    }
+
+    private static void run(List<String> tokens, Function<Flux<String>, Flux<String>> operator) {
+        operator.apply(Flux.fromIterable(tokens)).blockLast();
+    }
+
+    private static List<String> batches(List<String> tokens, Function<Flux<String>, Flux<String>> operator) {
+        return operator.apply(Flux.fromIterable(tokens)).collectList().block();
+    }
+
+    /**
+     * String header plus its Latin-1 byte array, both 8-byte aligned (compressed oops).
+     */
+    private static long stringBytes(String s) {
+        return 24 + ((16 + s.length() + 7) & ~7);
+    }
+
+    /**
+     * Word-sized tokens with a line break roughly every twenty tokens, like streamed markdown.
+     */
+    private static List<String> tokens() {
+        String[] words = { "The", " quick", " brown", " fox", " jumps", " over", " the", " lazy", " dog", "." };
+        List<String> tokens = new ArrayList<>(TOKENS);
+        for (int i = 0; i < TOKENS; i++) {
+            tokens.add(i % 20 == 19 ? "\n" : words[i % words.length]);
+        }
+        return tokens;
+    }
+
+    /**
+     * The pre-TokenCoalescer implementation from ChatService, unchanged.
+     */
+    private static Flux<String> legacyBufferByLine(Flux<String> source, Duration timeout, int maxChars) {
+        return Flux.create(sink -> {
+            StringBuilder lineBuffer = new StringBuilder();
+            AtomicLong lastEmit = new AtomicLong(System.currentTimeMillis());
+
+            source.subscribe(
+                    chunk -> {
+                        lineBuffer.append(chunk);
+                        long now = System.currentTimeMillis();
+                        boolean hasNewline = chunk.contains("\n");
+                        boolean timeoutReached = (now - lastEmit.get()) > timeout.toMillis();
+                        boolean sizeExceeded = lineBuffer.length() > maxChars;
+
+                        if (hasNewline || timeoutReached || sizeExceeded) {
+                            if (lineBuffer.length() > 0) {
+                                sink.next(lineBuffer.toString());
+                                lineBuffer.setLength(0);
+                                lastEmit.set(now);
+                            }
+                        }
+                    },
+                    sink::error,
+                    () -> {
+                        if (lineBuffer.length() > 0) {
+                            sink.next(lineBuffer.toString());
+                        }
+                        sink.complete();
+                    });
+        });
+    }
+
+    private record Result(double tokensPerSecond, double bytesPerToken) {
+    }
+}
@@ -0,0 +1,255 @@
+package com.intellidesk.cognitia.benchmark;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.intellidesk.cognitia.ingestion.config.HnswIndexProperties;
+import com.intellidesk.cognitia.ingestion.models.dtos.VectorIndexStatus;
+import com.intellidesk.cognitia.ingestion.service.vectorstore.AccessScopedVectorStore;
+import com.intellidesk.cognitia.ingestion.service.vectorstore.VectorIndexManager;
+import com.intellidesk.cognitia.ingestion.service.vectorstore.VectorQuantization;
+import com.intellidesk.cognitia.ingestion.service.vectorstore.VectorStorePartitions;
+import com.pgvector.PGvector;
+import com.zaxxer.hikari.HikariDataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A Flyway-migrated Postgres with pgvector for the vector store benchmarks. Searches go through the
+ * production {@link AccessScopedVectorStore}, so the exact, HNSW and quantized SQL paths are the ones
+ * the app runs. Each seeded tenant gets its own partition, loaded before it is attached so its indexes
+ * are built in bulk; {@link #close()} drops the partitions again.
+ *
+ * Point it at a database used only for benchmarks: building a quantized index rebuilds it on every
+ * partition of vector_store. With the docker-compose Postgres:
+ * {@code docker compose exec postgres createdb -U cognitia cognitia_benchmark}. Override the connection
+ * with -Dbenchmarks.jdbc-url, -Dbenchmarks.jdbc-user and -Dbenchmarks.jdbc-password.
+ */
+@Slf4j
+final class VectorStoreBenchmarkDatabase implements AutoCloseable {
+
+    static final int TOP_K = 10;
+    static final int DEPARTMENTS = 10;
+
+    private static final int INSERT_BATCH = 500;
+    private static final String INSERT_SQL = """
+            INSERT INTO public.%s (id, content, metadata, embedding, tenant_id)
+            VALUES (?, ?, ?::json, ?, ?)
+            """;
+
+    private final HikariDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceTransactionManager transactionManager;
+    private final VectorStorePartitions partitions;
+    private final EmbeddingModel queryEmbeddings = mock(EmbeddingModel.class);
+    private final Map<String, float[]> queryVectors = new ConcurrentHashMap<>();
+    private final List<UUID> tenants = new ArrayList<>();
+
+    private VectorStoreBenchmarkDatabase(HikariDataSource dataSource) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionManager = new DataSourceTransactionManager(dataSource);
+        this.partitions = new VectorStorePartitions(jdbcTemplate, transactionManager, 60);
+        when(queryEmbeddings.embed(anyString())).thenAnswer(invocation -> queryVectors.get(invocation.<String>getArgument(0)));
+    }
+
+    static VectorStoreBenchmarkDatabase connect() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(System.getProperty("benchmarks.jdbc-url", "jdbc:postgresql://localhost:5433/cognitia_benchmark"));
+        dataSource.setUsername(System.getProperty("benchmarks.jdbc-user", "cognitia"));
+        dataSource.setPassword(System.getProperty("benchmarks.jdbc-password", "cognitia123"));
+        dataSource.setMaximumPoolSize(4);
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        return new VectorStoreBenchmarkDatabase(dataSource);
+    }
+
+    /**
+     * Loads the vectors as a new tenant's chunks, department d&lt;row % DEPARTMENTS&gt;. With quantizedCopies
+     * every mode's compact column is filled too, so a later quantized index build has nothing to backfill.
+     */
+    SeededTenant seedTenant(float[][] vectors, boolean quantizedCopies) {
+        UUID tenantId = UUID.randomUUID();
+        String table = VectorStorePartitions.partitionName(tenantId);
+        jdbcTemplate.execute("CREATE TABLE public." + table
+                + " (LIKE " + VectorStorePartitions.PARENT_TABLE + " INCLUDING DEFAULTS INCLUDING GENERATED)");
+        tenants.add(tenantId);
+
+        List<String> ids = new ArrayList<>(vectors.length);
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        for (int row = 0; row < vectors.length; row++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id.toString());
+            String metadata = "{\"tenantId\":\"%s\",\"sourceId\":\"%s\",\"department\":\"%s\",\"classificationRank\":0}"
+                    .formatted(tenantId, UUID.nameUUIDFromBytes(tenantId.toString().getBytes()), department(row));
+            batch.add(new Object[] { id, "chunk " + row, metadata, new PGvector(vectors[row]), tenantId });
+            if (batch.size() == INSERT_BATCH || row == vectors.length - 1) {
+                jdbcTemplate.batchUpdate(INSERT_SQL.formatted(table), batch);
+                batch.clear();
+            }
+        }
+        if (quantizedCopies) {
+            String assignments = Arrays.stream(VectorQuantization.values()).filter(VectorQuantization::enabled)
+                    .map(mode -> mode.column() + " = " + mode.backfillExpression())
+                    .collect(Collectors.joining(", "));
+            jdbcTemplate.execute("UPDATE public." + table + " SET " + assignments);
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET maintenance_work_mem = '"
+                        + new HnswIndexProperties(null, null, null, null, null, null).maintenanceWorkMem() + "'");
+                statement.execute("ALTER TABLE " + VectorStorePartitions.PARENT_TABLE + " ATTACH PARTITION public." + table
+                        + " FOR VALUES IN ('" + tenantId + "')");
+                statement.execute("ANALYZE public." + table);
+                statement.execute("RESET maintenance_work_mem");
+            }
+            return null;
+        });
+        log.info("[VectorStoreBenchmarkDatabase] Seeded tenant {} rows={}", tenantId, vectors.length);
+        return new SeededTenant(tenantId, ids, vectors);
+    }
+
+    VectorIndexManager indexManager(VectorQuantization mode, int oversample) {
+        return new VectorIndexManager(jdbcTemplate, transactionManager,
+                new HnswIndexProperties(null, null, null, null, null, null), partitions, mode.name(), oversample, 1000);
+    }
+
+    /**
+     * The production store. exactSearchMaxRows 0 sends every search through the ANN path (quantized when
+     * the mode's index is built), Long.MAX_VALUE through the exact path.
+     */
+    AccessScopedVectorStore store(long exactSearchMaxRows, VectorQuantization mode, int oversample) {
+        return new AccessScopedVectorStore(null, partitions, indexManager(mode, oversample), jdbcTemplate,
+                queryEmbeddings, null, new ObjectMapper(), exactSearchMaxRows, 300, 100);
+    }
+
+    /**
+     * Builds the mode's quantized HNSW index with the admin backfill job and waits for it.
+     */
+    void buildQuantizedIndex(VectorQuantization mode) throws InterruptedException {
+        VectorIndexManager manager = indexManager(mode, 1);
+        if (!manager.startQuantizedBackfill()) {
+            throw new IllegalStateException("Could not start the " + mode + " backfill");
+        }
+        VectorIndexStatus.Job job;
+        do {
+            Thread.sleep(1_000);
+            job = manager.status(0, TOP_K).job();
+        } while ("RUNNING".equals(job.state()));
+        if (!"COMPLETED".equals(job.state())) {
+            throw new IllegalStateException("The " + mode + " backfill ended " + job.state() + ": " + job.error());
+        }
+        log.info("[VectorStoreBenchmarkDatabase] Built {} index", mode);
+    }
+
+    /**
+     * Runs every query once to warm caches, then again timed. Recall@TOP_K is against an exact ranking
+     * of the tenant's rows (in department, when given) computed here from the seeded vectors.
+     */
+    Measurement measure(VectorStore store, SeededTenant tenant, String department, float[][] queries) {
+        FilterExpressionBuilder b = new FilterExpressionBuilder();
+        Filter.Expression filter = department == null
+                ? b.eq("tenantId", tenant.id().toString()).build()
+                : b.and(b.eq("tenantId", tenant.id().toString()), b.eq("department", department)).build();
+        List<SearchRequest> requests = new ArrayList<>(queries.length);
+        for (int q = 0; q < queries.length; q++) {
+            String key = tenant.id() + ":" + q;
+            queryVectors.put(key, queries[q]);
+            requests.add(SearchRequest.builder().query(key).topK(TOP_K).filterExpression(filter).build());
+        }
+
+        requests.forEach(store::similaritySearch);
+        double recall = 0;
+        long hits = 0;
+        long nanos = 0;
+        for (int q = 0; q < queries.length; q++) {
+            long start = System.nanoTime();
+            List<Document> results = store.similaritySearch(requests.get(q));
+            nanos += System.nanoTime() - start;
+            hits += results.size();
+            Set<String> truth = tenant.nearest(queries[q], department);
+            recall += results.stream().filter(d -> truth.contains(d.getId())).count() / (double) Math.max(1, truth.size());
+        }
+        return new Measurement(recall / queries.length, nanos / 1e6 / queries.length, (double) hits / queries.length);
+    }
+
+    static String department(int row) {
+        return "d" + (row % DEPARTMENTS);
+    }
+
+    @Override
+    public void close() {
+        for (UUID tenantId : tenants) {
+            try {
+                partitions.dropTenant(tenantId);
+            } catch (Exception e) {
+                log.warn("[VectorStoreBenchmarkDatabase] Could not drop tenant {}: {}", tenantId, e.getMessage());
+            }
+        }
+        dataSource.close();
+    }
+
+    record SeededTenant(UUID id, List<String> rowIds, float[][] vectors) {
+
+        int rows() {
+            return vectors.length;
+        }
+
+        /**
+         * Ids of the TOP_K rows nearest to the query (in the department, when given) within the store's
+         * default similarity threshold, which keeps distances below 1.
+         */
+        Set<String> nearest(float[] query, String department) {
+            int[] best = new int[TOP_K];
+            double[] distances = new double[TOP_K];
+            int filled = 0;
+            for (int row = 0; row < vectors.length; row++) {
+                if (department != null && !department.equals(department(row))) {
+                    continue;
+                }
+                double d = BenchmarkVectors.cosineDistance(query, vectors[row]);
+                if (d >= 1 || (filled == TOP_K && d >= distances[TOP_K - 1])) {
+                    continue;
+                }
+                int at = filled < TOP_K ? filled++ : TOP_K - 1;
+                while (at > 0 && distances[at - 1] > d) {
+                    distances[at] = distances[at - 1];
+                    best[at] = best[at - 1];
+                    at--;
+                }
+                distances[at] = d;
+                best[at] = row;
+            }
+            Set<String> ids = new HashSet<>();
+            for (int i = 0; i < filled; i++) {
+                ids.add(rowIds.get(best[i]));
+            }
+            return ids;
+        }
+    }
+
+    record Measurement(double recall, double millisPerQuery, double hitsPerQuery) {}
+}
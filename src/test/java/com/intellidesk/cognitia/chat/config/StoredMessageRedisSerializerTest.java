@@ -0,0 +1,158 @@
+package com.intellidesk.cognitia.chat.config;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.intellidesk.cognitia.chat.config.StoredMessageRedisSerializer.Codec;
+import com.intellidesk.cognitia.chat.models.entities.StoredMessage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class StoredMessageRedisSerializerTest {
+
+    private static final int COMPRESSION_THRESHOLD = 1024;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @ParameterizedTest
+    @EnumSource(Codec.class)
+    void roundTripsEveryField(Codec codec) {
+        StoredMessageRedisSerializer serializer = serializer(codec);
+        StoredMessage message = message(MessageType.ASSISTANT, "Quarterly revenue grew 12% – see table 3 ✓",
+                Map.of("model", "gpt", "tokens", 42));
+
+        StoredMessage read = serializer.deserialize(serializer.serialize(message));
+
+        assertSameMessage(message, read);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Codec.class)
+    void roundTripsNullTextMetadataAndTimestamp(Codec codec) {
+        StoredMessageRedisSerializer serializer = serializer(codec);
+        StoredMessage message = new StoredMessage(MessageType.USER, null, null, null);
+
+        StoredMessage read = serializer.deserialize(serializer.serialize(message));
+
+        assertEquals(MessageType.USER, read.getMessageType());
+        assertNull(read.getText());
+        assertNull(read.getTimestamp());
+        assertTrue(read.getMetadata() == null || read.getMetadata().isEmpty());
+    }
+
+    @Test
+    void binaryDeflatesLargeBodiesAndInflatesThem() {
+        StoredMessageRedisSerializer serializer = serializer(Codec.BINARY);
+        StoredMessage message = message(MessageType.ASSISTANT, "All work and no play. ".repeat(500), Map.of());
+
+        byte[] bytes = serializer.serialize(message);
+
+        assertEquals(StoredMessageRedisSerializer.MAGIC, bytes[0]);
+        assertEquals(1, bytes[2] & 1, "deflated flag");
+        assertTrue(bytes.length < message.getText().length() / 4);
+        assertSameMessage(message, serializer.deserialize(bytes));
+    }
+
+    @Test
+    void binaryKeepsSmallBodiesUncompressed() {
+        byte[] bytes = serializer(Codec.BINARY).serialize(message(MessageType.USER, "short", Map.of()));
+
+        assertEquals(0, bytes[2] & 1, "deflated flag");
+    }
+
+    @Test
+    void jsonWritesPlainJackson() {
+        byte[] bytes = serializer(Codec.JSON).serialize(message(MessageType.USER, "hello", Map.of()));
+
+        assertEquals('{', bytes[0]);
+        assertNotEquals(StoredMessageRedisSerializer.MAGIC, bytes[0]);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Codec.class)
+    void readsEntriesWrittenByEitherCodec(Codec reader) {
+        StoredMessage fromJson = message(MessageType.USER, "written as json", Map.of("a", 1));
+        StoredMessage fromBinary = message(MessageType.ASSISTANT, "written as binary", Map.of("b", 2));
+        List<byte[]> list = List.of(
+                serializer(Codec.JSON).serialize(fromJson),
+                serializer(Codec.BINARY).serialize(fromBinary));
+
+        StoredMessageRedisSerializer serializer = serializer(reader);
+
+        assertSameMessage(fromJson, serializer.deserialize(list.get(0)));
+        assertSameMessage(fromBinary, serializer.deserialize(list.get(1)));
+    }
+
+    @Test
+    void readsJsonWrittenBeforeTheCodecExisted() {
+        byte[] legacy = """
+                {"messageType":"USER","text":"from the old serializer","metadata":{},"timestamp":"2025-11-02T10:15:30.123456789Z"}
+                """.strip().getBytes(StandardCharsets.UTF_8);
+
+        StoredMessage read = serializer(Codec.BINARY).deserialize(legacy);
+
+        assertEquals(MessageType.USER, read.getMessageType());
+        assertEquals("from the old serializer", read.getText());
+        assertEquals(Instant.parse("2025-11-02T10:15:30.123456789Z"), read.getTimestamp());
+    }
+
+    @Test
+    void rejectsUnknownBinaryVersion() {
+        byte[] bytes = serializer(Codec.BINARY).serialize(message(MessageType.USER, "hello", Map.of()));
+        bytes[1] = 99;
+
+        assertThrows(SerializationException.class, () -> serializer(Codec.BINARY).deserialize(bytes));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Codec.class)
+    void nullAndEmptyAreNull(Codec codec) {
+        StoredMessageRedisSerializer serializer = serializer(codec);
+
+        assertNull(serializer.serialize(null));
+        assertNull(serializer.deserialize(null));
+        assertNull(serializer.deserialize(new byte[0]));
+    }
+
+    @Test
+    void binaryIsSmallerThanJson() {
+        StoredMessage message = message(MessageType.ASSISTANT, "A typical answer of a few sentences. ".repeat(10), Map.of());
+
+        byte[] json = serializer(Codec.JSON).serialize(message);
+        byte[] binary = serializer(Codec.BINARY).serialize(message);
+
+        assertTrue(binary.length < json.length);
+        assertArrayEquals(binary, serializer(Codec.BINARY).serialize(serializer(Codec.JSON).deserialize(json)));
+    }
+
+    private static StoredMessageRedisSerializer serializer(Codec codec) {
+        return new StoredMessageRedisSerializer(OBJECT_MAPPER, new SimpleMeterRegistry(), codec, COMPRESSION_THRESHOLD);
+    }
+
+    private static StoredMessage message(MessageType type, String text, Map<String, Object> metadata) {
+        return new StoredMessage(type, text, metadata, Instant.parse("2026-03-14T09:26:53.589793238Z"));
+    }
+
+    private static void assertSameMessage(StoredMessage expected, StoredMessage actual) {
+        assertEquals(expected.getMessageType(), actual.getMessageType());
+        assertEquals(expected.getText(), actual.getText());
+        assertEquals(expected.getTimestamp(), actual.getTimestamp());
+        assertEquals(expected.getMetadata(), actual.getMetadata());
+    }
+}
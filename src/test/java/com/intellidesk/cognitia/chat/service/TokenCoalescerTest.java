@@ -0,0 +1,93 @@
+package com.intellidesk.cognitia.chat.service;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.TestPublisher;
+
+class TokenCoalescerTest {
+
+    private static final Duration MAX_DELAY = Duration.ofMillis(500);
+
+    @Test
+    void flushesOnNewline() {
+        StepVerifier.withVirtualTime(() -> TokenCoalescer.coalesce(
+                        Flux.just("Hello ", "world\n", "next").concatWith(Flux.never()), MAX_DELAY, 1000))
+                .expectSubscription()
+                .expectNext("Hello world\n")
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void flushesWhenBufferExceedsMaxChars() {
+        StepVerifier.withVirtualTime(() -> TokenCoalescer.coalesce(
+                        Flux.just("abcd", "efgh", "ij").concatWith(Flux.never()), MAX_DELAY, 6))
+                .expectSubscription()
+                .expectNext("abcdefgh")
+                .expectNoEvent(Duration.ofMillis(100))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void flushesAfterMaxDelayWithoutFurtherChunks() {
+        StepVerifier.withVirtualTime(() -> TokenCoalescer.coalesce(
+                        Flux.just("partial").concatWith(Flux.never()), MAX_DELAY, 1000))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(400))
+                .thenAwait(Duration.ofMillis(100))
+                .expectNext("partial")
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void flushesBufferedTailOnComplete() {
+        StepVerifier.withVirtualTime(() -> TokenCoalescer.coalesce(
+                        Flux.just("line one\n", "tail ", "text"), MAX_DELAY, 1000))
+                .expectNext("line one\n")
+                .expectNext("tail text")
+                .verifyComplete();
+    }
+
+    @Test
+    void flushesBufferedTailBeforeError() {
+        StepVerifier.withVirtualTime(() -> TokenCoalescer.coalesce(
+                        Flux.just("line one\n", "partial")
+                                .concatWith(Flux.error(new IllegalStateException("model failed"))),
+                        MAX_DELAY, 1000))
+                .expectNext("line one\n")
+                .expectNext("partial")
+                .expectErrorMessage("model failed")
+                .verify();
+    }
+
+    @Test
+    void holdsBatchesUntilRequested() {
+        StepVerifier.withVirtualTime(() -> TokenCoalescer.coalesce(
+                        Flux.just("a\n", "b\n", "c\n"), MAX_DELAY, 1000), 1)
+                .expectNext("a\n")
+                .expectNoEvent(Duration.ofSeconds(1))
+                .thenRequest(2)
+                .expectNext("b\n", "c\n")
+                .verifyComplete();
+    }
+
+    @Test
+    void forwardsCancellationUpstream() {
+        TestPublisher<String> upstream = TestPublisher.create();
+
+        StepVerifier.withVirtualTime(() -> TokenCoalescer.coalesce(upstream.flux(), MAX_DELAY, 1000))
+                .expectSubscription()
+                .then(() -> upstream.next("first\n"))
+                .expectNext("first\n")
+                .thenCancel()
+                .verify();
+
+        upstream.assertCancelled();
+    }
+}